@@ -0,0 +1,1010 @@
+package geometries;
+
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Predicate;
+import java.util.logging.Logger;
+
+/**
+ * Bounding volume hierarchy (BVH) over bounded geometries - or over any set of {@link Primitives}
+ * like the faces of a mesh - built top-down with the
+ * surface area heuristic (SAH). It lets a ray skip every subtree whose box it misses,
+ * so the intersection of a ray with n geometries costs about log(n) box tests instead of n
+ * intersection calculations.
+ * <p>
+ * Once built, the hierarchy is flattened in depth-first order into primitive arrays - the boxes in a
+ * {@code double[]}, the child offsets and geometry ranges in an {@code int[]} - so that the traversal
+ * walks contiguous memory with an explicit stack of node indexes and allocates nothing.
+ * <p>
+ * Large hierarchies are built on the fork-join pool: the bounds, bins and partition of a large node are
+ * computed by chunks in parallel, and its two subtrees are built in parallel. The result doesn't depend
+ * on the number of threads, so a scene always gets the same hierarchy.
+ *
+ * @author Yona and Aaron Mimoun
+ */
+class BVH extends Intersectable {
+    /**
+     * number of geometries under which a node stops being split
+     */
+    private static final int MAX_LEAF_SIZE = 4;
+    /**
+     * number of buckets used to evaluate the candidate splits on each axis
+     */
+    private static final int BINS = 12;
+    /**
+     * cost of visiting a node relatively to the cost of intersecting one geometry
+     */
+    private static final double TRAVERSAL_COST = 0.5;
+    /**
+     * maximal depth of the hierarchy, which is the size of the traversal stack
+     */
+    private static final int MAX_DEPTH = 64;
+    /**
+     * ratio of the SAH cost of a refitted hierarchy to its cost when it was built,
+     * above which the hierarchy is considered degraded and has to be rebuilt
+     */
+    static final double REBUILD_THRESHOLD = 1.5;
+    /**
+     * default number of primitives from which a range is split between several fork-join tasks while building
+     */
+    static final int PARALLEL_SIZE = 4096;
+
+    private static final Logger LOGGER = Logger.getLogger("BVH");
+
+    /**
+     * node of the hierarchy while it is built - an inner node has two children,
+     * a leaf has a range of the geometries array
+     */
+    private static class Node {
+        final BoundingBox box;
+        Node left;
+        Node right;
+        int axis;
+        int start;
+        int count;
+
+        Node(BoundingBox _box) {
+            box = _box;
+        }
+    }
+
+    /**
+     * the primitives a hierarchy is built over, known by their index
+     */
+    interface Primitives {
+        /**
+         * getting the number of primitives
+         *
+         * @return the number of primitives
+         */
+        int size();
+
+        /**
+         * getting the bounding box of a primitive
+         *
+         * @param _i the index of the primitive
+         * @return its bounding box
+         */
+        BoundingBox getBoundingBox(int _i);
+
+        /**
+         * passes the intersections of a ray with a primitive to a visitor that may stop the search
+         *
+         * @param _i           the index of the primitive
+         * @param _ray         the ray
+         * @param _maxDistance the maximum distance between the point to the start of the ray
+         * @param _visitor     the action on each intersection, returning false to stop the search
+         * @return false if the visitor has stopped the search, true otherwise
+         */
+        boolean forEachGeoIntersection(int _i, Ray _ray, double _maxDistance, Predicate<GeoPoint> _visitor);
+
+        /**
+         * find the closest intersection of a ray with a primitive
+         *
+         * @param _i           the index of the primitive
+         * @param _ray         the ray
+         * @param _maxDistance the maximum distance between the point to the start of the ray
+         * @return the closest intersection geo point, or null if there is none
+         */
+        GeoPoint findClosestIntersection(int _i, Ray _ray, double _maxDistance);
+
+        /**
+         * find the intersections of a packet of rays with a primitive that are closer
+         * than the closest ones found so far
+         *
+         * @param _i      the index of the primitive
+         * @param _packet the packet of rays
+         */
+        void findClosestIntersections(int _i, RayPacket _packet);
+    }
+
+    final Primitives primitives;
+    /**
+     * number of primitives from which a range is split between several fork-join tasks while building:
+     * the bounds, the bins and the partition of a node are computed by chunks of this size,
+     * and the two subtrees of a node are built in parallel
+     */
+    private final int parallelSize;
+    /**
+     * the indexes of the primitives in the order of the leaves
+     */
+    final int[] order;
+    /**
+     * the boxes of the geometries, used only while building
+     */
+    private BoundingBox[] boxes;
+    /**
+     * where the partitions of the build write the primitives and their boxes before copying them back
+     */
+    private int[] spareOrder;
+    private BoundingBox[] spareBoxes;
+    /**
+     * the box of primitive order[i] is at [6i, 6i + 6) as (minX, minY, minZ, maxX, maxY, maxZ)
+     */
+    final double[] itemBounds;
+    /**
+     * the box of node k is at [6k, 6k + 6) as (minX, minY, minZ, maxX, maxY, maxZ)
+     */
+    final double[] nodeBounds;
+    /**
+     * node k is described by nodeData[2k] and nodeData[2k + 1]:
+     * <ul>
+     * <li>a leaf has its first primitive in {@link #order} and its (positive) number of primitives</li>
+     * <li>an inner node has its second child - the first one is node k + 1 - and -1 - its split axis</li>
+     * </ul>
+     */
+    final int[] nodeData;
+    private final int nodeCount;
+    /**
+     * the parent of each node, -1 for the root
+     */
+    private final int[] parent;
+    /**
+     * the position in {@link #order} of each primitive
+     */
+    private final int[] position;
+    /**
+     * the leaf of each position in {@link #order}
+     */
+    private final int[] leaf;
+    /**
+     * the sum over the nodes of their surface area times their cost - traversal for an inner node,
+     * intersection of its primitives for a leaf. Divided by the area of the root, it is the SAH cost of the hierarchy
+     */
+    private double weightedArea;
+    /**
+     * the SAH cost of the hierarchy when it was built
+     */
+    private final double builtCost;
+    /**
+     * the wall time of the build in nanoseconds
+     */
+    private final long buildTime;
+    /**
+     * the traversal stack of each render thread
+     */
+    private final ThreadLocal<int[]> stack = ThreadLocal.withInitial(() -> new int[MAX_DEPTH]);
+
+    /**
+     * constructor that builds the hierarchy
+     *
+     * @param _geometries the geometries to organize, all of them must have a bounding box
+     */
+    BVH(List<Intersectable> _geometries) {
+        this(of(_geometries.toArray(new Intersectable[0])));
+    }
+
+    /**
+     * constructor that builds the hierarchy over any primitives
+     *
+     * @param _primitives the primitives to organize
+     */
+    BVH(Primitives _primitives) {
+        this(_primitives, PARALLEL_SIZE);
+    }
+
+    /**
+     * constructor that builds the hierarchy over any primitives, with a given grain of parallelism -
+     * the hierarchy is the same for any grain
+     *
+     * @param _primitives   the primitives to organize
+     * @param _parallelSize the number of primitives from which a range is split between several tasks
+     */
+    BVH(Primitives _primitives, int _parallelSize) {
+        long begin = System.nanoTime();
+        primitives = _primitives;
+        parallelSize = _parallelSize;
+        int n = _primitives.size();
+        order = new int[n];
+        boxes = new BoundingBox[n];
+        inChunks(0, n, (chunk, start, end) -> {
+            for (int i = start; i < end; ++i) {
+                order[i] = i;
+                boxes[i] = _primitives.getBoundingBox(i);
+            }
+        });
+        spareOrder = new int[n];
+        spareBoxes = new BoundingBox[n];
+        Node root = n == 0 ? null : build(0, n, 1);
+        spareOrder = null;
+        spareBoxes = null;
+
+        nodeCount = count(root);
+        nodeBounds = new double[6 * nodeCount];
+        nodeData = new int[2 * nodeCount];
+        parent = new int[nodeCount];
+        leaf = new int[n];
+        if (root != null) flatten(root, 0, -1);
+        itemBounds = new double[6 * n];
+        position = new int[n];
+        for (int i = 0; i < n; ++i) {
+            pack(boxes[i], itemBounds, i);
+            position[order[i]] = i;
+        }
+        boxes = null;
+
+        for (int node = 0; node < nodeCount; ++node)
+            weightedArea += area(node) * weight(node);
+        builtCost = cost();
+        buildTime = System.nanoTime() - begin;
+        LOGGER.fine(() -> String.format("BVH over %d primitives built in %.1f ms with %d nodes",
+                n, buildTime / 1e6, nodeCount));
+    }
+
+    /**
+     * constructor for a hierarchy built before - like one read back by {@link BVHCache} -
+     * given by its flattened arrays, which are used as they are (not copied)
+     *
+     * @param _primitives the primitives the hierarchy was built over
+     * @param _order      the indexes of the primitives in the order of the leaves
+     * @param _nodeBounds the boxes of the nodes
+     * @param _nodeData   the children or primitives of the nodes
+     * @param _itemBounds the boxes of the primitives in the order of the leaves
+     * @throws IllegalArgumentException when the arrays don't make a hierarchy of at most {@link #MAX_DEPTH} levels
+     *                                  over the primitives, or their boxes don't bound the primitives as they are
+     */
+    BVH(Primitives _primitives, int[] _order, double[] _nodeBounds, int[] _nodeData, double[] _itemBounds) {
+        long begin = System.nanoTime();
+        primitives = _primitives;
+        parallelSize = PARALLEL_SIZE;
+        int n = _primitives.size();
+        nodeCount = _nodeData.length / 2;
+        if (_order.length != n || _itemBounds.length != 6 * n
+                || _nodeData.length % 2 != 0 || _nodeBounds.length != 6 * nodeCount || (nodeCount == 0) != (n == 0))
+            throw new IllegalArgumentException("The arrays don't match the primitives");
+        order = _order;
+        nodeBounds = _nodeBounds;
+        nodeData = _nodeData;
+        itemBounds = _itemBounds;
+
+        position = new int[n];
+        Arrays.fill(position, -1);
+        for (int i = 0; i < n; ++i) {
+            if (order[i] < 0 || order[i] >= n || position[order[i]] >= 0)
+                throw new IllegalArgumentException("The order is not a permutation of the primitives");
+            position[order[i]] = i;
+        }
+        parent = new int[nodeCount];
+        leaf = new int[n];
+        Arrays.fill(parent, -1);
+        Arrays.fill(leaf, -1);
+        // the children of a node come after it, so the nodes are walked from the root down
+        int[] depth = new int[nodeCount];
+        if (nodeCount > 0) depth[0] = 1;
+        for (int node = 0; node < nodeCount; ++node) {
+            if (node > 0 && parent[node] < 0)
+                throw new IllegalArgumentException("Node " + node + " is not in the hierarchy");
+            if (depth[node] > MAX_DEPTH)
+                throw new IllegalArgumentException("The hierarchy is deeper than " + MAX_DEPTH + " levels");
+            int first = nodeData[2 * node];
+            int data = nodeData[2 * node + 1];
+            if (data < 0) {
+                if (data < -3 || first <= node + 1 || first >= nodeCount)
+                    throw new IllegalArgumentException("Wrong children of node " + node);
+                link(node, node + 1, depth);
+                link(node, first, depth);
+                if (!contains(nodeBounds, node, nodeBounds, node + 1) || !contains(nodeBounds, node, nodeBounds, first))
+                    throw new IllegalArgumentException("The box of node " + node + " doesn't bound its children");
+            } else {
+                if (data == 0 || first < 0 || first + data > n)
+                    throw new IllegalArgumentException("Wrong primitives of node " + node);
+                for (int i = first; i < first + data; ++i) {
+                    if (leaf[i] >= 0)
+                        throw new IllegalArgumentException("Primitive " + order[i] + " is in two leaves");
+                    leaf[i] = node;
+                    if (!contains(nodeBounds, node, itemBounds, i))
+                        throw new IllegalArgumentException("The box of node " + node + " doesn't bound its primitives");
+                }
+            }
+        }
+        for (int i = 0; i < n; ++i) {
+            if (leaf[i] < 0)
+                throw new IllegalArgumentException("Primitive " + order[i] + " is in no leaf");
+            // the boxes stored with the hierarchy must be those of the primitives - far cheaper to check than a build
+            BoundingBox box = _primitives.getBoundingBox(order[i]);
+            int k = 6 * i;
+            if (itemBounds[k] != box.minX || itemBounds[k + 1] != box.minY || itemBounds[k + 2] != box.minZ
+                    || itemBounds[k + 3] != box.maxX || itemBounds[k + 4] != box.maxY || itemBounds[k + 5] != box.maxZ)
+                throw new IllegalArgumentException("The box of primitive " + order[i] + " has changed");
+        }
+
+        for (int node = 0; node < nodeCount; ++node)
+            weightedArea += area(node) * weight(node);
+        builtCost = cost();
+        buildTime = System.nanoTime() - begin;
+    }
+
+    /**
+     * links a node of a hierarchy built before to its parent
+     *
+     * @param _parent the parent
+     * @param _child  the child
+     * @param _depth  the depth of each node, the root at depth 1
+     * @throws IllegalArgumentException when the child already has another parent
+     */
+    private void link(int _parent, int _child, int[] _depth) {
+        if (parent[_child] >= 0)
+            throw new IllegalArgumentException("Node " + _child + " has two parents");
+        parent[_child] = _parent;
+        _depth[_child] = _depth[_parent] + 1;
+    }
+
+    /**
+     * checks that a box packed in an array bounds another one
+     *
+     * @param _outer      the array of the bounding box
+     * @param _outerIndex the index of the bounding box in its array
+     * @param _inner      the array of the bounded box
+     * @param _innerIndex the index of the bounded box in its array
+     * @return true if the first box contains the second one
+     */
+    private static boolean contains(double[] _outer, int _outerIndex, double[] _inner, int _innerIndex) {
+        int o = 6 * _outerIndex, i = 6 * _innerIndex;
+        return _outer[o] <= _inner[i] && _outer[o + 1] <= _inner[i + 1] && _outer[o + 2] <= _inner[i + 2]
+                && _outer[o + 3] >= _inner[i + 3] && _outer[o + 4] >= _inner[i + 4] && _outer[o + 5] >= _inner[i + 5];
+    }
+
+    /**
+     * a part of the work on a range of the arrays
+     */
+    private interface Chunk {
+        /**
+         * does the work on a chunk of the range
+         *
+         * @param _chunk the index of the chunk in the range
+         * @param _start first index of the chunk
+         * @param _end   index after the last of the chunk
+         */
+        void run(int _chunk, int _start, int _end);
+    }
+
+    /**
+     * the number of chunks of a range
+     *
+     * @param _count the size of the range
+     * @return the number of chunks of {@link #parallelSize} that cover the range, at least one
+     */
+    private int chunks(int _count) {
+        return Math.max(1, (int) (((long) _count + parallelSize - 1) / parallelSize));
+    }
+
+    /**
+     * does some work on the range [start, end) of the arrays by chunks of {@link #parallelSize},
+     * each chunk in a fork-join task when there are several of them
+     *
+     * @param _start first index of the range
+     * @param _end   index after the last of the range
+     * @param _work  the work on each chunk
+     */
+    private void inChunks(int _start, int _end, Chunk _work) {
+        int chunks = chunks(_end - _start);
+        if (chunks == 1) {
+            _work.run(0, _start, _end);
+            return;
+        }
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(chunks);
+        for (int c = 0; c < chunks; ++c) {
+            int chunk = c;
+            int start = _start + c * parallelSize;
+            int end = Math.min(_end, start + parallelSize);
+            tasks.add(ForkJoinTask.adapt(() -> _work.run(chunk, start, end)));
+        }
+        ForkJoinTask.invokeAll(tasks);
+    }
+
+    /**
+     * recursive construction of the subtree of the geometries in range [start, end) of the arrays.
+     * The work on a large range is split between fork-join tasks, but the tree doesn't depend on
+     * how it is split: the bounds and the bins are merged with min, max and sums, and the partition is stable
+     *
+     * @param _start first index of the range
+     * @param _end   index after the last of the range
+     * @param _depth the depth of the subtree's root
+     * @return the root of the subtree
+     */
+    private Node build(int _start, int _end, int _depth) {
+        // the box of the node, then the bounds of the centers
+        double[][] chunkBounds = new double[chunks(_end - _start)][];
+        inChunks(_start, _end, (chunk, start, end) -> chunkBounds[chunk] = bounds(start, end));
+        double[] bounds = chunkBounds[0];
+        for (int c = 1; c < chunkBounds.length; ++c)
+            for (int k = 0; k < 12; ++k)
+                bounds[k] = k % 6 < 3 ? Math.min(bounds[k], chunkBounds[c][k]) : Math.max(bounds[k], chunkBounds[c][k]);
+        BoundingBox box = new BoundingBox(bounds[0], bounds[1], bounds[2], bounds[3], bounds[4], bounds[5]);
+        Node node = new Node(box);
+        int count = _end - _start;
+        if (count <= 1 || _depth == MAX_DEPTH)
+            return leaf(node, _start, _end);
+
+        // bin the geometries on the three axes at once
+        double[] cMin = {bounds[6], bounds[7], bounds[8]};
+        double[] cMax = {bounds[9], bounds[10], bounds[11]};
+        int[][] chunkCounts = new int[chunkBounds.length][];
+        double[][] chunkBins = new double[chunkBounds.length][];
+        inChunks(_start, _end, (chunk, start, end) -> {
+            chunkCounts[chunk] = new int[3 * BINS];
+            chunkBins[chunk] = bins(start, end, cMin, cMax, chunkCounts[chunk]);
+        });
+        int[] binCounts = chunkCounts[0];
+        double[] bins = chunkBins[0];
+        for (int c = 1; c < chunkBounds.length; ++c) {
+            for (int b = 0; b < 3 * BINS; ++b)
+                binCounts[b] += chunkCounts[c][b];
+            for (int k = 0; k < 18 * BINS; ++k)
+                bins[k] = k % 6 < 3 ? Math.min(bins[k], chunkBins[c][k]) : Math.max(bins[k], chunkBins[c][k]);
+        }
+
+        // choose the split with the lowest SAH cost over the bins of the three axes
+        double bestCost = Double.POSITIVE_INFINITY;
+        int bestAxis = -1;
+        int bestBin = -1;
+        for (int axis = 0; axis < 3; ++axis) {
+            double extent = cMax[axis] - cMin[axis];
+            if (extent <= 0) continue; // all the centers are on the same plane
+
+            int[] counts = new int[BINS];
+            BoundingBox[] binBoxes = new BoundingBox[BINS];
+            for (int b = 0; b < BINS; ++b) {
+                int k = axis * BINS + b;
+                counts[b] = binCounts[k];
+                if (counts[b] > 0)
+                    binBoxes[b] = new BoundingBox(bins[6 * k], bins[6 * k + 1], bins[6 * k + 2],
+                            bins[6 * k + 3], bins[6 * k + 4], bins[6 * k + 5]);
+            }
+
+            // sweep from the right to know the area and count of every right side
+            double[] rightArea = new double[BINS];
+            int[] rightCount = new int[BINS];
+            BoundingBox acc = null;
+            int accCount = 0;
+            for (int b = BINS - 1; b > 0; --b) {
+                if (binBoxes[b] != null)
+                    acc = acc == null ? binBoxes[b] : acc.union(binBoxes[b]);
+                accCount += counts[b];
+                rightArea[b] = acc == null ? 0 : acc.surfaceArea();
+                rightCount[b] = accCount;
+            }
+
+            // sweep from the left, a split at bin b puts bins [0, b) at the left
+            acc = null;
+            accCount = 0;
+            for (int b = 1; b < BINS; ++b) {
+                if (binBoxes[b - 1] != null)
+                    acc = acc == null ? binBoxes[b - 1] : acc.union(binBoxes[b - 1]);
+                accCount += counts[b - 1];
+                if (accCount == 0 || rightCount[b] == 0) continue;
+                double cost = acc.surfaceArea() * accCount + rightArea[b] * rightCount[b];
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestAxis = axis;
+                    bestBin = b;
+                }
+            }
+        }
+
+        int mid;
+        if (bestAxis < 0) {
+            // all the centers are at the same point - no spatial split exists
+            if (count <= MAX_LEAF_SIZE)
+                return leaf(node, _start, _end);
+            mid = (_start + _end) / 2;
+        } else {
+            double area = box.surfaceArea();
+            double splitCost = TRAVERSAL_COST + (area > 0 ? bestCost / area : count);
+            if (count <= MAX_LEAF_SIZE && splitCost >= count)
+                return leaf(node, _start, _end);
+            mid = partition(_start, _end, bestAxis, bestBin, cMin[bestAxis], cMax[bestAxis] - cMin[bestAxis]);
+        }
+
+        node.axis = bestAxis < 0 ? 0 : bestAxis;
+        int split = mid;
+        if (count < parallelSize) {
+            node.left = build(_start, split, _depth + 1);
+            node.right = build(split, _end, _depth + 1);
+        } else {
+            ForkJoinTask<Node> left = ForkJoinTask.adapt(() -> build(_start, split, _depth + 1));
+            ForkJoinTask<Node> right = ForkJoinTask.adapt(() -> build(split, _end, _depth + 1));
+            ForkJoinTask.invokeAll(left, right);
+            node.left = left.join();
+            node.right = right.join();
+        }
+        return node;
+    }
+
+    /**
+     * the bounds of the boxes and of their centers in a range of the arrays
+     *
+     * @param _start first index of the range
+     * @param _end   index after the last of the range
+     * @return the lower then upper corner of the union of the boxes,
+     * followed by the lower then upper corner of the box of the centers
+     */
+    private double[] bounds(int _start, int _end) {
+        double[] bounds = new double[12];
+        for (int k = 0; k < 12; ++k)
+            bounds[k] = k % 6 < 3 ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+        for (int i = _start; i < _end; ++i) {
+            BoundingBox b = boxes[i];
+            for (int axis = 0; axis < 3; ++axis) {
+                bounds[axis] = Math.min(bounds[axis], b.min(axis));
+                bounds[3 + axis] = Math.max(bounds[3 + axis], b.max(axis));
+                bounds[6 + axis] = Math.min(bounds[6 + axis], b.center(axis));
+                bounds[9 + axis] = Math.max(bounds[9 + axis], b.center(axis));
+            }
+        }
+        return bounds;
+    }
+
+    /**
+     * bins the geometries of a range on the three axes
+     *
+     * @param _start  first index of the range
+     * @param _end    index after the last of the range
+     * @param _cMin   the lower center coordinates of the node
+     * @param _cMax   the upper center coordinates of the node
+     * @param _counts receives the number of geometries of bin b of each axis at [axis * BINS + b]
+     * @return the box of bin b of each axis at [6 * (axis * BINS + b), 6 * (axis * BINS + b) + 6)
+     */
+    private double[] bins(int _start, int _end, double[] _cMin, double[] _cMax, int[] _counts) {
+        double[] bins = new double[18 * BINS];
+        for (int k = 0; k < 18 * BINS; ++k)
+            bins[k] = k % 6 < 3 ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+        for (int axis = 0; axis < 3; ++axis) {
+            double extent = _cMax[axis] - _cMin[axis];
+            if (extent <= 0) continue;
+            for (int i = _start; i < _end; ++i) {
+                BoundingBox b = boxes[i];
+                int k = axis * BINS + bin(b.center(axis), _cMin[axis], extent);
+                _counts[k]++;
+                bins[6 * k] = Math.min(bins[6 * k], b.minX);
+                bins[6 * k + 1] = Math.min(bins[6 * k + 1], b.minY);
+                bins[6 * k + 2] = Math.min(bins[6 * k + 2], b.minZ);
+                bins[6 * k + 3] = Math.max(bins[6 * k + 3], b.maxX);
+                bins[6 * k + 4] = Math.max(bins[6 * k + 4], b.maxY);
+                bins[6 * k + 5] = Math.max(bins[6 * k + 5], b.maxZ);
+            }
+        }
+        return bins;
+    }
+
+    /**
+     * the bin of a center coordinate
+     *
+     * @param _center the center coordinate
+     * @param _min    the lower center coordinate of the node
+     * @param _extent the extent of the centers of the node
+     * @return the bin index
+     */
+    private static int bin(double _center, double _min, double _extent) {
+        int bin = (int) (BINS * (_center - _min) / _extent);
+        return bin < BINS ? bin : BINS - 1;
+    }
+
+    /**
+     * reorders the range so that the geometries that fall in the bins before the split come first,
+     * keeping their order on each side. Each chunk of the range counts its geometries of the left side,
+     * then writes them after those of the chunks before it - and its other geometries likewise on the right side
+     *
+     * @param _start  first index of the range
+     * @param _end    index after the last of the range
+     * @param _axis   the split axis
+     * @param _split  the first bin of the right side
+     * @param _min    the lower center coordinate of the node
+     * @param _extent the extent of the centers of the node
+     * @return the index of the first geometry of the right side
+     */
+    private int partition(int _start, int _end, int _axis, int _split, double _min, double _extent) {
+        int chunks = chunks(_end - _start);
+        int[] lefts = new int[chunks];
+        inChunks(_start, _end, (chunk, start, end) -> {
+            for (int i = start; i < end; ++i)
+                if (bin(boxes[i].center(_axis), _min, _extent) < _split)
+                    lefts[chunk]++;
+        });
+
+        int[] leftAt = new int[chunks];
+        int[] rightAt = new int[chunks];
+        int mid = _start;
+        for (int c = 0; c < chunks; ++c) {
+            leftAt[c] = mid;
+            mid += lefts[c];
+        }
+        int right = mid;
+        for (int c = 0; c < chunks; ++c) {
+            rightAt[c] = right;
+            right += Math.min(_end - _start - c * parallelSize, parallelSize) - lefts[c];
+        }
+
+        inChunks(_start, _end, (chunk, start, end) -> {
+            int l = leftAt[chunk];
+            int r = rightAt[chunk];
+            for (int i = start; i < end; ++i) {
+                int to = bin(boxes[i].center(_axis), _min, _extent) < _split ? l++ : r++;
+                spareOrder[to] = order[i];
+                spareBoxes[to] = boxes[i];
+            }
+        });
+        inChunks(_start, _end, (chunk, start, end) -> {
+            System.arraycopy(spareOrder, start, order, start, end - start);
+            System.arraycopy(spareBoxes, start, boxes, start, end - start);
+        });
+        return mid;
+    }
+
+    /**
+     * turns a node into a leaf of the geometries in range [start, end)
+     *
+     * @param _node  the node
+     * @param _start first index of the range
+     * @param _end   index after the last of the range
+     * @return the leaf
+     */
+    private Node leaf(Node _node, int _start, int _end) {
+        _node.start = _start;
+        _node.count = _end - _start;
+        return _node;
+    }
+
+    /**
+     * the primitives of a set of geometries
+     *
+     * @param _items the geometries, all of them must have a bounding box
+     * @return the geometries as primitives
+     */
+    static Primitives of(Intersectable[] _items) {
+        return new Primitives() {
+            @Override
+            public int size() {
+                return _items.length;
+            }
+
+            @Override
+            public BoundingBox getBoundingBox(int _i) {
+                return _items[_i].getBoundingBox();
+            }
+
+            @Override
+            public boolean forEachGeoIntersection(int _i, Ray _ray, double _maxDistance, Predicate<GeoPoint> _visitor) {
+                return _items[_i].forEachGeoIntersection(_ray, _maxDistance, _visitor);
+            }
+
+            @Override
+            public GeoPoint findClosestIntersection(int _i, Ray _ray, double _maxDistance) {
+                return _items[_i].findClosestIntersectionHelper(_ray, _maxDistance);
+            }
+
+            @Override
+            public void findClosestIntersections(int _i, RayPacket _packet) {
+                _items[_i].findClosestIntersectionsHelper(_packet);
+            }
+        };
+    }
+
+    /**
+     * the number of nodes of a subtree
+     *
+     * @param _node the root of the subtree
+     * @return the number of nodes
+     */
+    private static int count(Node _node) {
+        return _node == null ? 0 : _node.count > 0 ? 1 : 1 + count(_node.left) + count(_node.right);
+    }
+
+    /**
+     * writes a subtree into the arrays in depth-first order
+     *
+     * @param _node   the root of the subtree
+     * @param _index  the index of the root in the arrays
+     * @param _parent the index of the parent of the root, -1 for the root of the hierarchy
+     * @return the index after the last node of the subtree
+     */
+    private int flatten(Node _node, int _index, int _parent) {
+        pack(_node.box, nodeBounds, _index);
+        parent[_index] = _parent;
+        if (_node.count > 0) {
+            nodeData[2 * _index] = _node.start;
+            nodeData[2 * _index + 1] = _node.count;
+            for (int i = _node.start; i < _node.start + _node.count; ++i)
+                leaf[i] = _index;
+            return _index + 1;
+        }
+        int second = flatten(_node.left, _index + 1, _index);
+        nodeData[2 * _index] = second;
+        nodeData[2 * _index + 1] = -1 - _node.axis;
+        return flatten(_node.right, second, _index);
+    }
+
+    /**
+     * writes a box into an array of boxes
+     *
+     * @param _box    the box
+     * @param _bounds the array of boxes
+     * @param _index  the index of the box in the array
+     */
+    private static void pack(BoundingBox _box, double[] _bounds, int _index) {
+        int k = 6 * _index;
+        _bounds[k] = _box.minX;
+        _bounds[k + 1] = _box.minY;
+        _bounds[k + 2] = _box.minZ;
+        _bounds[k + 3] = _box.maxX;
+        _bounds[k + 4] = _box.maxY;
+        _bounds[k + 5] = _box.maxZ;
+    }
+
+    /**
+     * the surface area of the box of a node
+     *
+     * @param _node the node
+     * @return the surface area
+     */
+    private double area(int _node) {
+        int k = 6 * _node;
+        double dx = nodeBounds[k + 3] - nodeBounds[k];
+        double dy = nodeBounds[k + 4] - nodeBounds[k + 1];
+        double dz = nodeBounds[k + 5] - nodeBounds[k + 2];
+        return 2 * (dx * dy + dy * dz + dz * dx);
+    }
+
+    /**
+     * the cost of a ray entering a node, relatively to the cost of intersecting one primitive
+     *
+     * @param _node the node
+     * @return the cost of the node
+     */
+    private double weight(int _node) {
+        int data = nodeData[2 * _node + 1];
+        return data < 0 ? TRAVERSAL_COST : data;
+    }
+
+    /**
+     * getting the number of nodes
+     *
+     * @return the number of nodes of the hierarchy
+     */
+    int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * getting the build time
+     *
+     * @return the wall time of the build in nanoseconds
+     */
+    long getBuildTime() {
+        return buildTime;
+    }
+
+    /**
+     * the same hierarchy over its primitives stored in the order of its leaves, so that the primitives of a leaf
+     * and of the leaves next to it are next to each other in memory - primitive i of the given primitives
+     * must be primitive {@code order[i]} of this hierarchy. This hierarchy must not be used anymore.
+     *
+     * @param _primitives the primitives in the order of the leaves
+     * @return the hierarchy over them, whose order is the identity
+     */
+    BVH inLeafOrder(Primitives _primitives) {
+        int[] identity = new int[order.length];
+        for (int i = 0; i < identity.length; ++i)
+            identity[i] = i;
+        return new BVH(_primitives, identity, nodeBounds, nodeData, itemBounds);
+    }
+
+    /**
+     * the SAH cost of the hierarchy - the expected cost of a ray that enters the root
+     *
+     * @return the cost, 0 for an empty hierarchy
+     */
+    double cost() {
+        return nodeCount == 0 || area(0) <= 0 ? 0 : weightedArea / area(0);
+    }
+
+    /**
+     * updates the hierarchy after some primitives have moved, without changing its structure:
+     * the boxes of the moved primitives are taken again, and the boxes of their ancestors are recomputed
+     * bottom-up as long as they change. A refit is much cheaper than a build, but the boxes of a refitted
+     * hierarchy may overlap more and more as the primitives move away from where they were when it was built.
+     * <p>
+     * It must not be called while rays are traced through the hierarchy.
+     *
+     * @param _primitives the indexes of the primitives that have moved
+     * @return false when the hierarchy has degraded past {@link #REBUILD_THRESHOLD} - or a primitive
+     * has lost its bounding box - and should be rebuilt, true otherwise
+     */
+    boolean refit(int[] _primitives) {
+        for (int i : _primitives) {
+            BoundingBox box = primitives.getBoundingBox(i);
+            if (box == null) return false;
+            pack(box, itemBounds, position[i]);
+        }
+        for (int i : _primitives) {
+            // a node whose box hasn't changed leaves its ancestors unchanged
+            int node = leaf[position[i]];
+            while (node >= 0 && fit(node))
+                node = parent[node];
+        }
+        resetBoundingBox();
+        return cost() <= REBUILD_THRESHOLD * builtCost;
+    }
+
+    /**
+     * recomputes the box of a node from the boxes of its children or of its primitives
+     *
+     * @param _node the node
+     * @return true if the box has changed
+     */
+    private boolean fit(int _node) {
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+        int data = nodeData[2 * _node + 1];
+        // an inner node covers its two children, a leaf covers its range of primitives
+        double[] bounds = data < 0 ? nodeBounds : itemBounds;
+        int first = data < 0 ? _node + 1 : nodeData[2 * _node];
+        int count = data < 0 ? 2 : data;
+        for (int c = 0; c < count; ++c) {
+            int k = 6 * (data < 0 && c == 1 ? nodeData[2 * _node] : first + c);
+            minX = Math.min(minX, bounds[k]);
+            minY = Math.min(minY, bounds[k + 1]);
+            minZ = Math.min(minZ, bounds[k + 2]);
+            maxX = Math.max(maxX, bounds[k + 3]);
+            maxY = Math.max(maxY, bounds[k + 4]);
+            maxZ = Math.max(maxZ, bounds[k + 5]);
+        }
+        int k = 6 * _node;
+        if (minX == nodeBounds[k] && minY == nodeBounds[k + 1] && minZ == nodeBounds[k + 2]
+                && maxX == nodeBounds[k + 3] && maxY == nodeBounds[k + 4] && maxZ == nodeBounds[k + 5])
+            return false;
+        double before = area(_node);
+        pack(new BoundingBox(minX, minY, minZ, maxX, maxY, maxZ), nodeBounds, _node);
+        weightedArea += (area(_node) - before) * weight(_node);
+        return true;
+    }
+
+    @Override
+    protected BoundingBox calcBoundingBox() {
+        return nodeCount == 0 ? null
+                : new BoundingBox(nodeBounds[0], nodeBounds[1], nodeBounds[2], nodeBounds[3], nodeBounds[4], nodeBounds[5]);
+    }
+
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray _ray, double _maxDistance) {
+        List<GeoPoint> result = new LinkedList<>();
+        traverse(_ray, _maxDistance, result::add);
+        return result.isEmpty() ? null : result;
+    }
+
+    @Override
+    protected boolean forEachGeoIntersection(Ray _ray, double _maxDistance, Predicate<GeoPoint> _visitor) {
+        boolean[] going = {true};
+        traverse(_ray, _maxDistance, gp -> going[0] = _visitor.test(gp));
+        return going[0];
+    }
+
+    @Override
+    protected GeoPoint findClosestIntersectionHelper(Ray _ray, double _maxDistance) {
+        return traverse(_ray, _maxDistance, null);
+    }
+
+    @Override
+    protected void findClosestIntersectionsHelper(RayPacket _packet) {
+        if (nodeCount == 0) return;
+
+        int[] todo = stack.get();
+        int top = 0;
+        int node = 0;
+        while (true) {
+            if (_packet.entersAny(nodeBounds, 6 * node)) {
+                int data = nodeData[2 * node + 1];
+                if (data < 0) {
+                    // the rays are coherent - the first one tells which child is nearer
+                    int axis = -1 - data;
+                    double dir = axis == 0 ? _packet.invX[0] : axis == 1 ? _packet.invY[0] : _packet.invZ[0];
+                    if (dir < 0) {
+                        todo[top++] = node + 1;
+                        node = nodeData[2 * node];
+                    } else {
+                        todo[top++] = nodeData[2 * node];
+                        ++node;
+                    }
+                    continue;
+                }
+
+                int start = nodeData[2 * node];
+                for (int i = start; i < start + data; ++i)
+                    if (data == 1 || _packet.entersAny(itemBounds, 6 * i))
+                        primitives.findClosestIntersections(order[i], _packet);
+            }
+            if (top == 0) return;
+            node = todo[--top];
+        }
+    }
+
+    /**
+     * visits the nodes whose boxes the ray enters, the child on the side the ray comes from first
+     *
+     * @param _ray         the ray
+     * @param _maxDistance the maximum distance between a hit and the start of the ray
+     * @param _visitor     the action on each hit, returning false to stop the traversal,
+     *                     or null to look for the closest hit only -
+     *                     then the maximum distance shrinks to the closest hit found so far,
+     *                     so the boxes behind it are skipped
+     * @return the closest hit when looking for it, null otherwise
+     */
+    private GeoPoint traverse(Ray _ray, double _maxDistance, Predicate<GeoPoint> _visitor) {
+        if (nodeCount == 0) return null;
+
+        Point p0 = _ray.getPoint();
+        Vector v = _ray.getDir();
+        double ox = p0.getX(), oy = p0.getY(), oz = p0.getZ();
+        double invX = 1 / v.getX(), invY = 1 / v.getY(), invZ = 1 / v.getZ();
+
+        GeoPoint closest = null;
+        double closestDistance = _maxDistance;
+        int[] todo = stack.get();
+        int top = 0;
+        int node = 0;
+        while (true) {
+            if (BoundingBox.entry(nodeBounds, 6 * node, ox, oy, oz, invX, invY, invZ, closestDistance) != BoundingBox.MISS) {
+                int data = nodeData[2 * node + 1];
+                if (data < 0) {
+                    // visit first the child on the side the ray comes from
+                    int axis = -1 - data;
+                    double dir = axis == 0 ? invX : axis == 1 ? invY : invZ;
+                    if (dir < 0) {
+                        todo[top++] = node + 1;
+                        node = nodeData[2 * node];
+                    } else {
+                        todo[top++] = nodeData[2 * node];
+                        ++node;
+                    }
+                    continue;
+                }
+
+                int start = nodeData[2 * node];
+                for (int i = start; i < start + data; ++i) {
+                    // a leaf shared by several geometries tests each box first - a nested group may be rejected whole
+                    if (data > 1 && BoundingBox.entry(itemBounds, 6 * i, ox, oy, oz, invX, invY, invZ, closestDistance)
+                            == BoundingBox.MISS)
+                        continue;
+                    if (_visitor != null) {
+                        if (!primitives.forEachGeoIntersection(order[i], _ray, _maxDistance, _visitor)) return null;
+                    } else {
+                        GeoPoint gp = primitives.findClosestIntersection(order[i], _ray, closestDistance);
+                        if (gp != null) {
+                            closest = gp;
+                            closestDistance = gp.point.distance(p0);
+                        }
+                    }
+                }
+            }
+            if (top == 0) return closest;
+            node = todo[--top];
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package geometries;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Cache of built bounding volume hierarchies in a directory, so that a scene rendered again
+ * doesn't build its hierarchies again.
+ * <p>
+ * A hierarchy depends only on the boxes of its primitives, so it is stored under a hash of these boxes -
+ * the content of the scene as far as the hierarchy knows it. The file holds the flattened arrays of the
+ * hierarchy in little-endian order after a header:
+ * <pre>
+ * int magic, int version, long hash, int primitive count, int node count,
+ * double[6 * nodes] node boxes, double[6 * primitives] primitive boxes,
+ * int[primitives] order, int[2 * nodes] node data
+ * </pre>
+ * The file is read through a memory mapping of it. A file that is missing, of another version,
+ * of another hash or damaged is ignored - the hierarchy is built and the file written again.
+ *
+ * @author Yona and Aaron Mimoun
+ */
+class BVHCache {
+    /**
+     * the first bytes of a cache file - "BVHC"
+     */
+    private static final int MAGIC = 0x42564843;
+    /**
+     * the version of the file format and of the build - to change with any of them
+     */
+    static final int VERSION = 1;
+    /**
+     * the size of the header in bytes
+     */
+    private static final int HEADER = 24;
+
+    private static final Logger LOGGER = Logger.getLogger("BVHCache");
+
+    /**
+     * the cache directory
+     */
+    private final Path directory;
+
+    /**
+     * constructor for a cache in a directory
+     *
+     * @param _directory the directory of the cache files, created when the first file is written
+     */
+    BVHCache(Path _directory) {
+        directory = _directory;
+    }
+
+    /**
+     * getting the hierarchy over some primitives from the cache, or building it and storing it
+     *
+     * @param _primitives the primitives
+     * @return the hierarchy over the primitives
+     */
+    BVH get(BVH.Primitives _primitives) {
+        long hash = hash(_primitives);
+        Path file = directory.resolve(String.format("%016x.bvh", hash));
+        BVH bvh = read(file, _primitives, hash);
+        if (bvh != null) return bvh;
+
+        bvh = new BVH(_primitives);
+        write(file, bvh, hash);
+        return bvh;
+    }
+
+    /**
+     * the hash of the boxes of the primitives - FNV-1a over the bits of their coordinates
+     *
+     * @param _primitives the primitives
+     * @return the hash
+     */
+    static long hash(BVH.Primitives _primitives) {
+        long hash = 0xcbf29ce484222325L;
+        int n = _primitives.size();
+        hash = (hash ^ n) * 0x100000001b3L;
+        for (int i = 0; i < n; ++i) {
+            BoundingBox box = _primitives.getBoundingBox(i);
+            for (int axis = 0; axis < 3; ++axis) {
+                hash = (hash ^ Double.doubleToLongBits(box.min(axis))) * 0x100000001b3L;
+                hash = (hash ^ Double.doubleToLongBits(box.max(axis))) * 0x100000001b3L;
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * reads a hierarchy from a cache file
+     *
+     * @param _file       the file
+     * @param _primitives the primitives of the hierarchy
+     * @param _hash       the hash of the primitives
+     * @return the hierarchy, or null if the file is missing or doesn't hold the hierarchy of the primitives
+     */
+    private static BVH read(Path _file, BVH.Primitives _primitives, long _hash) {
+        if (!Files.isRegularFile(_file)) return null;
+        try (FileChannel channel = FileChannel.open(_file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER) return null;
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION || buffer.getLong() != _hash) return null;
+            int n = buffer.getInt();
+            int nodes = buffer.getInt();
+            if (n != _primitives.size() || nodes < 0 || size != HEADER + 56L * nodes + 52L * n) return null;
+
+            double[] nodeBounds = new double[6 * nodes];
+            double[] itemBounds = new double[6 * n];
+            int[] order = new int[n];
+            int[] nodeData = new int[2 * nodes];
+            buffer.asDoubleBuffer().get(nodeBounds).get(itemBounds);
+            buffer.position(HEADER + 48 * nodes + 48 * n);
+            buffer.asIntBuffer().get(order).get(nodeData);
+            return new BVH(_primitives, order, nodeBounds, nodeData, itemBounds);
+        } catch (IOException | IllegalArgumentException e) {
+            LOGGER.log(Level.WARNING, "Ignoring the damaged cache file " + _file, e);
+            return null;
+        }
+    }
+
+    /**
+     * writes a hierarchy to a cache file - through a temporary file moved in place at the end,
+     * so that another render never reads a file half written. A failure is logged and ignored.
+     *
+     * @param _file the file
+     * @param _bvh  the hierarchy
+     * @param _hash the hash of its primitives
+     */
+    private static void write(Path _file, BVH _bvh, long _hash) {
+        int n = _bvh.order.length;
+        int nodes = _bvh.nodeData.length / 2;
+        Path temporary = null;
+        try {
+            Files.createDirectories(_file.getParent());
+            temporary = Files.createTempFile(_file.getParent(), "bvh", ".tmp");
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER + 56L * nodes + 52L * n);
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+                buffer.putInt(MAGIC).putInt(VERSION).putLong(_hash).putInt(n).putInt(nodes);
+                buffer.asDoubleBuffer().put(_bvh.nodeBounds).put(_bvh.itemBounds);
+                buffer.position(HEADER + 48 * nodes + 48 * n);
+                buffer.asIntBuffer().put(_bvh.order).put(_bvh.nodeData);
+            }
+            Files.move(temporary, _file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Can't write the cache file " + _file, e);
+            if (temporary != null) {
+                try {
+                    Files.deleteIfExists(temporary);
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+}
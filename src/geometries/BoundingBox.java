@@ -0,0 +1,325 @@
+package geometries;
+
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+/**
+ * Axis-aligned bounding box (AABB) enclosing a bounded graphic object,
+ * used by the acceleration structures to reject a whole group of geometries with one cheap test
+ *
+ * @author Yona and Aaron Mimoun
+ */
+public class BoundingBox {
+    /**
+     * margin added around boxes built from points so that flat geometries (polygons lying in an axis plane)
+     * keep a non-degenerate volume and no hit on a box face is lost to rounding
+     */
+    private static final double MARGIN = 1e-6;
+
+    /**
+     * entry distance returned by the slab test when the ray misses the box
+     */
+    static final double MISS = Double.POSITIVE_INFINITY;
+
+    /**
+     * lower corner coordinates
+     */
+    final double minX, minY, minZ;
+    /**
+     * upper corner coordinates
+     */
+    final double maxX, maxY, maxZ;
+
+    /**
+     * constructor for a bounding box by the coordinates of its two opposite corners
+     *
+     * @param _minX lower x coordinate
+     * @param _minY lower y coordinate
+     * @param _minZ lower z coordinate
+     * @param _maxX upper x coordinate
+     * @param _maxY upper y coordinate
+     * @param _maxZ upper z coordinate
+     */
+    public BoundingBox(double _minX, double _minY, double _minZ, double _maxX, double _maxY, double _maxZ) {
+        minX = _minX;
+        minY = _minY;
+        minZ = _minZ;
+        maxX = _maxX;
+        maxY = _maxY;
+        maxZ = _maxZ;
+    }
+
+    /**
+     * factory for the smallest bounding box that contains all the given points
+     *
+     * @param _points the points to enclose
+     * @return the bounding box of the points
+     */
+    public static BoundingBox of(Iterable<Point> _points) {
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+        for (Point p : _points) {
+            minX = Math.min(minX, p.getX());
+            minY = Math.min(minY, p.getY());
+            minZ = Math.min(minZ, p.getZ());
+            maxX = Math.max(maxX, p.getX());
+            maxY = Math.max(maxY, p.getY());
+            maxZ = Math.max(maxZ, p.getZ());
+        }
+        return new BoundingBox(minX - MARGIN, minY - MARGIN, minZ - MARGIN,
+                maxX + MARGIN, maxY + MARGIN, maxZ + MARGIN);
+    }
+
+    /**
+     * the smallest box that contains both this box and another one
+     *
+     * @param _other the other box
+     * @return the union box
+     */
+    public BoundingBox union(BoundingBox _other) {
+        return new BoundingBox(Math.min(minX, _other.minX), Math.min(minY, _other.minY), Math.min(minZ, _other.minZ),
+                Math.max(maxX, _other.maxX), Math.max(maxY, _other.maxY), Math.max(maxZ, _other.maxZ));
+    }
+
+    /**
+     * getting the lower corner
+     *
+     * @return the lower corner of the box
+     */
+    public Point getMin() {
+        return new Point(minX, minY, minZ);
+    }
+
+    /**
+     * getting the upper corner
+     *
+     * @return the upper corner of the box
+     */
+    public Point getMax() {
+        return new Point(maxX, maxY, maxZ);
+    }
+
+    /**
+     * the lower coordinate of the box on an axis
+     *
+     * @param _axis 0 for x, 1 for y, 2 for z
+     * @return the lower coordinate
+     */
+    double min(int _axis) {
+        return _axis == 0 ? minX : _axis == 1 ? minY : minZ;
+    }
+
+    /**
+     * the upper coordinate of the box on an axis
+     *
+     * @param _axis 0 for x, 1 for y, 2 for z
+     * @return the upper coordinate
+     */
+    double max(int _axis) {
+        return _axis == 0 ? maxX : _axis == 1 ? maxY : maxZ;
+    }
+
+    /**
+     * the coordinate of the center of the box on an axis
+     *
+     * @param _axis 0 for x, 1 for y, 2 for z
+     * @return the center coordinate
+     */
+    double center(int _axis) {
+        return (min(_axis) + max(_axis)) / 2;
+    }
+
+    /**
+     * the Morton code of the center of the box in a larger box: the larger box is cut in 2^21 cells on each axis
+     * and the bits of the cell of the center on the three axes are interleaved, so that boxes close
+     * in space mostly get close codes - sorting boxes by their codes orders them along a Z-order curve
+     *
+     * @param _bounds the larger box, like the bounds of a scene
+     * @return the 63 bits Morton code
+     */
+    long mortonCode(BoundingBox _bounds) {
+        return _bounds.mortonCode(center(0), center(1), center(2));
+    }
+
+    /**
+     * the Morton code of a point in the box - like the origin of a ray among the origins of a batch of rays
+     *
+     * @param _p the point, a point out of the box gets the code of the closest cell
+     * @return the 63 bits Morton code
+     */
+    public long mortonCodeOf(Point _p) {
+        return mortonCode(_p.getX(), _p.getY(), _p.getZ());
+    }
+
+    /**
+     * the Morton code of a point in the box
+     *
+     * @param _x the x coordinate of the point
+     * @param _y the y coordinate of the point
+     * @param _z the z coordinate of the point
+     * @return the 63 bits Morton code
+     */
+    private long mortonCode(double _x, double _y, double _z) {
+        return spread(cell(_x, minX, maxX)) | spread(cell(_y, minY, maxY)) << 1 | spread(cell(_z, minZ, maxZ)) << 2;
+    }
+
+    /**
+     * the cell of a coordinate, when the range of an axis is cut in 2^21 cells
+     *
+     * @param _coordinate the coordinate
+     * @param _min        the start of the range
+     * @param _max        the end of the range
+     * @return the cell, between 0 and 2^21 - 1
+     */
+    private static long cell(double _coordinate, double _min, double _max) {
+        double extent = _max - _min;
+        double cell = extent > 0 ? (_coordinate - _min) / extent * (1 << 21) : 0;
+        return (long) Math.min(Math.max(cell, 0), (1 << 21) - 1);
+    }
+
+    /**
+     * spreads the 21 lower bits of a number to every third bit
+     *
+     * @param _bits the bits
+     * @return the spread bits
+     */
+    private static long spread(long _bits) {
+        long x = _bits & 0x1fffffL;
+        x = (x | x << 32) & 0x1f00000000ffffL;
+        x = (x | x << 16) & 0x1f0000ff0000ffL;
+        x = (x | x << 8) & 0x100f00f00f00f00fL;
+        x = (x | x << 4) & 0x10c30c30c30c30c3L;
+        x = (x | x << 2) & 0x1249249249249249L;
+        return x;
+    }
+
+    /**
+     * the surface area of the box, used as the probability of a ray hitting it by the surface area heuristic
+     *
+     * @return the surface area
+     */
+    public double surfaceArea() {
+        double dx = maxX - minX;
+        double dy = maxY - minY;
+        double dz = maxZ - minZ;
+        return 2 * (dx * dy + dy * dz + dz * dx);
+    }
+
+    /**
+     * slab test of a ray against the box
+     *
+     * @param _ray         the ray
+     * @param _maxDistance the maximum distance between a hit and the start of the ray
+     * @return true if the ray enters the box before the maximum distance
+     */
+    public boolean intersects(Ray _ray, double _maxDistance) {
+        Point p0 = _ray.getPoint();
+        Vector v = _ray.getDir();
+        return entry(p0.getX(), p0.getY(), p0.getZ(),
+                1 / v.getX(), 1 / v.getY(), 1 / v.getZ(), _maxDistance) != MISS;
+    }
+
+    /**
+     * slab test of a ray against the box using the ray's precomputed inverse direction,
+     * so that a traversal pays the three divisions once per ray and not once per box
+     *
+     * @param _ox          ray origin x
+     * @param _oy          ray origin y
+     * @param _oz          ray origin z
+     * @param _invX        1 / ray direction x
+     * @param _invY        1 / ray direction y
+     * @param _invZ        1 / ray direction z
+     * @param _maxDistance the maximum distance between a hit and the start of the ray
+     * @return the distance where the ray enters the box (0 if it starts inside), or {@link #MISS}
+     */
+    double entry(double _ox, double _oy, double _oz, double _invX, double _invY, double _invZ, double _maxDistance) {
+        return entry(minX, minY, minZ, maxX, maxY, maxZ, _ox, _oy, _oz, _invX, _invY, _invZ, _maxDistance);
+    }
+
+    /**
+     * slab test of a ray against a box packed in an array as
+     * (minX, minY, minZ, maxX, maxY, maxZ), as the flattened acceleration structures keep their boxes
+     *
+     * @param _bounds      the array of boxes
+     * @param _offset      the index of the minX of the box in the array
+     * @param _ox          ray origin x
+     * @param _oy          ray origin y
+     * @param _oz          ray origin z
+     * @param _invX        1 / ray direction x
+     * @param _invY        1 / ray direction y
+     * @param _invZ        1 / ray direction z
+     * @param _maxDistance the maximum distance between a hit and the start of the ray
+     * @return the distance where the ray enters the box (0 if it starts inside), or {@link #MISS}
+     */
+    static double entry(double[] _bounds, int _offset, double _ox, double _oy, double _oz,
+                        double _invX, double _invY, double _invZ, double _maxDistance) {
+        return entry(_bounds[_offset], _bounds[_offset + 1], _bounds[_offset + 2],
+                _bounds[_offset + 3], _bounds[_offset + 4], _bounds[_offset + 5],
+                _ox, _oy, _oz, _invX, _invY, _invZ, _maxDistance);
+    }
+
+    /**
+     * the slab test itself
+     *
+     * @param _minX        lower x coordinate of the box
+     * @param _minY        lower y coordinate of the box
+     * @param _minZ        lower z coordinate of the box
+     * @param _maxX        upper x coordinate of the box
+     * @param _maxY        upper y coordinate of the box
+     * @param _maxZ        upper z coordinate of the box
+     * @param _ox          ray origin x
+     * @param _oy          ray origin y
+     * @param _oz          ray origin z
+     * @param _invX        1 / ray direction x
+     * @param _invY        1 / ray direction y
+     * @param _invZ        1 / ray direction z
+     * @param _maxDistance the maximum distance between a hit and the start of the ray
+     * @return the distance where the ray enters the box (0 if it starts inside), or {@link #MISS}
+     */
+    private static double entry(double _minX, double _minY, double _minZ, double _maxX, double _maxY, double _maxZ,
+                                double _ox, double _oy, double _oz, double _invX, double _invY, double _invZ,
+                                double _maxDistance) {
+        double tNear = 0;
+        double tFar = _maxDistance;
+
+        if (Double.isInfinite(_invX)) { // ray parallel to the x slabs
+            if (_ox < _minX || _ox > _maxX) return MISS;
+        } else {
+            double t1 = (_minX - _ox) * _invX;
+            double t2 = (_maxX - _ox) * _invX;
+            tNear = Math.max(tNear, Math.min(t1, t2));
+            tFar = Math.min(tFar, Math.max(t1, t2));
+            if (tNear > tFar) return MISS;
+        }
+
+        if (Double.isInfinite(_invY)) {
+            if (_oy < _minY || _oy > _maxY) return MISS;
+        } else {
+            double t1 = (_minY - _oy) * _invY;
+            double t2 = (_maxY - _oy) * _invY;
+            tNear = Math.max(tNear, Math.min(t1, t2));
+            tFar = Math.min(tFar, Math.max(t1, t2));
+            if (tNear > tFar) return MISS;
+        }
+
+        if (Double.isInfinite(_invZ)) {
+            if (_oz < _minZ || _oz > _maxZ) return MISS;
+        } else {
+            double t1 = (_minZ - _oz) * _invZ;
+            double t2 = (_maxZ - _oz) * _invZ;
+            tNear = Math.max(tNear, Math.min(t1, t2));
+            tFar = Math.min(tFar, Math.max(t1, t2));
+            if (tNear > tFar) return MISS;
+        }
+        return tNear;
+    }
+
+    @Override
+    public String toString() {
+        return "BoundingBox{" +
+                "min=" + getMin() +
+                ", max=" + getMax() +
+                '}';
+    }
+}
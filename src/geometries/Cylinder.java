@@ -5,6 +5,13 @@ import primitives.Ray;
 import primitives.Util;
 import primitives.Vector;
 
+import java.util.LinkedList;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static primitives.Util.alignZero;
+import static primitives.Util.isZero;
+
 /**
  * this class represent cylinder defined by like tube (ray and radius) and also with height
  *
@@ -13,6 +20,18 @@ import primitives.Vector;
 public class Cylinder extends Tube {
 
     final private double height;
+    /**
+     * coordinates of the center of the lower cap
+     */
+    private final double px, py, pz;
+    /**
+     * coordinates of the axis direction
+     */
+    private final double vx, vy, vz;
+    /**
+     * coordinates of the center of the cylinder and its radius squared - the bounding sphere
+     */
+    private final double mx, my, mz, boundSqr;
 
     /**
      * constructor for Cylinder by ray radius and height
@@ -24,6 +43,18 @@ public class Cylinder extends Tube {
     public Cylinder(Ray _axisRay, double _radius, double _height) {
         super(_axisRay, _radius);
         this.height = _height;
+        Point p0 = _axisRay.getPoint();
+        Vector v = _axisRay.getDir();
+        px = p0.getX();
+        py = p0.getY();
+        pz = p0.getZ();
+        vx = v.getX();
+        vy = v.getY();
+        vz = v.getZ();
+        mx = px + vx * _height / 2;
+        my = py + vy * _height / 2;
+        mz = pz + vz * _height / 2;
+        boundSqr = radius * radius + _height * _height / 4;
     }
 
     /**
@@ -62,6 +93,20 @@ public class Cylinder extends Tube {
         return super.getNormal(_point);
     }
 
+    @Override
+    protected BoundingBox calcBoundingBox() {
+        Point p0 = axisRay.getPoint();
+        Point p1 = axisRay.getPoint(height);
+        Vector v = axisRay.getDir();
+        // the cap disks reach on each axis the radius scaled by the sine of the angle between the axis and the cylinder
+        double ex = radius * Math.sqrt(Math.max(0, 1 - v.getX() * v.getX()));
+        double ey = radius * Math.sqrt(Math.max(0, 1 - v.getY() * v.getY()));
+        double ez = radius * Math.sqrt(Math.max(0, 1 - v.getZ() * v.getZ()));
+        return new BoundingBox(Math.min(p0.getX(), p1.getX()) - ex, Math.min(p0.getY(), p1.getY()) - ey,
+                Math.min(p0.getZ(), p1.getZ()) - ez, Math.max(p0.getX(), p1.getX()) + ex,
+                Math.max(p0.getY(), p1.getY()) + ey, Math.max(p0.getZ(), p1.getZ()) + ez);
+    }
+
     @Override
     public String toString() {
         return "Cylinder{" +
@@ -70,10 +115,121 @@ public class Cylinder extends Tube {
                 ", radius=" + radius +
                 '}';
     }
-    /*@Override
-    public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
-        return null;
-    }*/
 
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray _ray, double _maxDistance) {
+        List<GeoPoint> result = new LinkedList<>();
+        forEachGeoIntersection(_ray, _maxDistance, result::add);
+        return result.isEmpty() ? null : result;
+    }
 
+    @Override
+    protected boolean forEachGeoIntersection(Ray _ray, double _maxDistance, Predicate<GeoPoint> _visitor) {
+        double t1 = intersect(_ray, _maxDistance, 0);
+        if (Double.isNaN(t1)) return true;
+        if (!_visitor.test(new GeoPoint(this, _ray.getPoint(t1)))) return false;
+        double t2 = intersect(_ray, _maxDistance, t1);
+        return Double.isNaN(t2) || _visitor.test(new GeoPoint(this, _ray.getPoint(t2)));
+    }
+
+    @Override
+    protected GeoPoint findClosestIntersectionHelper(Ray _ray, double _maxDistance) {
+        double t = intersect(_ray, _maxDistance, 0);
+        return Double.isNaN(t) ? null : new GeoPoint(this, _ray.getPoint(t));
+    }
+
+    /**
+     * the first intersection of a ray with the cylinder after some distance, on raw coordinates.
+     * The ray is first tested against the bounding sphere of the cylinder, then against its side
+     * (between the caps) and its two cap disks. A ray through the rim of a cap doesn't intersect the cylinder.
+     *
+     * @param _ray         the ray
+     * @param _maxDistance the maximum distance between the point to the start of the ray
+     * @param _after       the distance the intersection must be after
+     * @return the distance of the intersection from the start of the ray, or {@link Double#NaN} if there is none
+     */
+    private double intersect(Ray _ray, double _maxDistance, double _after) {
+        Point p0 = _ray.getPoint();
+        Vector v = _ray.getDir();
+        double ox = p0.getX(), oy = p0.getY(), oz = p0.getZ();
+        double dx = v.getX(), dy = v.getY(), dz = v.getZ();
+
+        // bounding sphere rejection
+        double wx = ox - mx, wy = oy - my, wz = oz - mz;
+        double b = wx * dx + wy * dy + wz * dz;
+        double c = wx * wx + wy * wy + wz * wz - boundSqr;
+        if (c > 0 && (b > 0 || b * b < c || -b - Math.sqrt(b * b - c) > _maxDistance)) return Double.NaN;
+
+        // the ray relatively to the axis: its origin and direction along the axis and across it
+        double qx = ox - px, qy = oy - py, qz = oz - pz;
+        double qv = qx * vx + qy * vy + qz * vz;
+        double dv = dx * vx + dy * vy + dz * vz;
+        double ux = qx - qv * vx, uy = qy - qv * vy, uz = qz - qv * vz;
+        double ex = dx - dv * vx, ey = dy - dv * vy, ez = dz - dv * vz;
+
+        double closest = Double.NaN;
+        // the side: |u + t * e|^2 = r^2, between the caps
+        double a = ex * ex + ey * ey + ez * ez;
+        if (!isZero(a)) {
+            double halfB = ux * ex + uy * ey + uz * ez;
+            double discriminant = halfB * halfB - a * (ux * ux + uy * uy + uz * uz - radius * radius);
+            if (alignZero(discriminant) > 0) {
+                double root = Math.sqrt(discriminant);
+                closest = closer(closest, side((-halfB - root) / a, qv, dv), _maxDistance, _after);
+                closest = closer(closest, side((-halfB + root) / a, qv, dv), _maxDistance, _after);
+            }
+        }
+        // the caps: the ray crosses the plane of a cap inside its disk
+        if (!isZero(dv)) {
+            closest = closer(closest, cap(-qv / dv, ux, uy, uz, ex, ey, ez), _maxDistance, _after);
+            closest = closer(closest, cap((height - qv) / dv, ux, uy, uz, ex, ey, ez), _maxDistance, _after);
+        }
+        return closest;
+    }
+
+    /**
+     * checks that a hit of the infinite side is between the caps
+     *
+     * @param _t  the distance of the hit
+     * @param _qv the position of the ray origin along the axis
+     * @param _dv the cosine between the ray and the axis
+     * @return the distance, or {@link Double#NaN} when the hit is not between the caps
+     */
+    private double side(double _t, double _qv, double _dv) {
+        double s = _qv + _t * _dv;
+        return alignZero(s) > 0 && alignZero(s - height) < 0 ? _t : Double.NaN;
+    }
+
+    /**
+     * checks that a hit of the plane of a cap is inside its disk
+     *
+     * @param _t  the distance of the hit
+     * @param _ux the ray origin across the axis, x
+     * @param _uy the ray origin across the axis, y
+     * @param _uz the ray origin across the axis, z
+     * @param _ex the ray direction across the axis, x
+     * @param _ey the ray direction across the axis, y
+     * @param _ez the ray direction across the axis, z
+     * @return the distance, or {@link Double#NaN} when the hit is not inside the disk
+     */
+    private double cap(double _t, double _ux, double _uy, double _uz, double _ex, double _ey, double _ez) {
+        double x = _ux + _t * _ex, y = _uy + _t * _ey, z = _uz + _t * _ez;
+        return alignZero(x * x + y * y + z * z - radius * radius) < 0 ? _t : Double.NaN;
+    }
+
+    /**
+     * the closer of the closest hit so far and a new hit
+     *
+     * @param _closest     the closest hit so far, or {@link Double#NaN}
+     * @param _t           the new hit, or {@link Double#NaN}
+     * @param _maxDistance the maximum distance between the point to the start of the ray
+     * @param _after       the distance the hit must be after
+     * @return the closer hit in (after, maxDistance], or {@link Double#NaN}
+     */
+    private static double closer(double _closest, double _t, double _maxDistance, double _after) {
+        if (Double.isNaN(_t)) return _closest;
+        _t = alignZero(_t);
+        if (alignZero(_t - _after) <= 0 || alignZero(_t - _maxDistance) > 0) return _closest;
+        return Double.isNaN(_closest) || _t < _closest ? _t : _closest;
+    }
 }
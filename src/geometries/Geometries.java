@@ -2,16 +2,81 @@ package geometries;
 
 import primitives.Ray;
 
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
 
 /**
  * this class represent a set of geometries on the principe of composite
+ * <p>
+ * The bounded geometries of the set are organized in a spatial index - by default a bounding volume
+ * hierarchy ({@link BVH}) - built lazily on the first intersection after the set has been changed.
+ * The unbounded geometries (like planes and tubes) can't be put in the index and are tested against every ray.
+ * <p>
+ * A scene is indexed on two levels: a mesh or a nested set is one geometry of the set, with an index of its own
+ * built once, so the index of the set spans only the objects of the scene. Moving an object ({@link #refit}),
+ * swapping it for another one ({@link #replace}) or removing it ({@link #remove}) changes only the index of the
+ * set - the one of the object is kept, and a swapped object may be swapped back for free.
  *
  * @author Yona and Aaron
  */
 public class Geometries extends Intersectable {
-    private final List<Intersectable> geometries = new LinkedList<>();
+    /**
+     * the spatial indexes that can organize the bounded geometries of a set
+     */
+    public enum Acceleration {
+        /**
+         * bounding volume hierarchy - the default, fits any scene
+         */
+        BVH,
+        /**
+         * uniform grid traversed with 3D-DDA - fits many geometries of similar size
+         */
+        GRID,
+        /**
+         * k-d tree traversed front to back - fits static scenes made mostly of triangles
+         */
+        KD_TREE,
+        /**
+         * bounding volume hierarchy with its boxes quantized to 16 bits - about 3 times less memory
+         */
+        QUANTIZED_BVH_16,
+        /**
+         * bounding volume hierarchy with its boxes quantized to 8 bits - about 5 times less memory,
+         * for the largest scenes
+         */
+        QUANTIZED_BVH_8
+    }
+
+    private final List<Intersectable> geometries = new ArrayList<>();
+
+    private Acceleration acceleration = Acceleration.BVH;
+
+    /**
+     * the cache of the bounding volume hierarchy, null for none
+     */
+    private BVHCache cache = null;
+
+    /**
+     * the geometries without bounding box, set together with the index
+     */
+    private volatile List<Intersectable> unbounded = null;
+
+    /**
+     * the index over the bounded geometries, null until it is (re)built
+     */
+    private volatile Intersectable index = null;
+
+    /**
+     * the bounded geometries in the order the index was built over - the order of the leaves of a hierarchy
+     */
+    private List<Intersectable> bounded = null;
 
     /**
      * empty constructor
@@ -34,14 +99,271 @@ public class Geometries extends Intersectable {
      * @param _geometries the geometries to add to the set
      */
     public void add(Intersectable... _geometries) {
-        this.geometries.addAll(List.of(_geometries));
+        synchronized (this) {
+            this.geometries.addAll(List.of(_geometries));
+            index = null;
+            resetBoundingBox();
+        }
+    }
+
+    /**
+     * removes geometries from the set - the index of the set is rebuilt on the next intersection,
+     * the indexes of the removed geometries are kept for when they are added again.
+     * It must not be called while the scene is rendered.
+     *
+     * @param _geometries the geometries to remove
+     * @return the geometries object
+     * @throws IllegalArgumentException when a geometry is not in the set
+     */
+    public Geometries remove(Intersectable... _geometries) {
+        synchronized (this) {
+            for (Intersectable item : _geometries) {
+                int i = indexOf(geometries, item);
+                if (i < 0) throw new IllegalArgumentException("The geometry is not in the set");
+                geometries.remove(i);
+            }
+            index = null;
+            resetBoundingBox();
+        }
+        return this;
+    }
+
+    /**
+     * swaps a geometry of the set for another one - like another variation of an object. A bounding volume
+     * hierarchy over the set gets the new geometry in the place of the old one and is refitted to its box,
+     * so it is rebuilt only when it has degraded too much; any other index is rebuilt on the next intersection.
+     * The sets that contain this set must be refitted with it.
+     * <p>
+     * It must not be called while the scene is rendered.
+     *
+     * @param _old the geometry of the set
+     * @param _new the geometry in its place
+     * @return the geometries object
+     * @throws IllegalArgumentException when the old geometry is not in the set
+     */
+    public Geometries replace(Intersectable _old, Intersectable _new) {
+        synchronized (this) {
+            int i = indexOf(geometries, _old);
+            if (i < 0) throw new IllegalArgumentException("The geometry is not in the set");
+            geometries.set(i, _new);
+            resetBoundingBox();
+            if (index == null) return this;
+
+            int position = index instanceof BVH ? indexOf(bounded, _old) : -1;
+            // a geometry that is unbounded, or that replaces an unbounded one, changes the content of the index
+            if (position < 0 || _new.getBoundingBox() == null) {
+                index = null;
+                return this;
+            }
+            bounded.set(position, _new);
+            if (!((BVH) index).refit(new int[]{position}))
+                index = null;
+        }
+        return this;
+    }
+
+    /**
+     * the position of a geometry in a list, by identity
+     *
+     * @param _list the list
+     * @param _item the geometry
+     * @return its position, -1 if it isn't in the list
+     */
+    private static int indexOf(List<Intersectable> _list, Intersectable _item) {
+        int i = 0;
+        for (Intersectable item : _list) {
+            if (item == _item) return i;
+            ++i;
+        }
+        return -1;
+    }
+
+    /**
+     * setter for the spatial index organizing the bounded geometries
+     *
+     * @param _acceleration the type of index
+     * @return the geometries object
+     */
+    public Geometries setAcceleration(Acceleration _acceleration) {
+        synchronized (this) {
+            acceleration = _acceleration;
+            index = null;
+        }
+        return this;
+    }
+
+    /**
+     * setter for the directory where the bounding volume hierarchy over the bounded geometries is cached,
+     * so that the scene rendered again reads its hierarchy instead of building it.
+     * The hierarchies of the nested sets and meshes have their own caches.
+     *
+     * @param _directory the cache directory, null for no cache
+     * @return the geometries object
+     */
+    public Geometries setCache(Path _directory) {
+        synchronized (this) {
+            cache = _directory == null ? null : new BVHCache(_directory);
+            index = null;
+        }
+        return this;
+    }
+
+    /**
+     * getting the index over the bounded geometries, building it if the set has been changed.
+     * Several render threads may ask for it at once, so the build is done once under the lock.
+     *
+     * @return the index
+     */
+    private Intersectable getIndex() {
+        Intersectable result = index;
+        if (result != null) return result;
+
+        synchronized (this) {
+            if (index == null) {
+                List<Intersectable> items = new ArrayList<>();
+                List<Intersectable> free = new LinkedList<>();
+                for (Intersectable item : geometries)
+                    (item.getBoundingBox() == null ? free : items).add(item);
+                unbounded = free;
+                bounded = items;
+                index = switch (acceleration) {
+                    case BVH -> buildBVH(items);
+                    case GRID -> new Grid(items);
+                    case KD_TREE -> new KDTree(items);
+                    case QUANTIZED_BVH_16 -> new QuantizedBVH(buildBVH(items), 16);
+                    case QUANTIZED_BVH_8 -> new QuantizedBVH(buildBVH(items), 8);
+                };
+            }
+            return index;
+        }
+    }
+
+    /**
+     * builds a bounding volume hierarchy - or reads it from the cache
+     *
+     * @param _items the geometries of the hierarchy, all of them must have a bounding box
+     * @return the hierarchy
+     */
+    private BVH buildBVH(List<Intersectable> _items) {
+        BVH bvh = cache == null ? new BVH(_items) : cache.get(BVH.of(_items.toArray(new Intersectable[0])));
+        // store the geometries in the order of the leaves, so that a ray meets them one after the other
+        Intersectable[] leaves = new Intersectable[_items.size()];
+        for (int i = 0; i < leaves.length; ++i)
+            leaves[i] = _items.get(bvh.order[i]);
+        // a view of the array of the primitives, through which a geometry is replaced in the hierarchy
+        bounded = Arrays.asList(leaves);
+        return bvh.inLeafOrder(BVH.of(leaves));
+    }
+
+    /**
+     * commits the set before the scene is rendered, to lay out its geometries for the locality of the rays.
+     * The nested sets and meshes are committed first, then the bounded geometries are sorted along
+     * a Z-order (Morton) curve of the centers of their boxes - so that the geometries close in space are
+     * next to each other in the set - and the index is built over them. A hierarchy stores them again
+     * in the order of its leaves. The unbounded geometries follow the bounded ones, in their order.
+     * <p>
+     * Adding geometries afterwards is allowed, they are just not sorted until the next commit.
+     * It must not be called while the scene is rendered.
+     *
+     * @return the geometries object
+     */
+    public Geometries commit() {
+        synchronized (this) {
+            for (Intersectable item : geometries) {
+                if (item instanceof Geometries nested) nested.commit();
+                else if (item instanceof TriangleMesh mesh) mesh.commit();
+            }
+
+            List<Intersectable> items = new ArrayList<>();
+            List<Intersectable> free = new ArrayList<>();
+            BoundingBox bounds = null;
+            for (Intersectable item : geometries) {
+                BoundingBox box = item.getBoundingBox();
+                if (box == null) {
+                    free.add(item);
+                } else {
+                    items.add(item);
+                    bounds = bounds == null ? box : bounds.union(box);
+                }
+            }
+            long[] codes = new long[items.size()];
+            Integer[] sorted = new Integer[items.size()];
+            for (int i = 0; i < codes.length; ++i) {
+                codes[i] = items.get(i).getBoundingBox().mortonCode(bounds);
+                sorted[i] = i;
+            }
+            // a stable sort, so that a scene is always laid out the same
+            Arrays.sort(sorted, Comparator.comparingLong(i -> codes[i]));
+            geometries.clear();
+            for (int i : sorted)
+                geometries.add(items.get(i));
+            geometries.addAll(free);
+
+            index = null;
+            getIndex();
+            geometries.clear();
+            geometries.addAll(bounded);
+            geometries.addAll(unbounded);
+        }
+        return this;
     }
 
+    /**
+     * updates the set after some of its geometries have moved - like instances given a new transformation.
+     * A bounding volume hierarchy is refitted to the new boxes, which is much cheaper than building it again,
+     * until its quality has degraded too much; any other index is simply rebuilt on the next intersection.
+     * <p>
+     * It must not be called while the scene is rendered.
+     *
+     * @param _changed the geometries of the set that have moved
+     * @return the geometries object
+     */
+    public Geometries refit(Intersectable... _changed) {
+        synchronized (this) {
+            resetBoundingBox();
+            if (index == null) return this;
+            if (!(index instanceof BVH bvh)) {
+                index = null;
+                return this;
+            }
+
+            Map<Intersectable, Integer> positions = new IdentityHashMap<>();
+            int i = 0;
+            for (Intersectable item : bounded)
+                positions.put(item, i++);
+            int[] moved = new int[_changed.length];
+            for (i = 0; i < _changed.length; ++i) {
+                Integer position = positions.get(_changed[i]);
+                // a geometry that was unbounded when the index was built must move into it
+                if (position == null) {
+                    index = null;
+                    return this;
+                }
+                moved[i] = position;
+            }
+            if (!bvh.refit(moved))
+                index = null;
+        }
+        return this;
+    }
+
+    @Override
+    protected BoundingBox calcBoundingBox() {
+        BoundingBox result = null;
+        synchronized (this) {
+            for (Intersectable item : geometries) {
+                BoundingBox box = item.getBoundingBox();
+                if (box == null) return null;
+                result = result == null ? box : result.union(box);
+            }
+        }
+        return result;
+    }
 
     @Override
     protected List<GeoPoint> findGeoIntersectionsHelper(Ray _ray, double _maxDistance) {
-        List<GeoPoint> result = null;
-        for (Intersectable item : geometries) {
+        List<GeoPoint> result = getIndex().findGeoIntersectionsHelper(_ray, _maxDistance);
+        for (Intersectable item : unbounded) {
             List<GeoPoint> itemResult = item.findGeoIntersectionsHelper(_ray, _maxDistance);
             if (itemResult != null) {
                 if (result == null)
@@ -53,6 +375,36 @@ public class Geometries extends Intersectable {
         return result;
     }
 
+    @Override
+    protected void findClosestIntersectionsHelper(RayPacket _packet) {
+        getIndex().findClosestIntersectionsHelper(_packet);
+        for (Intersectable item : unbounded)
+            item.findClosestIntersectionsHelper(_packet);
+    }
+
+    @Override
+    protected boolean forEachGeoIntersection(Ray _ray, double _maxDistance, Predicate<GeoPoint> _visitor) {
+        if (!getIndex().forEachGeoIntersection(_ray, _maxDistance, _visitor)) return false;
+        for (Intersectable item : unbounded)
+            if (!item.forEachGeoIntersection(_ray, _maxDistance, _visitor)) return false;
+        return true;
+    }
+
+    @Override
+    protected GeoPoint findClosestIntersectionHelper(Ray _ray, double _maxDistance) {
+        // let the index look for its own closest hit - it may stop before visiting all its geometries
+        GeoPoint closest = getIndex().findClosestIntersectionHelper(_ray, _maxDistance);
+        double closestDistance = closest == null ? _maxDistance : closest.point.distance(_ray.getPoint());
+        for (Intersectable item : unbounded) {
+            GeoPoint gp = item.findClosestIntersectionHelper(_ray, closestDistance);
+            if (gp != null) {
+                closest = gp;
+                closestDistance = gp.point.distance(_ray.getPoint());
+            }
+        }
+        return closest;
+    }
+
 }
 
 
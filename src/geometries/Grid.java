@@ -0,0 +1,229 @@
+package geometries;
+
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.function.IntConsumer;
+
+/**
+ * Uniform grid of voxels over bounded geometries, traversed along the ray with 3D-DDA.
+ * It is quicker to build than a tree and fits scenes of many geometries of similar size,
+ * like a tessellated mesh.
+ * <p>
+ * A geometry that overlaps several cells is registered in each of them; a per-thread mailbox
+ * remembers which geometries were already tested by the current ray so none is tested twice.
+ *
+ * @author Yona and Aaron Mimoun
+ */
+class Grid extends Intersectable {
+    /**
+     * wanted average number of geometries per cell
+     */
+    private static final double DENSITY = 3;
+    /**
+     * maximal number of cells on one axis
+     */
+    private static final int MAX_RESOLUTION = 128;
+
+    private final Intersectable[] items;
+    private final BoundingBox box;
+    private final int nx, ny, nz;
+    private final double cellX, cellY, cellZ;
+    /**
+     * cell c holds the geometries cellItems[cellStart[c]] .. cellItems[cellStart[c + 1] - 1]
+     */
+    private final int[] cellStart;
+    private final int[] cellItems;
+    private final ThreadLocal<Mailbox> mailbox;
+
+    /**
+     * constructor that builds the grid
+     *
+     * @param _geometries the geometries to organize, all of them must have a bounding box
+     */
+    Grid(List<Intersectable> _geometries) {
+        items = _geometries.toArray(new Intersectable[0]);
+        int n = items.length;
+        mailbox = ThreadLocal.withInitial(() -> new Mailbox(n));
+
+        BoundingBox bounds = null;
+        for (Intersectable item : items)
+            bounds = bounds == null ? item.getBoundingBox() : bounds.union(item.getBoundingBox());
+        box = bounds;
+        if (n == 0) {
+            nx = ny = nz = 0;
+            cellX = cellY = cellZ = 0;
+            cellStart = new int[1];
+            cellItems = new int[0];
+            return;
+        }
+
+        // resolution proportional to the extents, with about DENSITY geometries per cell
+        double dx = box.maxX - box.minX, dy = box.maxY - box.minY, dz = box.maxZ - box.minZ;
+        double floor = Math.max(dx, Math.max(dy, dz)) * 1e-3; // a flat scene still has a volume
+        double factor = Math.cbrt(n / DENSITY / (Math.max(dx, floor) * Math.max(dy, floor) * Math.max(dz, floor)));
+        nx = resolution(dx * factor);
+        ny = resolution(dy * factor);
+        nz = resolution(dz * factor);
+        cellX = dx / nx;
+        cellY = dy / ny;
+        cellZ = dz / nz;
+
+        // count the geometries of each cell, then fill the cells
+        cellStart = new int[nx * ny * nz + 1];
+        for (Intersectable item : items)
+            forEachCell(item.getBoundingBox(), c -> cellStart[c + 1]++);
+        for (int c = 0; c < nx * ny * nz; ++c)
+            cellStart[c + 1] += cellStart[c];
+        cellItems = new int[cellStart[nx * ny * nz]];
+        int[] fill = cellStart.clone();
+        for (int i = 0; i < n; ++i) {
+            int item = i;
+            forEachCell(items[i].getBoundingBox(), c -> cellItems[fill[c]++] = item);
+        }
+    }
+
+    /**
+     * the number of cells on an axis
+     *
+     * @param _cells the wanted number of cells
+     * @return the number of cells clamped to [1, MAX_RESOLUTION]
+     */
+    private static int resolution(double _cells) {
+        return (int) Math.max(1, Math.min(MAX_RESOLUTION, Math.round(_cells)));
+    }
+
+    /**
+     * the cell of a coordinate on an axis
+     *
+     * @param _value the coordinate
+     * @param _min   the lower coordinate of the grid
+     * @param _size  the size of a cell
+     * @param _n     the number of cells
+     * @return the cell index clamped to the grid
+     */
+    private static int cell(double _value, double _min, double _size, int _n) {
+        int i = (int) Math.floor((_value - _min) / _size);
+        return i < 0 ? 0 : i >= _n ? _n - 1 : i;
+    }
+
+    /**
+     * visits all the cells overlapped by a box
+     *
+     * @param _box     the box
+     * @param _visitor action on the index of each cell
+     */
+    private void forEachCell(BoundingBox _box, IntConsumer _visitor) {
+        int x0 = cell(_box.minX, box.minX, cellX, nx), x1 = cell(_box.maxX, box.minX, cellX, nx);
+        int y0 = cell(_box.minY, box.minY, cellY, ny), y1 = cell(_box.maxY, box.minY, cellY, ny);
+        int z0 = cell(_box.minZ, box.minZ, cellZ, nz), z1 = cell(_box.maxZ, box.minZ, cellZ, nz);
+        for (int z = z0; z <= z1; ++z)
+            for (int y = y0; y <= y1; ++y)
+                for (int x = x0; x <= x1; ++x)
+                    _visitor.accept((z * ny + y) * nx + x);
+    }
+
+    @Override
+    protected BoundingBox calcBoundingBox() {
+        return box;
+    }
+
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray _ray, double _maxDistance) {
+        List<GeoPoint> result = new LinkedList<>();
+        traverse(_ray, _maxDistance, result::add);
+        return result.isEmpty() ? null : result;
+    }
+
+    @Override
+    protected boolean forEachGeoIntersection(Ray _ray, double _maxDistance, Predicate<GeoPoint> _visitor) {
+        boolean[] going = {true};
+        traverse(_ray, _maxDistance, gp -> going[0] = _visitor.test(gp));
+        return going[0];
+    }
+
+    @Override
+    protected GeoPoint findClosestIntersectionHelper(Ray _ray, double _maxDistance) {
+        return traverse(_ray, _maxDistance, null);
+    }
+
+    /**
+     * walks with 3D-DDA through the cells crossed by the ray, in order from the start of the ray
+     *
+     * @param _ray         the ray
+     * @param _maxDistance the maximum distance between a hit and the start of the ray
+     * @param _visitor     the action on each hit, returning false to stop the traversal,
+     *                     or null to look for the closest hit only -
+     *                     then the walk stops at the first cell that contains the closest hit found so far
+     * @return the closest hit when looking for it, null otherwise
+     */
+    private GeoPoint traverse(Ray _ray, double _maxDistance, Predicate<GeoPoint> _visitor) {
+        if (items.length == 0) return null;
+
+        Point p0 = _ray.getPoint();
+        Vector v = _ray.getDir();
+        double ox = p0.getX(), oy = p0.getY(), oz = p0.getZ();
+        double invX = 1 / v.getX(), invY = 1 / v.getY(), invZ = 1 / v.getZ();
+        double tStart = box.entry(ox, oy, oz, invX, invY, invZ, _maxDistance);
+        if (tStart == BoundingBox.MISS) return null;
+
+        // the cell where the ray enters the grid
+        int x = cell(ox + v.getX() * tStart, box.minX, cellX, nx);
+        int y = cell(oy + v.getY() * tStart, box.minY, cellY, ny);
+        int z = cell(oz + v.getZ() * tStart, box.minZ, cellZ, nz);
+
+        // distances to the next cell boundary on each axis, and between two boundaries
+        int stepX = invX > 0 ? 1 : -1, stepY = invY > 0 ? 1 : -1, stepZ = invZ > 0 ? 1 : -1;
+        double tMaxX = Double.isInfinite(invX) ? Double.POSITIVE_INFINITY
+                : (box.minX + (x + (stepX > 0 ? 1 : 0)) * cellX - ox) * invX;
+        double tMaxY = Double.isInfinite(invY) ? Double.POSITIVE_INFINITY
+                : (box.minY + (y + (stepY > 0 ? 1 : 0)) * cellY - oy) * invY;
+        double tMaxZ = Double.isInfinite(invZ) ? Double.POSITIVE_INFINITY
+                : (box.minZ + (z + (stepZ > 0 ? 1 : 0)) * cellZ - oz) * invZ;
+        double tDeltaX = Math.abs(cellX * invX), tDeltaY = Math.abs(cellY * invY), tDeltaZ = Math.abs(cellZ * invZ);
+
+        Mailbox tested = mailbox.get();
+        int rayId = tested.nextRay();
+        GeoPoint closest = null;
+        double closestDistance = _maxDistance;
+        while (true) {
+            int c = (z * ny + y) * nx + x;
+            for (int k = cellStart[c]; k < cellStart[c + 1]; ++k) {
+                int i = cellItems[k];
+                if (!tested.mark(i, rayId)) continue;
+
+                if (_visitor != null) {
+                    if (!items[i].forEachGeoIntersection(_ray, _maxDistance, _visitor)) return null;
+                } else {
+                    GeoPoint gp = items[i].findClosestIntersectionHelper(_ray, closestDistance);
+                    if (gp != null) {
+                        closest = gp;
+                        closestDistance = gp.point.distance(p0);
+                    }
+                }
+            }
+
+            // leave the cell through its nearest boundary
+            double tExit = Math.min(tMaxX, Math.min(tMaxY, tMaxZ));
+            if (_visitor == null && closest != null && closestDistance <= tExit) return closest;
+            if (tExit > closestDistance) return closest;
+            if (tMaxX == tExit) {
+                x += stepX;
+                if (x < 0 || x >= nx) return closest;
+                tMaxX += tDeltaX;
+            } else if (tMaxY == tExit) {
+                y += stepY;
+                if (y < 0 || y >= ny) return closest;
+                tMaxY += tDeltaY;
+            } else {
+                z += stepZ;
+                if (z < 0 || z >= nz) return closest;
+                tMaxZ += tDeltaZ;
+            }
+        }
+    }
+}
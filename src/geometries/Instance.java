@@ -0,0 +1,196 @@
+package geometries;
+
+import primitives.Point;
+import primitives.Ray;
+import primitives.Transform;
+import primitives.Vector;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * An instance of a shared graphic object - a group of geometries or a mesh - placed in the scene by an
+ * affine transformation. Many instances of one object share its geometries and its hierarchy: a ray
+ * is brought into the space of the object by the inverse transformation, and the intersections are
+ * brought back into the scene. The normal of an intersection is brought back only when it is asked for,
+ * as the shading of the closest hit does - the hits a shadow ray goes through only need their material.
+ *
+ * @author Yona and Aaron Mimoun
+ */
+public class Instance extends Intersectable {
+    /**
+     * the shared object
+     */
+    private final Intersectable object;
+    /**
+     * the transformation from the space of the object to the scene
+     */
+    private Transform transform;
+    /**
+     * the transformation from the scene to the space of the object
+     */
+    private Transform inverse;
+
+    /**
+     * an intersection brought back into the scene, whose normal is brought back on the first request
+     */
+    private static class SceneHit extends GeoPoint {
+        /**
+         * the intersection in the space of the object
+         */
+        private final GeoPoint hit;
+        /**
+         * the transformation from the space of the object to the scene at the time of the intersection
+         */
+        private final Transform transform;
+        /**
+         * the normal in the scene, null until it is asked for
+         */
+        private Vector sceneNormal;
+
+        /**
+         * constructor for an intersection brought back into the scene
+         *
+         * @param _hit       the intersection in the space of the object
+         * @param _point     the point of the intersection in the scene
+         * @param _transform the transformation from the space of the object to the scene
+         */
+        SceneHit(GeoPoint _hit, Point _point, Transform _transform) {
+            super(_hit.geometry, _point);
+            hit = _hit;
+            transform = _transform;
+        }
+
+        @Override
+        public Vector getNormal() {
+            if (sceneNormal == null) sceneNormal = transform.transformNormal(hit.getNormal());
+            return sceneNormal;
+        }
+    }
+
+    /**
+     * constructor for an instance of an object
+     *
+     * @param _object    the shared object
+     * @param _transform the transformation from the space of the object to the scene
+     */
+    public Instance(Intersectable _object, Transform _transform) {
+        object = _object;
+        transform = _transform;
+        inverse = _transform.inverse();
+    }
+
+    /**
+     * getting the shared object
+     *
+     * @return the object this is an instance of
+     */
+    public Intersectable getObject() {
+        return object;
+    }
+
+    /**
+     * getting the transformation
+     *
+     * @return the transformation from the space of the object to the scene
+     */
+    public Transform getTransform() {
+        return transform;
+    }
+
+    /**
+     * setter for the transformation, to move the instance in an animated scene.
+     * The set of geometries holding the instance must then be told with {@link Geometries#refit}
+     *
+     * @param _transform the transformation from the space of the object to the scene
+     * @return the instance object
+     */
+    public Instance setTransform(Transform _transform) {
+        transform = _transform;
+        inverse = _transform.inverse();
+        resetBoundingBox();
+        return this;
+    }
+
+    /**
+     * brings a ray into the space of the object
+     *
+     * @param _ray the ray in the scene
+     * @param _dir the direction of the ray in the space of the object, not normalized
+     * @return the ray in the space of the object
+     */
+    private Ray toObject(Ray _ray, Vector _dir) {
+        return new Ray(inverse.transform(_ray.getPoint()), _dir);
+    }
+
+    /**
+     * brings a distance along a ray into the space of the object - the inverse transformation
+     * stretches the ray direction by some factor, and every distance along the ray with it
+     *
+     * @param _distance the distance in the scene
+     * @param _dir      the direction of the ray in the space of the object, not normalized
+     * @return the distance in the space of the object
+     */
+    private static double toObject(double _distance, Vector _dir) {
+        return _distance == Double.POSITIVE_INFINITY ? _distance : _distance * _dir.length();
+    }
+
+    /**
+     * brings an intersection back into the scene
+     *
+     * @param _gp the intersection in the space of the object
+     * @return the intersection in the scene, its normal brought back when it is asked for
+     */
+    private GeoPoint toScene(GeoPoint _gp) {
+        return new SceneHit(_gp, transform.transform(_gp.point), transform);
+    }
+
+    @Override
+    protected BoundingBox calcBoundingBox() {
+        BoundingBox box = object.getBoundingBox();
+        if (box == null) return null;
+        // the box of the transformed corners
+        List<Point> corners = new LinkedList<>();
+        for (int corner = 0; corner < 8; ++corner)
+            corners.add(transform.transform(new Point(
+                    (corner & 1) == 0 ? box.minX : box.maxX,
+                    (corner & 2) == 0 ? box.minY : box.maxY,
+                    (corner & 4) == 0 ? box.minZ : box.maxZ)));
+        return BoundingBox.of(corners);
+    }
+
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray _ray, double _maxDistance) {
+        Vector dir = inverse.transform(_ray.getDir());
+        List<GeoPoint> intersections =
+                object.findGeoIntersectionsHelper(toObject(_ray, dir), toObject(_maxDistance, dir));
+        if (intersections == null) return null;
+        List<GeoPoint> result = new LinkedList<>();
+        for (GeoPoint gp : intersections)
+            result.add(toScene(gp));
+        return result;
+    }
+
+    @Override
+    protected GeoPoint findClosestIntersectionHelper(Ray _ray, double _maxDistance) {
+        Vector dir = inverse.transform(_ray.getDir());
+        GeoPoint gp = object.findClosestIntersectionHelper(toObject(_ray, dir), toObject(_maxDistance, dir));
+        return gp == null ? null : toScene(gp);
+    }
+
+    @Override
+    protected boolean forEachGeoIntersection(Ray _ray, double _maxDistance, Predicate<GeoPoint> _visitor) {
+        Vector dir = inverse.transform(_ray.getDir());
+        return object.forEachGeoIntersection(toObject(_ray, dir), toObject(_maxDistance, dir),
+                gp -> _visitor.test(toScene(gp)));
+    }
+
+    @Override
+    public String toString() {
+        return "Instance{" +
+                "object=" + object +
+                ", transform=" + transform +
+                '}';
+    }
+}
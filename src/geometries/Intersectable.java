@@ -1,9 +1,12 @@
 package geometries;
 
+import primitives.Double3;
 import primitives.Point;
 import primitives.Ray;
+import primitives.Vector;
 
 import java.util.List;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 /**
@@ -13,7 +16,17 @@ import java.util.stream.Collectors;
  * @author Yona and Aaron Mimoun
  */
 public abstract class Intersectable {
+    /**
+     * marker of a computed bounding box for an unbounded object
+     */
+    private static final BoundingBox UNBOUNDED = new BoundingBox(
+            Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY,
+            Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY);
 
+    /**
+     * the cached bounding box, null until it is computed
+     */
+    private volatile BoundingBox boundingBox = null;
 
     /**
      * find all intersection {@link Point}s
@@ -61,6 +74,97 @@ public abstract class Intersectable {
      */
     protected abstract List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance);
 
+    /**
+     * find the closest intersection of each ray of a packet, available then by {@link RayPacket#getHit(int)}
+     *
+     * @param _packet the packet of rays
+     */
+    public final void findClosestIntersections(RayPacket _packet) {
+        findClosestIntersectionsHelper(_packet);
+    }
+
+    /**
+     * helper of findClosestIntersections - it keeps for each lane the intersections that are closer than
+     * its closest one found so far. By default each ray is intersected on its own; the common geometries
+     * override it with a loop over the lanes, and a hierarchy visits a box once for the whole packet.
+     *
+     * @param _packet the packet of rays
+     */
+    protected void findClosestIntersectionsHelper(RayPacket _packet) {
+        for (int lane = 0; lane < _packet.size; ++lane) {
+            Ray ray = _packet.rays[lane];
+            GeoPoint gp = findClosestIntersectionHelper(ray, _packet.maxDistance[lane]);
+            if (gp != null) _packet.hit(lane, gp, gp.point.distance(ray.getPoint()));
+        }
+    }
+
+    /**
+     * find how much light goes through the object along a ray in a range of distance - the product of
+     * the transparency factors (kT) of the materials at all the intersections. The search stops at the first
+     * intersection that brings the product below the given threshold, as an opaque geometry does at once.
+     *
+     * @param _ray         ray pointing towards the light source
+     * @param _maxDistance the maximum distance between the point to the start of the ray
+     * @param _minK        the threshold under which no light is considered to go through
+     * @return the transparency factor along the ray, {@link Double3#ZERO} when it is under the threshold
+     */
+    public final Double3 findTransparency(Ray _ray, double _maxDistance, double _minK) {
+        Double3[] ktr = {Double3.ONE};
+        boolean through = forEachGeoIntersection(_ray, _maxDistance, gp -> {
+            ktr[0] = ktr[0].product(gp.geometry.getMaterial().kT);
+            return !ktr[0].lowerThan(_minK);
+        });
+        return through ? ktr[0] : Double3.ZERO;
+    }
+
+    /**
+     * passes the intersections with a ray, in no particular order, to a visitor that may stop the search.
+     * By default the intersections are found first; a group of geometries overrides it to stop
+     * its traversal as soon as the visitor asks to.
+     *
+     * @param _ray         ray pointing towards the graphic object
+     * @param _maxDistance the maximum distance between the point to the start of the ray
+     * @param _visitor     the action on each intersection, returning false to stop the search
+     * @return false if the visitor has stopped the search, true otherwise
+     */
+    protected boolean forEachGeoIntersection(Ray _ray, double _maxDistance, Predicate<GeoPoint> _visitor) {
+        List<GeoPoint> list = findGeoIntersectionsHelper(_ray, _maxDistance);
+        if (list != null)
+            for (GeoPoint gp : list)
+                if (!_visitor.test(gp)) return false;
+        return true;
+    }
+
+    /**
+     * getting the axis-aligned box that bounds the object, computed once and cached
+     *
+     * @return the bounding box, or null when the object is unbounded (like a plane or a tube)
+     */
+    public final BoundingBox getBoundingBox() {
+        BoundingBox box = boundingBox;
+        if (box == null) {
+            box = calcBoundingBox();
+            boundingBox = box = box == null ? UNBOUNDED : box;
+        }
+        return box == UNBOUNDED ? null : box;
+    }
+
+    /**
+     * calculation of the bounding box, called once by {@link #getBoundingBox()}
+     *
+     * @return the bounding box, or null when the object is unbounded - the default
+     */
+    protected BoundingBox calcBoundingBox() {
+        return null;
+    }
+
+    /**
+     * drops the cached bounding box after the object has changed
+     */
+    protected void resetBoundingBox() {
+        boundingBox = null;
+    }
+
 
     /**
      * geo point is the point with the geometry object that it's on
@@ -86,6 +190,17 @@ public abstract class Intersectable {
             this.point = _point;
         }
 
+        /**
+         * getting the normal of the geometry at the point - a subclass may find it from what it has kept
+         * of the intersection, for geometries that can't tell their normal from the point alone
+         * (like a face of a mesh)
+         *
+         * @return the normal of the geometry at the point
+         */
+        public Vector getNormal() {
+            return geometry.getNormal(point);
+        }
+
         @Override
         public boolean equals(Object _o) {
             if (this == _o) return true;
@@ -107,8 +222,32 @@ public abstract class Intersectable {
      * @param _ray The ray to run the function on.
      * @return The closest point which was found by GeoPoint format (geometry, point).
      */
-    public GeoPoint findClosestIntersection(Ray _ray) {
-        List<GeoPoint> list = findGeoIntersections(_ray);
+    public final GeoPoint findClosestIntersection(Ray _ray) {
+        return findClosestIntersectionHelper(_ray, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Find the closest point to the ray's head in a range of distance.
+     *
+     * @param _ray         The ray to run the function on.
+     * @param _maxDistance the maximum distance between the point to the start of the ray
+     * @return The closest point which was found by GeoPoint format (geometry, point), or null
+     */
+    public final GeoPoint findClosestIntersection(Ray _ray, double _maxDistance) {
+        return findClosestIntersectionHelper(_ray, _maxDistance);
+    }
+
+    /**
+     * helper of findClosestIntersection. By default it picks the closest of all the intersections;
+     * a group of geometries overrides it to shrink the maximum distance to the closest hit found so far,
+     * so the geometries behind it are skipped and no list of intersections is built.
+     *
+     * @param _ray         ray pointing towards the graphic object
+     * @param _maxDistance the maximum distance between the point to the start of the ray
+     * @return the closest intersection geo point, or null if there is none
+     */
+    protected GeoPoint findClosestIntersectionHelper(Ray _ray, double _maxDistance) {
+        List<GeoPoint> list = findGeoIntersectionsHelper(_ray, _maxDistance);
         return list == null ? null : _ray.findClosestGeoPoint(list);
     }
 }
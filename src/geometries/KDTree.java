@@ -0,0 +1,313 @@
+package geometries;
+
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * k-d tree over bounded geometries, built with the surface area heuristic (SAH).
+ * It fits static scenes made mostly of triangles: its leaves don't overlap, so a ray
+ * visits them front to back and the search for the closest hit stops at the first leaf
+ * that contains a hit, instead of collecting every hit along the ray.
+ * <p>
+ * A geometry that crosses a split plane is put on both of its sides; the mailbox
+ * prevents testing it twice with the same ray.
+ *
+ * @author Yona and Aaron Mimoun
+ */
+class KDTree extends Intersectable {
+    /**
+     * cost of visiting a node relatively to the cost of intersecting one geometry
+     */
+    private static final double TRAVERSAL_COST = 1;
+    /**
+     * cost of intersecting one geometry
+     */
+    private static final double INTERSECTION_COST = 1.5;
+    /**
+     * cost discount of a split that leaves one of its sides empty
+     */
+    private static final double EMPTY_BONUS = 0.2;
+    /**
+     * maximal depth of the traversal stack
+     */
+    private static final int STACK_SIZE = 64;
+
+    /**
+     * node of the tree - an inner node has a split plane and two children, a leaf has geometries
+     */
+    private static class Node {
+        int axis = -1;
+        double split;
+        Node below;
+        Node above;
+        int[] items;
+    }
+
+    /**
+     * traversal stack of a render thread - the far children still to visit and the part of the ray inside each
+     */
+    private static class Stack {
+        final Node[] nodes = new Node[STACK_SIZE];
+        final double[] tMin = new double[STACK_SIZE];
+        final double[] tMax = new double[STACK_SIZE];
+    }
+
+    /**
+     * result of a traversal stopped by its visitor
+     */
+    private static final GeoPoint STOPPED = new GeoPoint(null, null);
+
+    private final Intersectable[] items;
+    private final BoundingBox[] boxes;
+    private final BoundingBox box;
+    private final Node root;
+    private final ThreadLocal<Mailbox> mailbox;
+    private final ThreadLocal<Stack> stack = ThreadLocal.withInitial(Stack::new);
+
+    /**
+     * constructor that builds the tree
+     *
+     * @param _geometries the geometries to organize, all of them must have a bounding box
+     */
+    KDTree(List<Intersectable> _geometries) {
+        items = _geometries.toArray(new Intersectable[0]);
+        int n = items.length;
+        mailbox = ThreadLocal.withInitial(() -> new Mailbox(n));
+        boxes = new BoundingBox[n];
+        BoundingBox bounds = null;
+        for (int i = 0; i < n; ++i) {
+            boxes[i] = items[i].getBoundingBox();
+            bounds = bounds == null ? boxes[i] : bounds.union(boxes[i]);
+        }
+        box = bounds;
+
+        int[] all = new int[n];
+        for (int i = 0; i < n; ++i) all[i] = i;
+        int maxDepth = n == 0 ? 0 : (int) Math.min(STACK_SIZE - 1, Math.round(8 + 1.3 * Math.log(n) / Math.log(2)));
+        root = n == 0 ? null : build(all, box, maxDepth);
+    }
+
+    /**
+     * recursive construction of the subtree of some geometries
+     *
+     * @param _items the indexes of the geometries of the node
+     * @param _box   the box of the node
+     * @param _depth the number of levels that can still be added under the node
+     * @return the root of the subtree
+     */
+    private Node build(int[] _items, BoundingBox _box, int _depth) {
+        Node node = new Node();
+        int n = _items.length;
+        double area = _box.surfaceArea();
+        if (n <= 1 || _depth == 0 || area <= 0) {
+            node.items = _items;
+            return node;
+        }
+
+        // sweep the sorted starts and ends of the geometries on each axis to find the cheapest split
+        double bestCost = INTERSECTION_COST * n;
+        int bestAxis = -1;
+        double bestSplit = 0;
+        double[] starts = new double[n];
+        double[] ends = new double[n];
+        for (int axis = 0; axis < 3; ++axis) {
+            double min = _box.min(axis), max = _box.max(axis);
+            int a1 = (axis + 1) % 3, a2 = (axis + 2) % 3;
+            double d1 = _box.max(a1) - _box.min(a1), d2 = _box.max(a2) - _box.min(a2);
+            for (int k = 0; k < n; ++k) {
+                starts[k] = Math.max(min, boxes[_items[k]].min(axis));
+                ends[k] = Math.min(max, boxes[_items[k]].max(axis));
+            }
+            Arrays.sort(starts);
+            Arrays.sort(ends);
+
+            int below = 0, above = n;
+            int s = 0, e = 0;
+            while (s < n || e < n) {
+                // at equal positions the starts come first
+                boolean isStart = s < n && (e >= n || starts[s] <= ends[e]);
+                double t = isStart ? starts[s] : ends[e];
+                if (!isStart) --above;
+                if (t > min && t < max) {
+                    double belowArea = 2 * (d1 * d2 + (t - min) * (d1 + d2));
+                    double aboveArea = 2 * (d1 * d2 + (max - t) * (d1 + d2));
+                    double bonus = below == 0 || above == 0 ? EMPTY_BONUS : 0;
+                    double cost = TRAVERSAL_COST
+                            + INTERSECTION_COST * (1 - bonus) * (belowArea * below + aboveArea * above) / area;
+                    if (cost < bestCost) {
+                        bestCost = cost;
+                        bestAxis = axis;
+                        bestSplit = t;
+                    }
+                }
+                if (isStart) {
+                    ++below;
+                    ++s;
+                } else
+                    ++e;
+            }
+        }
+
+        if (bestAxis < 0) { // no split is cheaper than a leaf
+            node.items = _items;
+            return node;
+        }
+
+        // a geometry that crosses the split plane goes to both sides
+        int belowCount = 0, aboveCount = 0;
+        for (int i : _items) {
+            if (boxes[i].min(bestAxis) < bestSplit) ++belowCount;
+            if (boxes[i].max(bestAxis) > bestSplit) ++aboveCount;
+        }
+        int[] belowItems = new int[belowCount];
+        int[] aboveItems = new int[aboveCount];
+        belowCount = aboveCount = 0;
+        for (int i : _items) {
+            if (boxes[i].min(bestAxis) < bestSplit) belowItems[belowCount++] = i;
+            if (boxes[i].max(bestAxis) > bestSplit) aboveItems[aboveCount++] = i;
+        }
+
+        node.axis = bestAxis;
+        node.split = bestSplit;
+        node.below = build(belowItems, split(_box, bestAxis, bestSplit, true), _depth - 1);
+        node.above = build(aboveItems, split(_box, bestAxis, bestSplit, false), _depth - 1);
+        return node;
+    }
+
+    /**
+     * one side of a box cut by a split plane
+     *
+     * @param _box   the box
+     * @param _axis  the axis of the split plane
+     * @param _split the coordinate of the split plane
+     * @param _below true for the lower side, false for the upper side
+     * @return the side of the box
+     */
+    private static BoundingBox split(BoundingBox _box, int _axis, double _split, boolean _below) {
+        double[] min = {_box.minX, _box.minY, _box.minZ};
+        double[] max = {_box.maxX, _box.maxY, _box.maxZ};
+        if (_below) max[_axis] = _split;
+        else min[_axis] = _split;
+        return new BoundingBox(min[0], min[1], min[2], max[0], max[1], max[2]);
+    }
+
+    @Override
+    protected BoundingBox calcBoundingBox() {
+        return box;
+    }
+
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray _ray, double _maxDistance) {
+        List<GeoPoint> result = new LinkedList<>();
+        traverse(_ray, _maxDistance, result::add);
+        return result.isEmpty() ? null : result;
+    }
+
+    @Override
+    protected boolean forEachGeoIntersection(Ray _ray, double _maxDistance, Predicate<GeoPoint> _visitor) {
+        return traverse(_ray, _maxDistance, _visitor) != STOPPED;
+    }
+
+    @Override
+    protected GeoPoint findClosestIntersectionHelper(Ray _ray, double _maxDistance) {
+        return traverse(_ray, _maxDistance, null);
+    }
+
+    /**
+     * visits the leaves crossed by the ray front to back
+     *
+     * @param _ray         the ray
+     * @param _maxDistance the maximum distance between a hit and the start of the ray
+     * @param _visitor     the action on each hit, returning false to stop the traversal,
+     *                     or null to look for the closest hit only -
+     *                     then the traversal stops at the first leaf that contains the closest hit found so far
+     * @return the closest hit when looking for it, {@link #STOPPED} when the visitor stopped the traversal,
+     * null otherwise
+     */
+    private GeoPoint traverse(Ray _ray, double _maxDistance, Predicate<GeoPoint> _visitor) {
+        if (root == null) return null;
+
+        Point p0 = _ray.getPoint();
+        Vector v = _ray.getDir();
+        double ox = p0.getX(), oy = p0.getY(), oz = p0.getZ();
+        double dx = v.getX(), dy = v.getY(), dz = v.getZ();
+        double invX = 1 / dx, invY = 1 / dy, invZ = 1 / dz;
+
+        // the part of the ray inside the tree
+        double tMin = box.entry(ox, oy, oz, invX, invY, invZ, _maxDistance);
+        if (tMin == BoundingBox.MISS) return null;
+        double tMax = Math.min(_maxDistance, Math.min(exit(box.minX, box.maxX, ox, invX),
+                Math.min(exit(box.minY, box.maxY, oy, invY), exit(box.minZ, box.maxZ, oz, invZ))));
+
+        Mailbox tested = mailbox.get();
+        int rayId = tested.nextRay();
+        GeoPoint closest = null;
+        double closestDistance = _maxDistance;
+
+        Stack todo = stack.get();
+        int top = 0;
+        Node node = root;
+        while (true) {
+            if (node.axis >= 0) {
+                int axis = node.axis;
+                double o = axis == 0 ? ox : axis == 1 ? oy : oz;
+                double dir = axis == 0 ? dx : axis == 1 ? dy : dz;
+                double inv = axis == 0 ? invX : axis == 1 ? invY : invZ;
+                boolean belowFirst = o < node.split || (o == node.split && dir <= 0);
+                Node first = belowFirst ? node.below : node.above;
+                Node second = belowFirst ? node.above : node.below;
+                double tSplit = Double.isInfinite(inv) ? Double.POSITIVE_INFINITY : (node.split - o) * inv;
+                if (tSplit > tMax || tSplit <= 0)
+                    node = first;
+                else if (tSplit < tMin)
+                    node = second;
+                else {
+                    todo.nodes[top] = second;
+                    todo.tMin[top] = tSplit;
+                    todo.tMax[top++] = tMax;
+                    node = first;
+                    tMax = tSplit;
+                }
+                continue;
+            }
+
+            for (int i : node.items) {
+                if (!tested.mark(i, rayId)) continue;
+                if (_visitor != null) {
+                    if (!items[i].forEachGeoIntersection(_ray, _maxDistance, _visitor)) return STOPPED;
+                } else {
+                    GeoPoint gp = items[i].findClosestIntersectionHelper(_ray, closestDistance);
+                    if (gp != null) {
+                        closest = gp;
+                        closestDistance = gp.point.distance(p0);
+                    }
+                }
+            }
+            // a hit inside this leaf is closer than anything in the leaves behind it
+            if (closest != null && closestDistance <= tMax) return closest;
+            if (top == 0) return closest;
+            node = todo.nodes[--top];
+            tMin = todo.tMin[top];
+            tMax = todo.tMax[top];
+        }
+    }
+
+    /**
+     * the distance where a ray leaves the slab of a box on one axis
+     *
+     * @param _min the lower coordinate of the slab
+     * @param _max the upper coordinate of the slab
+     * @param _o   the coordinate of the ray origin
+     * @param _inv 1 / the coordinate of the ray direction
+     * @return the distance where the ray leaves the slab, infinity for a ray parallel to it
+     */
+    private static double exit(double _min, double _max, double _o, double _inv) {
+        return Double.isInfinite(_inv) ? Double.POSITIVE_INFINITY : Math.max((_min - _o) * _inv, (_max - _o) * _inv);
+    }
+}
@@ -0,0 +1,50 @@
+package geometries;
+
+import java.util.Arrays;
+
+/**
+ * Mailbox of a spatial index - the id of the last ray that tested each geometry of the index.
+ * A geometry registered in several cells or leaves is then tested once per ray.
+ * A mailbox is confined to one render thread.
+ *
+ * @author Yona and Aaron Mimoun
+ */
+class Mailbox {
+    private final int[] stamps;
+    private int rayId = 0;
+
+    /**
+     * constructor for a mailbox of an index
+     *
+     * @param _size the number of geometries of the index
+     */
+    Mailbox(int _size) {
+        stamps = new int[_size];
+    }
+
+    /**
+     * starts a new ray
+     *
+     * @return the id of the new ray
+     */
+    int nextRay() {
+        if (++rayId == Integer.MAX_VALUE) { // ids are exhausted, forget all the stamps
+            Arrays.fill(stamps, 0);
+            rayId = 1;
+        }
+        return rayId;
+    }
+
+    /**
+     * marks a geometry as tested by a ray
+     *
+     * @param _item  the index of the geometry
+     * @param _rayId the id of the ray
+     * @return false if the geometry was already tested by the ray
+     */
+    boolean mark(int _item, int _rayId) {
+        if (stamps[_item] == _rayId) return false;
+        stamps[_item] = _rayId;
+        return true;
+    }
+}
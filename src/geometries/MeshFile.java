@@ -0,0 +1,268 @@
+package geometries;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.channels.FileChannel.MapMode.READ_WRITE;
+
+/**
+ * A triangle mesh in a compact binary file, written once from a mesh loaded from a text format
+ * and read back without any parsing.
+ * <p>
+ * The file holds the buffers of the mesh in little-endian order after a header:
+ * <pre>
+ * int magic, int version, int flags, int vertex count, int face count, int reserved (0),
+ * double[3 * vertices] positions, double[3 * vertices] normals (flag 1),
+ * int[3 * faces] indices, int[faces] material ids (flag 2)
+ * </pre>
+ * The reader maps every part of the file in memory and the buffers of the mapping are the storage of the mesh,
+ * so reading a file costs the check of its indices and the pages of it that are actually touched.
+ *
+ * @author Yona and Aaron Mimoun
+ */
+public class MeshFile {
+    /**
+     * the first bytes of a mesh file - "MESH"
+     */
+    private static final int MAGIC = 0x4853454D;
+    /**
+     * the version of the file format
+     */
+    static final int VERSION = 1;
+    /**
+     * the size of the header in bytes
+     */
+    private static final int HEADER = 24;
+    /**
+     * flag of a file with normals of the vertices
+     */
+    private static final int NORMALS = 1;
+    /**
+     * flag of a file with material ids of the faces
+     */
+    private static final int MATERIALS = 2;
+
+    /**
+     * coordinates of the vertices, three per vertex
+     */
+    private final DoubleBuffer positions;
+    /**
+     * normals of the vertices, three coordinates per vertex, null for none
+     */
+    private final DoubleBuffer normals;
+    /**
+     * indexes of the vertices of the faces, three per face
+     */
+    private final IntBuffer indices;
+    /**
+     * material ids of the faces, one per face, null for none
+     */
+    private final IntBuffer materials;
+
+    /**
+     * constructor for the content of a mesh file
+     *
+     * @param _positions coordinates of the vertices
+     * @param _normals   normals of the vertices, or null
+     * @param _indices   indexes of the vertices of the faces
+     * @param _materials material ids of the faces, or null
+     */
+    private MeshFile(DoubleBuffer _positions, DoubleBuffer _normals, IntBuffer _indices, IntBuffer _materials) {
+        positions = _positions;
+        normals = _normals;
+        indices = _indices;
+        materials = _materials;
+    }
+
+    /**
+     * getting the number of vertices
+     *
+     * @return the number of vertices of the mesh
+     */
+    public int getVertexCount() {
+        return positions.limit() / 3;
+    }
+
+    /**
+     * getting the number of faces
+     *
+     * @return the number of triangles of the mesh
+     */
+    public int getFaceCount() {
+        return indices.limit() / 3;
+    }
+
+    /**
+     * getting the normals of the vertices - vertex i has the normal (normals[3i], normals[3i + 1], normals[3i + 2])
+     *
+     * @return a read-only view of the normals, or null if the file has none
+     */
+    public DoubleBuffer getNormals() {
+        return normals == null ? null : normals.asReadOnlyBuffer();
+    }
+
+    /**
+     * getting the material ids of the faces - an index into the materials of the scene, one per face
+     *
+     * @return a read-only view of the material ids, or null if the file has none
+     */
+    public IntBuffer getMaterials() {
+        return materials == null ? null : materials.asReadOnlyBuffer();
+    }
+
+    /**
+     * the mesh of the file, over the mapped buffers themselves
+     *
+     * @return a new mesh of the positions and indices of the file
+     */
+    public TriangleMesh toMesh() {
+        return new TriangleMesh(positions, indices);
+    }
+
+    /**
+     * reads a mesh file
+     *
+     * @param _file the file
+     * @return the content of the file, mapped in memory
+     * @throws IllegalArgumentException when the file is not a mesh file of this version or is truncated
+     * @throws IllegalStateException    when the file can't be read
+     */
+    public static MeshFile read(Path _file) {
+        try (FileChannel channel = FileChannel.open(_file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER)
+                throw new IllegalArgumentException("Not a mesh file: " + _file);
+            ByteBuffer header = map(channel, READ_ONLY, 0, HEADER);
+            if (header.getInt() != MAGIC)
+                throw new IllegalArgumentException("Not a mesh file: " + _file);
+            int version = header.getInt();
+            if (version != VERSION)
+                throw new IllegalArgumentException("Unsupported mesh file version " + version + ": " + _file);
+            int flags = header.getInt();
+            int vertices = header.getInt();
+            int faces = header.getInt();
+            if (vertices < 0 || faces < 0 || size != size(flags, vertices, faces))
+                throw new IllegalArgumentException("Truncated or damaged mesh file: " + _file);
+
+            // the mappings stay valid after the channel is closed
+            long offset = HEADER;
+            DoubleBuffer positions = map(channel, READ_ONLY, offset, 24L * vertices).asDoubleBuffer();
+            offset += 24L * vertices;
+            DoubleBuffer normals = null;
+            if ((flags & NORMALS) != 0) {
+                normals = map(channel, READ_ONLY, offset, 24L * vertices).asDoubleBuffer();
+                offset += 24L * vertices;
+            }
+            IntBuffer indices = map(channel, READ_ONLY, offset, 12L * faces).asIntBuffer();
+            offset += 12L * faces;
+            IntBuffer materials = null;
+            if ((flags & MATERIALS) != 0)
+                materials = map(channel, READ_ONLY, offset, 4L * faces).asIntBuffer();
+            return new MeshFile(positions, normals, indices, materials);
+        } catch (IOException e) {
+            throw new IllegalStateException("I/O error - can't read " + _file, e);
+        }
+    }
+
+    /**
+     * writes a mesh to a mesh file, with only its positions and indices
+     *
+     * @param _file the file
+     * @param _mesh the mesh
+     * @throws IllegalStateException when the file can't be written
+     */
+    public static void write(Path _file, TriangleMesh _mesh) {
+        write(_file, _mesh, null, null);
+    }
+
+    /**
+     * writes a mesh to a mesh file - through a temporary file moved in place at the end,
+     * so that a render never reads a file half written
+     *
+     * @param _file      the file
+     * @param _mesh      the mesh
+     * @param _normals   the normals of the vertices, three coordinates per vertex, or null for none
+     * @param _materials the material ids of the faces, one per face, or null for none
+     * @throws IllegalArgumentException when there isn't a normal per vertex or a material id per face
+     * @throws IllegalStateException    when the file can't be written
+     */
+    public static void write(Path _file, TriangleMesh _mesh, double[] _normals, int[] _materials) {
+        int vertices = _mesh.getVertexCount();
+        int faces = _mesh.getFaceCount();
+        if (_normals != null && _normals.length != 3 * vertices)
+            throw new IllegalArgumentException("The normals must hold three coordinates per vertex");
+        if (_materials != null && _materials.length != faces)
+            throw new IllegalArgumentException("The material ids must hold one id per face");
+        int flags = (_normals == null ? 0 : NORMALS) | (_materials == null ? 0 : MATERIALS);
+
+        Path directory = _file.toAbsolutePath().getParent();
+        Path temporary = null;
+        try {
+            temporary = Files.createTempFile(directory, "mesh", ".tmp");
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                map(channel, READ_WRITE, 0, HEADER).putInt(MAGIC).putInt(VERSION).putInt(flags)
+                        .putInt(vertices).putInt(faces).putInt(0);
+                long offset = HEADER;
+                map(channel, READ_WRITE, offset, 24L * vertices).asDoubleBuffer().put(_mesh.getVertices());
+                offset += 24L * vertices;
+                if (_normals != null) {
+                    map(channel, READ_WRITE, offset, 24L * vertices).asDoubleBuffer().put(_normals);
+                    offset += 24L * vertices;
+                }
+                map(channel, READ_WRITE, offset, 12L * faces).asIntBuffer().put(_mesh.getIndices());
+                offset += 12L * faces;
+                if (_materials != null)
+                    map(channel, READ_WRITE, offset, 4L * faces).asIntBuffer().put(_materials);
+            }
+            Files.move(temporary, _file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            if (temporary != null) {
+                try {
+                    Files.deleteIfExists(temporary);
+                } catch (IOException ignored) {
+                }
+            }
+            throw new IllegalStateException("I/O error - can't write " + _file, e);
+        }
+    }
+
+    /**
+     * the size of a mesh file
+     *
+     * @param _flags    the flags of the optional parts
+     * @param _vertices the number of vertices
+     * @param _faces    the number of faces
+     * @return the size of the file in bytes
+     */
+    private static long size(int _flags, int _vertices, int _faces) {
+        return HEADER + ((_flags & NORMALS) == 0 ? 24L : 48L) * _vertices
+                + ((_flags & MATERIALS) == 0 ? 12L : 16L) * _faces;
+    }
+
+    /**
+     * maps a part of a file in little-endian order - every part is mapped on its own,
+     * so that only each part and not the whole file is limited to 2GB
+     *
+     * @param _channel  the channel of the file
+     * @param _mode     the mode of the mapping
+     * @param _position the position of the part in the file
+     * @param _size     the size of the part
+     * @return the buffer of the part
+     * @throws IOException when the part can't be mapped
+     */
+    private static ByteBuffer map(FileChannel _channel, FileChannel.MapMode _mode, long _position, long _size)
+            throws IOException {
+        if (_size > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("A part of the mesh file is larger than 2GB");
+        return _channel.map(_mode, _position, _size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
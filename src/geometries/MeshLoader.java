@@ -0,0 +1,612 @@
+package geometries;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Loader of triangle meshes from Wavefront OBJ and binary PLY files.
+ * <p>
+ * The file is mapped in memory and parsed in one pass over its bytes - no line or token is turned into a
+ * {@code String} - straight into the vertex and index buffers of a {@link TriangleMesh}, so the heap holds
+ * little more than the mesh itself. The polygons are split in fans of triangles. A large file may be parsed
+ * in parallel: an OBJ file by chunks of lines, the vertices of a PLY file by ranges.
+ * <p>
+ * Only the positions and the faces are read - normals, texture coordinates, groups and materials are skipped.
+ *
+ * @author Yona and Aaron Mimoun
+ */
+public class MeshLoader {
+    /**
+     * size of the chunks of an OBJ file parsed in parallel, and number of vertices of the ranges of a PLY file
+     */
+    private static final int CHUNK_SIZE = 1 << 22;
+    /**
+     * the powers of 10 that are exact doubles
+     */
+    private static final double[] POWERS = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    private MeshLoader() {
+    }
+
+    /**
+     * loads a mesh from a file, by the extension of its name - .obj, .ply or .mesh (a {@link MeshFile})
+     *
+     * @param _file the file
+     * @return the mesh
+     * @throws IllegalArgumentException when the format of the file is unknown or the file is malformed
+     * @throws IllegalStateException    when the file can't be read
+     */
+    public static TriangleMesh load(Path _file) {
+        return load(_file, false);
+    }
+
+    /**
+     * loads a mesh from a file, by the extension of its name - .obj, .ply or .mesh (a {@link MeshFile})
+     *
+     * @param _file     the file
+     * @param _parallel whether a large file is parsed by several tasks of the fork-join pool
+     * @return the mesh
+     * @throws IllegalArgumentException when the format of the file is unknown or the file is malformed
+     * @throws IllegalStateException    when the file can't be read
+     */
+    public static TriangleMesh load(Path _file, boolean _parallel) {
+        String name = _file.getFileName().toString().toLowerCase();
+        if (name.endsWith(".mesh")) return MeshFile.read(_file).toMesh();
+        boolean obj = name.endsWith(".obj");
+        if (!obj && !name.endsWith(".ply"))
+            throw new IllegalArgumentException("Unknown mesh format: " + _file);
+        ByteBuffer buffer = map(_file);
+        int chunkSize = _parallel ? CHUNK_SIZE : Integer.MAX_VALUE;
+        return obj ? readObj(buffer, chunkSize) : readPly(buffer, chunkSize);
+    }
+
+    /**
+     * maps a whole file in memory
+     *
+     * @param _file the file
+     * @return the read-only buffer of the file
+     * @throws IllegalStateException when the file can't be read
+     */
+    static ByteBuffer map(Path _file) {
+        try (FileChannel channel = FileChannel.open(_file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new IllegalArgumentException("The file is larger than 2GB: " + _file);
+            // the mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw new IllegalStateException("I/O error - can't read " + _file, e);
+        }
+    }
+
+    // ***************** Buffers ********************** //
+
+    /**
+     * growable array of doubles
+     */
+    private static class Doubles {
+        double[] data = new double[1024];
+        int size = 0;
+
+        void add(double _value) {
+            if (size == data.length) data = Arrays.copyOf(data, 2 * size);
+            data[size++] = _value;
+        }
+    }
+
+    /**
+     * growable array of ints
+     */
+    private static class Ints {
+        int[] data = new int[1024];
+        int size = 0;
+
+        void add(int _value) {
+            if (size == data.length) data = Arrays.copyOf(data, 2 * size);
+            data[size++] = _value;
+        }
+    }
+
+    // ***************** OBJ ********************** //
+
+    /**
+     * the vertices and faces of a chunk of lines of an OBJ file
+     */
+    private static class ObjChunk {
+        final ByteBuffer buffer;
+        final int end;
+        int position;
+        final Doubles vertices = new Doubles();
+        final Ints indices = new Ints();
+        /**
+         * the positions in {@link #indices} of the indexes counted back from the vertices of the chunk,
+         * to be moved by the vertices of the chunks before it
+         */
+        final Ints relative = new Ints();
+
+        /**
+         * constructor for a chunk of lines
+         *
+         * @param _buffer the file
+         * @param _start  the first byte of the chunk, at the start of a line
+         * @param _end    the byte after the chunk, after the end of a line
+         */
+        ObjChunk(ByteBuffer _buffer, int _start, int _end) {
+            buffer = _buffer;
+            position = _start;
+            end = _end;
+        }
+
+        /**
+         * parses the lines of the chunk
+         *
+         * @return the chunk object
+         */
+        ObjChunk parse() {
+            Ints polygon = new Ints();
+            Ints counted = new Ints();
+            while (position < end) {
+                skipBlanks();
+                if (position < end) {
+                    byte first = buffer.get(position);
+                    byte second = position + 1 < end ? buffer.get(position + 1) : (byte) '\n';
+                    if (first == 'v' && (second == ' ' || second == '\t')) {
+                        ++position;
+                        for (int i = 0; i < 3; ++i)
+                            vertices.add(parseDouble(this));
+                    } else if (first == 'f' && (second == ' ' || second == '\t')) {
+                        ++position;
+                        parseFace(polygon, counted);
+                    }
+                }
+                skipLine();
+            }
+            return this;
+        }
+
+        /**
+         * parses the vertices of a face and splits it in a fan of triangles
+         *
+         * @param _polygon the buffer of the vertices of the face
+         * @param _counted the buffer of whether each vertex of the face is counted back
+         */
+        private void parseFace(Ints _polygon, Ints _counted) {
+            _polygon.size = 0;
+            _counted.size = 0;
+            while (true) {
+                skipBlanks();
+                if (position >= end || isEndOfLine(buffer.get(position))) break;
+                int index = parseInt(this);
+                if (index == 0) throw error("Vertex index 0");
+                // the texture coordinates and the normal after the slashes are skipped
+                while (position < end && !isBlank(buffer.get(position)) && !isEndOfLine(buffer.get(position)))
+                    ++position;
+                // a negative index counts back from the last vertex read so far - in this chunk,
+                // it is moved later by the vertices of the chunks before it
+                _polygon.add(index > 0 ? index - 1 : vertices.size / 3 + index);
+                _counted.add(index > 0 ? 0 : 1);
+            }
+            if (_polygon.size < 3) throw error("A face needs three vertices");
+            for (int i = 2; i < _polygon.size; ++i) {
+                add(_polygon, _counted, 0);
+                add(_polygon, _counted, i - 1);
+                add(_polygon, _counted, i);
+            }
+        }
+
+        /**
+         * adds a vertex of a face to the triangles
+         *
+         * @param _polygon the vertices of the face
+         * @param _counted whether each vertex of the face is counted back
+         * @param _k       the vertex of the face
+         */
+        private void add(Ints _polygon, Ints _counted, int _k) {
+            if (_counted.data[_k] != 0) relative.add(indices.size);
+            indices.add(_polygon.data[_k]);
+        }
+
+        private void skipBlanks() {
+            while (position < end && isBlank(buffer.get(position))) ++position;
+        }
+
+        private void skipLine() {
+            while (position < end && buffer.get(position) != '\n') ++position;
+            ++position;
+        }
+
+        IllegalArgumentException error(String _message) {
+            return new IllegalArgumentException(_message + " at byte " + position + " of the OBJ file");
+        }
+    }
+
+    /**
+     * reads a mesh from the bytes of an OBJ file
+     *
+     * @param _buffer    the file
+     * @param _chunkSize the size of the chunks parsed by separate tasks of the fork-join pool
+     * @return the mesh
+     * @throws IllegalArgumentException when the file is malformed
+     */
+    static TriangleMesh readObj(ByteBuffer _buffer, int _chunkSize) {
+        int size = _buffer.limit();
+        List<ObjChunk> chunks = new ArrayList<>();
+        int start = 0;
+        while (start < size) {
+            int end = (int) Math.min(size, (long) start + _chunkSize);
+            while (end < size && _buffer.get(end - 1) != '\n') ++end;
+            chunks.add(new ObjChunk(_buffer, start, end));
+            start = end;
+        }
+        if (chunks.size() == 1)
+            chunks.get(0).parse();
+        else
+            ForkJoinTask.invokeAll(chunks.stream().map(c -> ForkJoinTask.adapt(c::parse)).toList());
+
+        // the chunks are put one after the other - the relative indexes move by the vertices before their chunk
+        int vertexCount = 0, indexCount = 0;
+        for (ObjChunk chunk : chunks) {
+            vertexCount += chunk.vertices.size;
+            indexCount += chunk.indices.size;
+        }
+        double[] vertices = new double[vertexCount];
+        int[] indices = new int[indexCount];
+        int v = 0, i = 0;
+        for (ObjChunk chunk : chunks) {
+            System.arraycopy(chunk.vertices.data, 0, vertices, v, chunk.vertices.size);
+            System.arraycopy(chunk.indices.data, 0, indices, i, chunk.indices.size);
+            for (int k = 0; k < chunk.relative.size; ++k)
+                indices[i + chunk.relative.data[k]] += v / 3;
+            v += chunk.vertices.size;
+            i += chunk.indices.size;
+        }
+        return new TriangleMesh(vertices, indices);
+    }
+
+    // ***************** Numbers ********************** //
+
+    private static boolean isBlank(byte _b) {
+        return _b == ' ' || _b == '\t';
+    }
+
+    private static boolean isEndOfLine(byte _b) {
+        return _b == '\n' || _b == '\r' || _b == '#';
+    }
+
+    private static boolean isDigit(byte _b) {
+        return _b >= '0' && _b <= '9';
+    }
+
+    /**
+     * parses an integer after blanks
+     *
+     * @param _chunk the chunk, at the integer
+     * @return the integer
+     * @throws IllegalArgumentException when there is no integer
+     */
+    private static int parseInt(ObjChunk _chunk) {
+        _chunk.skipBlanks();
+        ByteBuffer buffer = _chunk.buffer;
+        boolean negative = _chunk.position < _chunk.end && buffer.get(_chunk.position) == '-';
+        if (negative || _chunk.position < _chunk.end && buffer.get(_chunk.position) == '+') ++_chunk.position;
+        if (_chunk.position >= _chunk.end || !isDigit(buffer.get(_chunk.position)))
+            throw _chunk.error("Integer expected");
+        long value = 0;
+        while (_chunk.position < _chunk.end && isDigit(buffer.get(_chunk.position))) {
+            value = value * 10 + buffer.get(_chunk.position++) - '0';
+            if (value > Integer.MAX_VALUE) throw _chunk.error("Integer too large");
+        }
+        return (int) (negative ? -value : value);
+    }
+
+    /**
+     * parses a decimal number after blanks. A number of up to 15 significant digits with a small exponent
+     * is computed exactly from its digits; any other one is given to {@link Double#parseDouble}
+     *
+     * @param _chunk the chunk, at the number
+     * @return the number
+     * @throws IllegalArgumentException when there is no number
+     */
+    private static double parseDouble(ObjChunk _chunk) {
+        _chunk.skipBlanks();
+        ByteBuffer buffer = _chunk.buffer;
+        int start = _chunk.position;
+        int end = _chunk.end;
+        int p = start;
+        boolean negative = p < end && buffer.get(p) == '-';
+        if (negative || p < end && buffer.get(p) == '+') ++p;
+
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean exact = true;
+        boolean any = false;
+        for (; p < end && isDigit(buffer.get(p)); ++p, any = true) {
+            if (digits < 18) {
+                mantissa = mantissa * 10 + buffer.get(p) - '0';
+                if (mantissa != 0) ++digits;
+            } else {
+                ++exponent;
+                exact = false;
+            }
+        }
+        if (p < end && buffer.get(p) == '.') {
+            for (++p; p < end && isDigit(buffer.get(p)); ++p, any = true) {
+                if (digits < 18) {
+                    mantissa = mantissa * 10 + buffer.get(p) - '0';
+                    if (mantissa != 0) ++digits;
+                    --exponent;
+                } else {
+                    exact = false;
+                }
+            }
+        }
+        if (!any) throw _chunk.error("Number expected");
+        if (p < end && (buffer.get(p) == 'e' || buffer.get(p) == 'E')) {
+            ++p;
+            boolean negativeExponent = p < end && buffer.get(p) == '-';
+            if (negativeExponent || p < end && buffer.get(p) == '+') ++p;
+            if (p >= end || !isDigit(buffer.get(p))) throw _chunk.error("Exponent expected");
+            int e = 0;
+            for (; p < end && isDigit(buffer.get(p)); ++p)
+                if (e < 10000) e = e * 10 + buffer.get(p) - '0';
+            exponent += negativeExponent ? -e : e;
+        }
+        _chunk.position = p;
+
+        if (mantissa == 0) return negative ? -0.0 : 0.0;
+        if (exact && digits <= 15 && exponent >= -22 && exponent <= 22) {
+            double value = exponent >= 0 ? mantissa * POWERS[exponent] : mantissa / POWERS[-exponent];
+            return negative ? -value : value;
+        }
+        byte[] text = new byte[p - start];
+        buffer.get(start, text);
+        return Double.parseDouble(new String(text, StandardCharsets.US_ASCII));
+    }
+
+    // ***************** PLY ********************** //
+
+    /**
+     * a property of an element of a PLY file
+     *
+     * @param name      the name of the property
+     * @param type      the type of the property, or of the items of a list
+     * @param countType the type of the size of a list, null for a scalar property
+     */
+    private record Property(String name, String type, String countType) {
+    }
+
+    /**
+     * an element of a PLY file
+     */
+    private static class Element {
+        final String name;
+        final int count;
+        final List<Property> properties = new ArrayList<>();
+
+        Element(String _name, int _count) {
+            name = _name;
+            count = _count;
+        }
+
+        /**
+         * the size of an element made of scalar properties only
+         *
+         * @return the size in bytes
+         * @throws IllegalArgumentException when the element has a list
+         */
+        int size() {
+            int size = 0;
+            for (Property property : properties) {
+                if (property.countType != null)
+                    throw new IllegalArgumentException("Unsupported list in the PLY element " + name);
+                size += sizeOf(property.type);
+            }
+            return size;
+        }
+    }
+
+    /**
+     * the size of a PLY type
+     *
+     * @param _type the type
+     * @return the size in bytes
+     * @throws IllegalArgumentException when the type is unknown
+     */
+    private static int sizeOf(String _type) {
+        return switch (_type) {
+            case "char", "int8", "uchar", "uint8" -> 1;
+            case "short", "int16", "ushort", "uint16" -> 2;
+            case "int", "int32", "uint", "uint32", "float", "float32" -> 4;
+            case "double", "float64" -> 8;
+            default -> throw new IllegalArgumentException("Unknown PLY type " + _type);
+        };
+    }
+
+    /**
+     * reads a value of a PLY type
+     *
+     * @param _buffer   the file, in the byte order of the file
+     * @param _position the position of the value
+     * @param _type     the type
+     * @return the value
+     */
+    private static double read(ByteBuffer _buffer, int _position, String _type) {
+        return switch (_type) {
+            case "char", "int8" -> _buffer.get(_position);
+            case "uchar", "uint8" -> _buffer.get(_position) & 0xff;
+            case "short", "int16" -> _buffer.getShort(_position);
+            case "ushort", "uint16" -> _buffer.getShort(_position) & 0xffff;
+            case "int", "int32" -> _buffer.getInt(_position);
+            case "uint", "uint32" -> _buffer.getInt(_position) & 0xffffffffL;
+            case "float", "float32" -> _buffer.getFloat(_position);
+            default -> _buffer.getDouble(_position);
+        };
+    }
+
+    /**
+     * reads a mesh from the bytes of a binary PLY file
+     *
+     * @param _buffer    the file
+     * @param _chunkSize the number of vertices read by separate tasks of the fork-join pool
+     * @return the mesh
+     * @throws IllegalArgumentException when the file is malformed or not a binary PLY file
+     */
+    static TriangleMesh readPly(ByteBuffer _buffer, int _chunkSize) {
+        // the header is a few short lines of text
+        List<Element> elements = new ArrayList<>();
+        ByteOrder byteOrder = null;
+        int position = 0;
+        int size = _buffer.limit();
+        boolean first = true;
+        while (true) {
+            int end = position;
+            while (end < size && _buffer.get(end) != '\n') ++end;
+            if (end >= size) throw new IllegalArgumentException("The PLY header has no end");
+            byte[] text = new byte[end - position];
+            _buffer.get(position, text);
+            String[] words = new String(text, StandardCharsets.US_ASCII).trim().split("\\s+");
+            position = end + 1;
+            if (first) {
+                if (!words[0].equals("ply")) throw new IllegalArgumentException("Not a PLY file");
+                first = false;
+                continue;
+            }
+            switch (words[0]) {
+                case "format" -> byteOrder = switch (words[1]) {
+                    case "binary_little_endian" -> ByteOrder.LITTLE_ENDIAN;
+                    case "binary_big_endian" -> ByteOrder.BIG_ENDIAN;
+                    default -> throw new IllegalArgumentException("Only binary PLY files are supported");
+                };
+                case "element" -> elements.add(new Element(words[1], Integer.parseInt(words[2])));
+                case "property" -> {
+                    if (elements.isEmpty()) throw new IllegalArgumentException("PLY property out of an element");
+                    elements.get(elements.size() - 1).properties.add(words[1].equals("list")
+                            ? new Property(words[4], words[3], words[2])
+                            : new Property(words[2], words[1], null));
+                }
+                default -> {
+                    // comments and object infos
+                }
+            }
+            if (words[0].equals("end_header")) break;
+        }
+        if (byteOrder == null) throw new IllegalArgumentException("The PLY format is missing");
+        ByteBuffer buffer = _buffer.duplicate().order(byteOrder);
+
+        double[] vertices = null;
+        Ints indices = new Ints();
+        for (Element element : elements) {
+            if (element.name.equals("vertex")) {
+                vertices = readVertices(buffer, position, element, _chunkSize);
+                position += element.count * element.size();
+            } else if (element.name.equals("face")) {
+                position = readFaces(buffer, position, element, indices);
+            } else {
+                position += element.count * element.size();
+            }
+            if (position > size) throw new IllegalArgumentException("The PLY file is truncated");
+        }
+        if (vertices == null) throw new IllegalArgumentException("The PLY file has no vertices");
+        return new TriangleMesh(vertices, Arrays.copyOf(indices.data, indices.size));
+    }
+
+    /**
+     * reads the positions of the vertices of a PLY file
+     *
+     * @param _buffer    the file, in its byte order
+     * @param _position  the position of the first vertex
+     * @param _element   the vertex element
+     * @param _chunkSize the number of vertices read by separate tasks of the fork-join pool
+     * @return the coordinates of the vertices
+     */
+    private static double[] readVertices(ByteBuffer _buffer, int _position, Element _element, int _chunkSize) {
+        int stride = _element.size();
+        int[] offsets = new int[3];
+        String[] types = new String[3];
+        Arrays.fill(offsets, -1);
+        int offset = 0;
+        for (Property property : _element.properties) {
+            int axis = switch (property.name) {
+                case "x" -> 0;
+                case "y" -> 1;
+                case "z" -> 2;
+                default -> -1;
+            };
+            if (axis >= 0) {
+                offsets[axis] = offset;
+                types[axis] = property.type;
+            }
+            offset += sizeOf(property.type);
+        }
+        if (offsets[0] < 0 || offsets[1] < 0 || offsets[2] < 0)
+            throw new IllegalArgumentException("The PLY vertices have no x, y and z");
+        if (_position + (long) stride * _element.count > _buffer.limit())
+            throw new IllegalArgumentException("The PLY file is truncated");
+
+        double[] vertices = new double[3 * _element.count];
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        int start = 0;
+        while (start < _element.count) {
+            int from = start, to = (int) Math.min(_element.count, (long) start + _chunkSize);
+            tasks.add(ForkJoinTask.adapt(() -> {
+                for (int v = from; v < to; ++v)
+                    for (int axis = 0; axis < 3; ++axis)
+                        vertices[3 * v + axis] = read(_buffer, _position + v * stride + offsets[axis], types[axis]);
+            }));
+            start = to;
+        }
+        if (tasks.size() == 1) tasks.get(0).invoke();
+        else ForkJoinTask.invokeAll(tasks);
+        return vertices;
+    }
+
+    /**
+     * reads the faces of a PLY file and splits them in fans of triangles
+     *
+     * @param _buffer   the file, in its byte order
+     * @param _position the position of the first face
+     * @param _element  the face element
+     * @param _indices  receives the vertex indexes of the triangles
+     * @return the position after the faces
+     */
+    private static int readFaces(ByteBuffer _buffer, int _position, Element _element, Ints _indices) {
+        int size = _buffer.limit();
+        int position = _position;
+        for (int f = 0; f < _element.count; ++f) {
+            for (Property property : _element.properties) {
+                if (property.countType == null) {
+                    position += sizeOf(property.type);
+                    continue;
+                }
+                int itemSize = sizeOf(property.type);
+                if (position + sizeOf(property.countType) > size)
+                    throw new IllegalArgumentException("The PLY file is truncated");
+                int count = (int) read(_buffer, position, property.countType);
+                position += sizeOf(property.countType);
+                if (position + (long) count * itemSize > size)
+                    throw new IllegalArgumentException("The PLY file is truncated");
+                if (property.name.equals("vertex_indices") || property.name.equals("vertex_index")) {
+                    if (count < 3) throw new IllegalArgumentException("A face needs three vertices");
+                    int first = (int) read(_buffer, position, property.type);
+                    for (int i = 2; i < count; ++i) {
+                        _indices.add(first);
+                        _indices.add((int) read(_buffer, position + (i - 1) * itemSize, property.type));
+                        _indices.add((int) read(_buffer, position + i * itemSize, property.type));
+                    }
+                }
+                position += count * itemSize;
+            }
+        }
+        return position;
+    }
+}
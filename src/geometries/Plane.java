@@ -1,11 +1,17 @@
 package geometries;
 
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
 import primitives.Point;
 import primitives.Ray;
+import primitives.Vec3d;
 import primitives.Vector;
 
 import java.util.List;
 
+import static geometries.RayPacket.ACCURACY;
+import static geometries.RayPacket.NAN;
+import static geometries.RayPacket.SPECIES;
 import static primitives.Util.alignZero;
 import static primitives.Util.isZero;
 
@@ -82,21 +88,75 @@ public class Plane extends Geometry {
         Point p0 = _ray.getPoint();
         Vector v = _ray.getDir();
 
-        Vector u;
-        try {
-            u = q0.subtract(p0);
-        } catch (IllegalArgumentException ignore) {
-            return null;
-        }
+        Vec3d u = new Vec3d(q0).subtract(p0);
+        if (u.isZero()) return null;
 
         double nv = normal.dotProduct(v);
         //ray parallel to plane or ray begins in the same point which appears as the plane's reference point
         if (isZero(nv)) return null;
 
-        double t = alignZero(normal.dotProduct(u) / nv);
+        double t = alignZero(u.dot(normal) / nv);
         return t > 0 && alignZero(t - _maxDistance) <= 0
                 ? List.of(new GeoPoint(this, _ray.getPoint(t)))
                 : null;
     }
 
+    @Override
+    protected void findClosestIntersectionsHelper(RayPacket _packet) {
+        int lane = 0;
+        for (int bound = _packet.vectorLanes(); lane < bound; lane += SPECIES.length()) {
+            intersect(_packet, lane);
+            _packet.clip(lane);
+        }
+        for (; lane < _packet.width; ++lane)
+            _packet.distances[lane] = intersect(_packet.ox[lane], _packet.oy[lane], _packet.oz[lane],
+                    _packet.dx[lane], _packet.dy[lane], _packet.dz[lane], _packet.maxDistance[lane]);
+        _packet.hitAll(this);
+    }
+
+    /**
+     * the intersections of the lines of one vector of lanes of a packet with the plane, as {@link #intersect}
+     * on each lane, kept in the distances of the packet for {@link RayPacket#clip}
+     *
+     * @param _packet the packet
+     * @param _lane   the first lane of the vector
+     */
+    private void intersect(RayPacket _packet, int _lane) {
+        double nx = normal.getX(), ny = normal.getY(), nz = normal.getZ();
+        DoubleVector ux = DoubleVector.broadcast(SPECIES, q0.getX())
+                .sub(DoubleVector.fromArray(SPECIES, _packet.ox, _lane));
+        DoubleVector uy = DoubleVector.broadcast(SPECIES, q0.getY())
+                .sub(DoubleVector.fromArray(SPECIES, _packet.oy, _lane));
+        DoubleVector uz = DoubleVector.broadcast(SPECIES, q0.getZ())
+                .sub(DoubleVector.fromArray(SPECIES, _packet.oz, _lane));
+        DoubleVector nv = DoubleVector.fromArray(SPECIES, _packet.dx, _lane).mul(nx)
+                .add(DoubleVector.fromArray(SPECIES, _packet.dy, _lane).mul(ny))
+                .add(DoubleVector.fromArray(SPECIES, _packet.dz, _lane).mul(nz));
+        // the lanes that start at the reference point of the plane or are parallel to it
+        VectorMask<Double> miss = ux.abs().max(uy.abs()).max(uz.abs()).lt(ACCURACY).or(nv.abs().lt(ACCURACY));
+        ux.mul(nx).add(uy.mul(ny)).add(uz.mul(nz)).div(nv).blend(NAN, miss).intoArray(_packet.distances, _lane);
+    }
+
+    /**
+     * the intersection of a ray with the plane, on raw coordinates
+     *
+     * @param _ox          ray origin x
+     * @param _oy          ray origin y
+     * @param _oz          ray origin z
+     * @param _dx          ray direction x
+     * @param _dy          ray direction y
+     * @param _dz          ray direction z
+     * @param _maxDistance the maximum distance between the point to the start of the ray
+     * @return the distance of the intersection from the start of the ray, or {@link Double#NaN} if there is none
+     */
+    private double intersect(double _ox, double _oy, double _oz, double _dx, double _dy, double _dz,
+                             double _maxDistance) {
+        double ux = q0.getX() - _ox, uy = q0.getY() - _oy, uz = q0.getZ() - _oz;
+        double nx = normal.getX(), ny = normal.getY(), nz = normal.getZ();
+        // the ray starts at the reference point of the plane or is parallel to it
+        double nv = _dx * nx + _dy * ny + _dz * nz;
+        if (isZero(ux) && isZero(uy) && isZero(uz) || isZero(nv)) return Double.NaN;
+        double t = alignZero((ux * nx + uy * ny + uz * nz) / nv);
+        return t <= 0 || alignZero(t - _maxDistance) > 0 ? Double.NaN : t;
+    }
 }
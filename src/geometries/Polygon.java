@@ -26,6 +26,62 @@ public class Polygon extends Geometry {
      */
     protected final Plane plane;
     private final int size;
+    /**
+     * the data of the inside test of {@link #intersect}, null for a subclass with an intersection of its own
+     */
+    private final Projection projection;
+
+    /**
+     * the polygon projected on two axes of the coordinates, for the inside test of a point of its plane
+     */
+    private static final class Projection {
+        /**
+         * the unit normal of the plane and its distance from the origin: the plane is n . p = nd
+         */
+        final double nx, ny, nz, nd;
+        /**
+         * the two axes the polygon is projected on - the dominant axis of its normal is dropped
+         */
+        final int axisU, axisV;
+        /**
+         * the edges as lines in the projection: a projected point (u, v) is inside the polygon when
+         * edgeA[i] * u + edgeB[i] * v + edgeC[i] &gt; 0 for every edge i. (edgeA[i], edgeB[i]) is a unit
+         * vector, so the value is the distance from the edge in the projection
+         */
+        final double[] edgeA, edgeB, edgeC;
+
+        /**
+         * computes the projection of a polygon
+         *
+         * @param _vertices the vertices of the polygon
+         * @param _normal   the normal of its plane
+         */
+        Projection(Point[] _vertices, Vector _normal) {
+            int size = _vertices.length;
+            nx = _normal.getX();
+            ny = _normal.getY();
+            nz = _normal.getZ();
+            nd = nx * _vertices[0].getX() + ny * _vertices[0].getY() + nz * _vertices[0].getZ();
+            double ax = Math.abs(nx), ay = Math.abs(ny), az = Math.abs(nz);
+            int dominant = ax >= ay && ax >= az ? 0 : ay >= az ? 1 : 2;
+            axisU = dominant == 0 ? 1 : 0;
+            axisV = dominant == 2 ? 1 : 2;
+            // the projection keeps the orientation of the polygon when the dominant coordinate of the normal is positive
+            double orientation = (dominant == 0 ? nx : dominant == 1 ? -ny : nz) > 0 ? 1 : -1;
+            edgeA = new double[size];
+            edgeB = new double[size];
+            edgeC = new double[size];
+            for (int i = 0; i < size; ++i) {
+                Point from = _vertices[i], to = _vertices[(i + 1) % size];
+                double u0 = coordinate(from, axisU), v0 = coordinate(from, axisV);
+                double du = coordinate(to, axisU) - u0, dv = coordinate(to, axisV) - v0;
+                double length = Math.sqrt(du * du + dv * dv) * orientation;
+                edgeA[i] = -dv / length;
+                edgeB[i] = du / length;
+                edgeC[i] = -(edgeA[i] * u0 + edgeB[i] * v0);
+            }
+        }
+    }
 
     /**
      * Polygon constructor based on vertices list. The list must be ordered by edge
@@ -50,6 +106,19 @@ public class Polygon extends Geometry {
      *                                  </ul>
      */
     public Polygon(Point... _vertices) {
+        this(true, _vertices);
+    }
+
+    /**
+     * Polygon constructor for the subclasses, which may intersect rays on their own - like {@link Triangle} -
+     * and don't need the data of the inside test of the polygon
+     *
+     * @param _insideTest whether to compute the data of the inside test of {@link #intersect}
+     * @param _vertices   list of vertices according to their order by edge path
+     * @throws IllegalArgumentException in any case of illegal combination of vertices,
+     *                                  see {@link #Polygon(Point...)}
+     */
+    protected Polygon(boolean _insideTest, Point... _vertices) {
         size = _vertices.length;
         if (size < 3)
             throw new IllegalArgumentException("A polygon can't have less than 3 vertices");
@@ -59,6 +128,9 @@ public class Polygon extends Geometry {
         // polygon with this plane.
         // The plane holds the invariant normal (orthogonal unit) vector to the polygon
         plane = new Plane(_vertices[0], _vertices[1], _vertices[2]);
+
+        // the data of the inside test, computed once
+        projection = _insideTest ? new Projection(_vertices, plane.getNormal()) : null;
         if (size == 3) return; // no need for more tests for a Triangle
 
         Vector n = plane.getNormal();
@@ -99,42 +171,83 @@ public class Polygon extends Geometry {
         return plane.getNormal();
     }
 
+    @Override
+    protected BoundingBox calcBoundingBox() {
+        return BoundingBox.of(vertices);
+    }
+
+
+    /**
+     * a coordinate of a point
+     *
+     * @param _p    the point
+     * @param _axis 0 for x, 1 for y, 2 for z
+     * @return the coordinate
+     */
+    private static double coordinate(Point _p, int _axis) {
+        return _axis == 0 ? _p.getX() : _axis == 1 ? _p.getY() : _p.getZ();
+    }
 
     @Override
     protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
-        //all the intersection between ray and plane
-        List<GeoPoint> intersections = plane.findGeoIntersections(ray, maxDistance);
-        if (intersections == null || intersections.isEmpty())
-            return null;
-
-        Point p0 = ray.getPoint(); //the start ray point
-        Vector v = ray.getDir();//rays direction
-
-//        double distance = intersections.get(0).point.distance(ray.getP0());
-//        //check that the intersection point is closer to ray origin
-//        if (alignZero(distance - maxDistance) > 0) {
-//            return null;
-//        }
-        Vector v1 = vertices.get(1).subtract(p0); //vector from the ray start point to the polygon vertices
-        Vector v2 = vertices.get(0).subtract(p0); //vector from the ray start point to the polygon vertices
-        double sign = v.dotProduct(v1.crossProduct(v2));
-        if (isZero(sign))//out of the polygon
-            return null;
-
-        boolean positive = sign > 0;
-
-        for (int i = vertices.size() - 1; i > 0; --i) { //foreach vertices
-            v1 = v2;
-            v2 = vertices.get(i).subtract(p0);//vector from the ray start point to the polygon vertices
-            sign = alignZero(v.dotProduct(v1.crossProduct(v2)));
-            if (isZero(sign)) return null; //out of the polygon
-            if (positive != (sign > 0)) return null;//out of the polygon
-        }
+        double t = intersect(ray, maxDistance);
+        return Double.isNaN(t) ? null : List.of(new GeoPoint(this, ray.getPoint(t)));
+    }
 
-        intersections.get(0).geometry = this;
+    @Override
+    protected GeoPoint findClosestIntersectionHelper(Ray _ray, double _maxDistance) {
+        double t = intersect(_ray, _maxDistance);
+        return Double.isNaN(t) ? null : new GeoPoint(this, _ray.getPoint(t));
+    }
 
-        return intersections;
+    @Override
+    protected void findClosestIntersectionsHelper(RayPacket _packet) {
+        for (int lane = 0; lane < _packet.width; ++lane)
+            _packet.distances[lane] = intersect(_packet.ox[lane], _packet.oy[lane], _packet.oz[lane],
+                    _packet.dx[lane], _packet.dy[lane], _packet.dz[lane], _packet.maxDistance[lane]);
+        _packet.hitAll(this);
     }
 
+    /**
+     * intersection of a ray with the polygon
+     *
+     * @param _ray         the ray
+     * @param _maxDistance the maximum distance between the point to the start of the ray
+     * @return the distance of the intersection from the start of the ray, or {@link Double#NaN} if there is none
+     */
+    private double intersect(Ray _ray, double _maxDistance) {
+        Point p0 = _ray.getPoint();
+        Vector v = _ray.getDir();
+        return intersect(p0.getX(), p0.getY(), p0.getZ(), v.getX(), v.getY(), v.getZ(), _maxDistance);
+    }
 
+    /**
+     * intersection of a ray with the plane of the polygon, then the inside test of the intersection point
+     * in the projection of the polygon, with the precomputed edges and no temporary object.
+     * A ray through an edge or a vertex doesn't intersect the polygon.
+     *
+     * @param _ox          ray origin x
+     * @param _oy          ray origin y
+     * @param _oz          ray origin z
+     * @param _dx          ray direction x
+     * @param _dy          ray direction y
+     * @param _dz          ray direction z
+     * @param _maxDistance the maximum distance between the point to the start of the ray
+     * @return the distance of the intersection from the start of the ray, or {@link Double#NaN} if there is none
+     */
+    private double intersect(double _ox, double _oy, double _oz, double _dx, double _dy, double _dz,
+                             double _maxDistance) {
+        Projection p = projection;
+        double nv = p.nx * _dx + p.ny * _dy + p.nz * _dz;
+        if (isZero(nv)) return Double.NaN; // ray parallel to the plane
+        double t = alignZero((p.nd - p.nx * _ox - p.ny * _oy - p.nz * _oz) / nv);
+        if (t <= 0 || alignZero(t - _maxDistance) > 0) return Double.NaN;
+
+        double px = _ox + t * _dx, py = _oy + t * _dy, pz = _oz + t * _dz;
+        double u = p.axisU == 0 ? px : py;
+        double w = p.axisV == 1 ? py : pz;
+        for (int i = 0; i < size; ++i)
+            if (alignZero(p.edgeA[i] * u + p.edgeB[i] * w + p.edgeC[i]) <= 0) return Double.NaN;
+        return t;
+    }
 }
@@ -0,0 +1,409 @@
+package geometries;
+
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Compressed form of a bounding volume hierarchy ({@link BVH}) for large scenes, where the hierarchy
+ * would take more memory than the geometries. Only the box of the root is kept in doubles: the box of
+ * any other node is quantized to 8 or 16 bits per coordinate on a grid spanning the box of its parent,
+ * and the box of each primitive of a leaf on a grid spanning the box of the leaf. The coordinates are
+ * rounded outwards, so a quantized box always contains the exact one and no hit is lost - a ray may only
+ * enter a few more boxes.
+ * <p>
+ * A box takes one {@code long} with 8 bits per coordinate, two with 16 bits, and the children or
+ * primitives of a node are packed in one {@code int}. With the order of the primitives, a node and a
+ * primitive take 12 bytes each with 8 bits and 20 with 16, instead of about 60 in the hierarchy.
+ * The traversal pays for it by decoding the boxes of the children of every node it visits.
+ *
+ * @author Yona and Aaron Mimoun
+ */
+class QuantizedBVH extends Intersectable {
+    /**
+     * maximal number of primitives of a leaf - the larger leaves of the hierarchy are split
+     */
+    private static final int MAX_LEAF_SIZE = 32;
+    /**
+     * number of bits of the size of a leaf in its packed link
+     */
+    private static final int COUNT_BITS = 5;
+    /**
+     * size of the traversal stack - the depth of the hierarchy, and of the subtrees of its large leaves
+     */
+    private static final int STACK_SIZE = 128;
+
+    /**
+     * the traversal state of a render thread
+     */
+    private static class Traversal {
+        /**
+         * the nodes waiting to be visited
+         */
+        final int[] nodes = new int[STACK_SIZE];
+        /**
+         * the decoded boxes of the waiting nodes, 6 coordinates each
+         */
+        final double[] boxes = new double[6 * STACK_SIZE];
+        /**
+         * the decoded box of the visited node, then of its two children
+         */
+        final double[] current = new double[18];
+    }
+
+    private final BVH.Primitives primitives;
+    /**
+     * the number of bits of each quantized coordinate
+     */
+    private final int bits;
+    /**
+     * the largest quantized coordinate, the number of steps of a grid
+     */
+    private final int steps;
+    /**
+     * 1 / steps
+     */
+    private final double unit;
+    /**
+     * the number of longs of a quantized box
+     */
+    private final int stride;
+    /**
+     * the box of the root, (minX, minY, minZ, maxX, maxY, maxZ)
+     */
+    private final double[] root;
+    /**
+     * the box of node k quantized on the grid of the box of its parent, at [stride * k, stride * k + stride)
+     */
+    private final long[] nodes;
+    /**
+     * the children or primitives of node k:
+     * <ul>
+     * <li>an inner node has -1 - its second child - the first one is node k + 1</li>
+     * <li>a leaf has its first primitive in {@link #order} shifted by {@link #COUNT_BITS},
+     * and its number of primitives - 1 in the low bits</li>
+     * </ul>
+     */
+    private final int[] links;
+    /**
+     * the indexes of the primitives in the order of the leaves
+     */
+    private final int[] order;
+    /**
+     * the box of primitive order[i] quantized on the grid of the box of its leaf, at [stride * i, stride * i + stride)
+     */
+    private final long[] items;
+    /**
+     * the exact boxes of the primitives in the order of the leaves, used only while compressing
+     */
+    private double[] exact;
+    /**
+     * next free node while compressing
+     */
+    private int next;
+    private final ThreadLocal<Traversal> traversal = ThreadLocal.withInitial(Traversal::new);
+
+    /**
+     * constructor that compresses a hierarchy
+     *
+     * @param _bvh  the hierarchy, which is no longer needed after this
+     * @param _bits the number of bits of each quantized coordinate - 8 or 16
+     * @throws IllegalArgumentException when the number of bits is neither 8 nor 16,
+     *                                  or there are too many primitives for the packed links
+     */
+    QuantizedBVH(BVH _bvh, int _bits) {
+        if (_bits != 8 && _bits != 16)
+            throw new IllegalArgumentException("The coordinates are quantized to 8 or 16 bits");
+        if (_bvh.order.length >= 1 << (31 - COUNT_BITS))
+            throw new IllegalArgumentException("Too many primitives for a compressed hierarchy");
+        primitives = _bvh.primitives;
+        bits = _bits;
+        steps = (1 << _bits) - 1;
+        unit = 1.0 / steps;
+        stride = _bits == 8 ? 1 : 2;
+        order = _bvh.order;
+        items = new long[stride * order.length];
+
+        int count = _bvh.nodeData.length == 0 ? 0 : count(_bvh, 0);
+        nodes = new long[stride * count];
+        links = new int[count];
+        root = new double[6];
+        if (count > 0) {
+            System.arraycopy(_bvh.nodeBounds, 0, root, 0, 6);
+            exact = _bvh.itemBounds;
+            compress(_bvh, 0, root);
+            exact = null;
+        }
+    }
+
+    /**
+     * the number of nodes of the compressed subtree of a node of the hierarchy
+     *
+     * @param _bvh  the hierarchy
+     * @param _node the node
+     * @return the number of nodes, with the subtrees of the large leaves
+     */
+    private static int count(BVH _bvh, int _node) {
+        int data = _bvh.nodeData[2 * _node + 1];
+        return data < 0 ? 1 + count(_bvh, _node + 1) + count(_bvh, _bvh.nodeData[2 * _node]) : count(data);
+    }
+
+    /**
+     * the number of nodes of the compressed subtree of a leaf
+     *
+     * @param _primitives the number of primitives of the leaf
+     * @return the number of nodes - a leaf larger than {@link #MAX_LEAF_SIZE} is split in halves
+     */
+    private static int count(int _primitives) {
+        return _primitives <= MAX_LEAF_SIZE ? 1 : 1 + count(_primitives / 2) + count(_primitives - _primitives / 2);
+    }
+
+    /**
+     * compresses the subtree of a node of the hierarchy, in the same depth-first order
+     *
+     * @param _bvh    the hierarchy
+     * @param _node   the node
+     * @param _parent the decoded box of the parent of the node
+     */
+    private void compress(BVH _bvh, int _node, double[] _parent) {
+        int node = next++;
+        double[] box = quantize(_bvh.nodeBounds, 6 * _node, _parent, nodes, stride * node);
+        int data = _bvh.nodeData[2 * _node + 1];
+        if (data >= 0) {
+            compressLeaf(_bvh.nodeData[2 * _node], data, node, box);
+            return;
+        }
+        compress(_bvh, _node + 1, box);
+        links[node] = -1 - next;
+        compress(_bvh, _bvh.nodeData[2 * _node], box);
+    }
+
+    /**
+     * compresses a leaf whose box is already quantized - a large leaf becomes a subtree
+     * of leaves of at most {@link #MAX_LEAF_SIZE} primitives
+     *
+     * @param _start the first primitive of the leaf in the order
+     * @param _count the number of primitives of the leaf
+     * @param _node  the compressed node of the leaf
+     * @param _box   the decoded box of the node
+     */
+    private void compressLeaf(int _start, int _count, int _node, double[] _box) {
+        if (_count <= MAX_LEAF_SIZE) {
+            links[_node] = _start << COUNT_BITS | (_count - 1);
+            for (int i = _start; i < _start + _count; ++i)
+                quantize(exact, 6 * i, _box, items, stride * i);
+            return;
+        }
+        int half = _count / 2;
+        int first = next++;
+        compressLeaf(_start, half, first, quantize(union(_start, half), 0, _box, nodes, stride * first));
+        links[_node] = -1 - next;
+        int second = next++;
+        compressLeaf(_start + half, _count - half, second,
+                quantize(union(_start + half, _count - half), 0, _box, nodes, stride * second));
+    }
+
+    /**
+     * the union of the exact boxes of a range of primitives
+     *
+     * @param _start the first primitive in the order
+     * @param _count the number of primitives
+     * @return the union box as (minX, minY, minZ, maxX, maxY, maxZ)
+     */
+    private double[] union(int _start, int _count) {
+        double[] box = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+                Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        for (int i = _start; i < _start + _count; ++i)
+            for (int c = 0; c < 6; ++c)
+                box[c] = c < 3 ? Math.min(box[c], exact[6 * i + c]) : Math.max(box[c], exact[6 * i + c]);
+        return box;
+    }
+
+    /**
+     * quantizes a box on the grid of a box that contains it, rounding outwards
+     *
+     * @param _bounds the array of the box
+     * @param _offset the index of the minX of the box in the array
+     * @param _parent the containing box
+     * @param _target the array of the quantized boxes
+     * @param _at     the index of the quantized box in its array
+     * @return the decoded quantized box, which contains the box
+     */
+    private double[] quantize(double[] _bounds, int _offset, double[] _parent, long[] _target, int _at) {
+        double[] decoded = new double[6];
+        for (int axis = 0; axis < 3; ++axis) {
+            double min = _parent[axis];
+            double max = _parent[3 + axis];
+            double scale = (max - min) * unit;
+            double low = _bounds[_offset + axis];
+            double high = _bounds[_offset + 3 + axis];
+
+            // the lower coordinate counts steps up from the lower side of the grid, the upper one down
+            // from its upper side, so both sides of the grid are exact
+            int qLow = 0;
+            int qHigh = steps;
+            if (scale > 0) {
+                qLow = (int) Math.max(0, Math.min(steps, Math.floor((low - min) / scale)));
+                while (qLow > 0 && min + qLow * scale > low) --qLow;
+                qHigh = steps - (int) Math.max(0, Math.min(steps, Math.floor((max - high) / scale)));
+                while (qHigh < steps && max - (steps - qHigh) * scale < high) ++qHigh;
+            }
+            decoded[axis] = min + qLow * scale;
+            decoded[3 + axis] = max - (steps - qHigh) * scale;
+            put(_target, _at, axis, qLow);
+            put(_target, _at, 3 + axis, qHigh);
+        }
+        return decoded;
+    }
+
+    /**
+     * writes a quantized coordinate of a box
+     *
+     * @param _target the array of the quantized boxes
+     * @param _at     the index of the quantized box in its array
+     * @param _c      the index of the coordinate, 0 to 5 for minX to maxZ
+     * @param _q      the quantized coordinate
+     */
+    private void put(long[] _target, int _at, int _c, int _q) {
+        int bit = _c * bits;
+        _target[_at + (bit >>> 6)] |= (long) _q << (bit & 63);
+    }
+
+    /**
+     * decodes a quantized box
+     *
+     * @param _source the array of the quantized boxes
+     * @param _at     the index of the quantized box in its array
+     * @param _parent the array of the box whose grid the box is quantized on
+     * @param _po     the index of the minX of the grid box in its array
+     * @param _out    the array receiving the decoded box
+     * @param _oo     the index receiving its minX
+     */
+    private void decode(long[] _source, int _at, double[] _parent, int _po, double[] _out, int _oo) {
+        long mask = steps;
+        for (int axis = 0; axis < 3; ++axis) {
+            double min = _parent[_po + axis];
+            double max = _parent[_po + 3 + axis];
+            double scale = (max - min) * unit;
+            int bit = axis * bits;
+            long qLow = _source[_at + (bit >>> 6)] >>> (bit & 63) & mask;
+            bit = (3 + axis) * bits;
+            long qHigh = _source[_at + (bit >>> 6)] >>> (bit & 63) & mask;
+            _out[_oo + axis] = min + qLow * scale;
+            _out[_oo + 3 + axis] = max - (steps - qHigh) * scale;
+        }
+    }
+
+    @Override
+    protected BoundingBox calcBoundingBox() {
+        return links.length == 0 ? null : new BoundingBox(root[0], root[1], root[2], root[3], root[4], root[5]);
+    }
+
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray _ray, double _maxDistance) {
+        List<GeoPoint> result = new LinkedList<>();
+        traverse(_ray, _maxDistance, result::add);
+        return result.isEmpty() ? null : result;
+    }
+
+    @Override
+    protected boolean forEachGeoIntersection(Ray _ray, double _maxDistance, Predicate<GeoPoint> _visitor) {
+        boolean[] going = {true};
+        traverse(_ray, _maxDistance, gp -> going[0] = _visitor.test(gp));
+        return going[0];
+    }
+
+    @Override
+    protected GeoPoint findClosestIntersectionHelper(Ray _ray, double _maxDistance) {
+        return traverse(_ray, _maxDistance, null);
+    }
+
+    /**
+     * visits the nodes whose boxes the ray enters, the child the ray enters first first
+     *
+     * @param _ray         the ray
+     * @param _maxDistance the maximum distance between a hit and the start of the ray
+     * @param _visitor     the action on each hit, returning false to stop the traversal,
+     *                     or null to look for the closest hit only -
+     *                     then the maximum distance shrinks to the closest hit found so far,
+     *                     so the boxes behind it are skipped
+     * @return the closest hit when looking for it, null otherwise
+     */
+    private GeoPoint traverse(Ray _ray, double _maxDistance, Predicate<GeoPoint> _visitor) {
+        if (links.length == 0) return null;
+
+        Point p0 = _ray.getPoint();
+        Vector v = _ray.getDir();
+        double ox = p0.getX(), oy = p0.getY(), oz = p0.getZ();
+        double invX = 1 / v.getX(), invY = 1 / v.getY(), invZ = 1 / v.getZ();
+        if (BoundingBox.entry(root, 0, ox, oy, oz, invX, invY, invZ, _maxDistance) == BoundingBox.MISS) return null;
+
+        GeoPoint closest = null;
+        double closestDistance = _maxDistance;
+        Traversal state = traversal.get();
+        int[] todo = state.nodes;
+        double[] boxes = state.boxes;
+        double[] box = state.current;
+        System.arraycopy(root, 0, box, 0, 6);
+        int top = 0;
+        int node = 0;
+        while (true) {
+            int link = links[node];
+            boolean next = false;
+            if (link < 0) {
+                // decode both children in the box of the node, and go first to the one the ray enters first
+                int first = node + 1;
+                int second = -1 - link;
+                decode(nodes, stride * first, box, 0, box, 6);
+                decode(nodes, stride * second, box, 0, box, 12);
+                double t1 = BoundingBox.entry(box, 6, ox, oy, oz, invX, invY, invZ, closestDistance);
+                double t2 = BoundingBox.entry(box, 12, ox, oy, oz, invX, invY, invZ, closestDistance);
+                if (t1 != BoundingBox.MISS && t2 != BoundingBox.MISS) {
+                    int far = t1 <= t2 ? 12 : 6;
+                    todo[top] = t1 <= t2 ? second : first;
+                    System.arraycopy(box, far, boxes, 6 * top++, 6);
+                    node = t1 <= t2 ? first : second;
+                    System.arraycopy(box, 18 - far, box, 0, 6);
+                    next = true;
+                } else if (t1 != BoundingBox.MISS || t2 != BoundingBox.MISS) {
+                    node = t1 != BoundingBox.MISS ? first : second;
+                    System.arraycopy(box, t1 != BoundingBox.MISS ? 6 : 12, box, 0, 6);
+                    next = true;
+                }
+            } else {
+                int start = link >>> COUNT_BITS;
+                int count = (link & MAX_LEAF_SIZE - 1) + 1;
+                for (int i = start; i < start + count; ++i) {
+                    // a leaf shared by several primitives tests each box first
+                    if (count > 1) {
+                        decode(items, stride * i, box, 0, box, 6);
+                        if (BoundingBox.entry(box, 6, ox, oy, oz, invX, invY, invZ, closestDistance)
+                                == BoundingBox.MISS)
+                            continue;
+                    }
+                    if (_visitor != null) {
+                        if (!primitives.forEachGeoIntersection(order[i], _ray, _maxDistance, _visitor)) return null;
+                    } else {
+                        GeoPoint gp = primitives.findClosestIntersection(order[i], _ray, closestDistance);
+                        if (gp != null) {
+                            closest = gp;
+                            closestDistance = gp.point.distance(p0);
+                        }
+                    }
+                }
+            }
+            if (next) continue;
+
+            // the waiting nodes were entered before the closest hit shrank the distance - test them again
+            do {
+                if (top == 0) return closest;
+                node = todo[--top];
+                System.arraycopy(boxes, 6 * top, box, 0, 6);
+            } while (BoundingBox.entry(box, 0, ox, oy, oz, invX, invY, invZ, closestDistance) == BoundingBox.MISS);
+        }
+    }
+}
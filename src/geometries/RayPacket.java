@@ -0,0 +1,243 @@
+package geometries;
+
+import geometries.Intersectable.GeoPoint;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.List;
+
+import static jdk.incubator.vector.VectorOperators.GE;
+
+/**
+ * Packet of coherent rays - like the rays of one anti-aliased pixel - that look for their closest
+ * intersections together. The rays are stored as a structure of arrays, one array per coordinate with
+ * one lane per ray, so that a geometry is loaded once for the whole packet and its intersection
+ * is computed for several lanes at once in the SIMD registers of the machine, through the vector API of the JDK
+ * ({@code jdk.incubator.vector}, compiled and run with {@code --add-modules jdk.incubator.vector}).
+ * A box of the hierarchy is skipped only when all the lanes miss it.
+ * <p>
+ * A packet has a fixed width of 4, 8 or 16 lanes; when there are fewer rays, the remaining lanes
+ * repeat the last ray with a maximum distance of zero, so they never hit anything.
+ * <p>
+ * The vector kernels of the geometries compute exactly as their one-ray intersections - the same operations
+ * in the same order - so a lane finds the very same hit as its ray alone. They call nothing but the vector API:
+ * {@link primitives.Util#isZero(double)} is written out as {@code v.abs().lt(ACCURACY)} and a comparison of
+ * {@link primitives.Util#alignZero(double)} as one against {@link #ACCURACY}, because the compiler stops inlining
+ * small methods in a method as big as a kernel and a call that is not inlined boxes every vector it gets.
+ * The lanes that don't fill a whole vector, if any, go through the one-ray computation.
+ *
+ * @author Yona and Aaron Mimoun
+ */
+public class RayPacket {
+    /**
+     * the shape of the vectors the lanes are computed in - the preferred one of the machine up to 256 bits
+     * (4 lanes on AVX2), so that its number of lanes divides the width of every packet
+     */
+    static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED.vectorBitSize() > 256
+            ? DoubleVector.SPECIES_256 : DoubleVector.SPECIES_PREFERRED;
+    /**
+     * the bound under which {@link primitives.Util#isZero(double)} takes a number for zero - 2^-40 -
+     * in all the lanes, and its opposite
+     */
+    static final DoubleVector ACCURACY = DoubleVector.broadcast(SPECIES, 0x1p-40), NEGATIVE_ACCURACY = ACCURACY.neg();
+    /**
+     * zero in all the lanes
+     */
+    static final DoubleVector ZERO = DoubleVector.zero(SPECIES);
+    /**
+     * {@link Double#NaN} - a miss - in all the lanes
+     */
+    static final DoubleVector NAN = DoubleVector.broadcast(SPECIES, Double.NaN);
+
+    /**
+     * the number of rays of the packet
+     */
+    final int size;
+    /**
+     * the number of lanes of the packet
+     */
+    final int width;
+    final Ray[] rays;
+    /**
+     * origins of the rays
+     */
+    final double[] ox, oy, oz;
+    /**
+     * directions of the rays
+     */
+    final double[] dx, dy, dz;
+    /**
+     * inverse directions of the rays, for the slab tests
+     */
+    final double[] invX, invY, invZ;
+    /**
+     * the maximum distance of each lane - the distance of its closest hit found so far
+     */
+    final double[] maxDistance;
+    /**
+     * the closest hit found so far of each lane
+     */
+    final GeoPoint[] hits;
+    /**
+     * distances of the lanes to the geometry being intersected, {@link Double#NaN} for a miss
+     */
+    final double[] distances;
+
+    /**
+     * constructor for a packet of rays
+     *
+     * @param _width the number of lanes - 4, 8 or 16
+     * @param _rays  the rays, at least one and no more than the width
+     * @throws IllegalArgumentException when the width is not 4, 8 or 16 or the rays don't fit it
+     */
+    public RayPacket(int _width, List<Ray> _rays) {
+        if (!isValidWidth(_width))
+            throw new IllegalArgumentException("A packet must have 4, 8 or 16 lanes");
+        if (_rays.isEmpty() || _rays.size() > _width)
+            throw new IllegalArgumentException("The rays don't fit the lanes of the packet");
+        size = _rays.size();
+        width = _width;
+        rays = new Ray[_width];
+        ox = new double[_width];
+        oy = new double[_width];
+        oz = new double[_width];
+        dx = new double[_width];
+        dy = new double[_width];
+        dz = new double[_width];
+        invX = new double[_width];
+        invY = new double[_width];
+        invZ = new double[_width];
+        maxDistance = new double[_width];
+        hits = new GeoPoint[_width];
+        distances = new double[_width];
+
+        int lane = 0;
+        for (Ray ray : _rays)
+            rays[lane++] = ray;
+        for (; lane < _width; ++lane)
+            rays[lane] = rays[size - 1];
+        for (lane = 0; lane < _width; ++lane) {
+            Point p0 = rays[lane].getPoint();
+            Vector v = rays[lane].getDir();
+            ox[lane] = p0.getX();
+            oy[lane] = p0.getY();
+            oz[lane] = p0.getZ();
+            dx[lane] = v.getX();
+            dy[lane] = v.getY();
+            dz[lane] = v.getZ();
+            invX[lane] = 1 / dx[lane];
+            invY[lane] = 1 / dy[lane];
+            invZ[lane] = 1 / dz[lane];
+            maxDistance[lane] = lane < size ? Double.POSITIVE_INFINITY : 0;
+        }
+    }
+
+    /**
+     * checks whether a number of lanes is supported
+     *
+     * @param _width the number of lanes
+     * @return true for 4, 8 or 16 lanes
+     */
+    public static boolean isValidWidth(int _width) {
+        return _width == 4 || _width == 8 || _width == 16;
+    }
+
+    /**
+     * getting the number of rays
+     *
+     * @return the number of rays of the packet
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * getting a ray of the packet
+     *
+     * @param _lane the index of the ray
+     * @return the ray
+     */
+    public Ray getRay(int _lane) {
+        return rays[_lane];
+    }
+
+    /**
+     * getting the closest intersection of a ray of the packet
+     *
+     * @param _lane the index of the ray
+     * @return the closest intersection found for the ray, or null if there is none
+     */
+    public GeoPoint getHit(int _lane) {
+        return hits[_lane];
+    }
+
+    /**
+     * keeps a hit of a lane as its closest one
+     *
+     * @param _lane     the lane
+     * @param _hit      the hit, within the maximum distance of the lane
+     * @param _distance the distance of the hit from the start of the ray
+     */
+    void hit(int _lane, GeoPoint _hit, double _distance) {
+        hits[_lane] = _hit;
+        maxDistance[_lane] = _distance;
+    }
+
+    /**
+     * keeps the hits of a geometry whose distances were computed in {@link #distances}
+     *
+     * @param _geometry the geometry
+     */
+    void hitAll(Geometry _geometry) {
+        for (int lane = 0; lane < size; ++lane) {
+            double t = distances[lane];
+            if (!Double.isNaN(t)) hit(lane, new GeoPoint(_geometry, rays[lane].getPoint(t)), t);
+        }
+    }
+
+    /**
+     * the number of lanes computed in whole vectors, the ones after it go through the one-ray computation
+     *
+     * @return the lanes of the packet rounded down to a multiple of the length of the vectors
+     */
+    int vectorLanes() {
+        return SPECIES.loopBound(width);
+    }
+
+    /**
+     * keeps in {@link #distances} only the distances of one vector of lanes that are positive once aligned
+     * to zero and within the maximum distance of their lane - the last step of the vector kernels
+     * of the geometries, which leave there the distances along the whole lines of the rays. A kept distance
+     * is at least 2^-40, so the kernels don't have to align it to zero.
+     *
+     * @param _lane the first lane of the vector
+     * @return true if at least one lane of the vector is kept
+     */
+    boolean clip(int _lane) {
+        DoubleVector t = DoubleVector.fromArray(SPECIES, distances, _lane);
+        // alignZero(t) > 0 && alignZero(t - maxDistance) <= 0
+        VectorMask<Double> kept = t.compare(GE, ACCURACY)
+                .and(t.sub(DoubleVector.fromArray(SPECIES, maxDistance, _lane)).lt(ACCURACY));
+        NAN.blend(t, kept).intoArray(distances, _lane);
+        return kept.anyTrue();
+    }
+
+    /**
+     * slab test of the packet against a box packed in an array
+     *
+     * @param _bounds the array of boxes
+     * @param _offset the index of the minX of the box in the array
+     * @return true if at least one lane enters the box before its maximum distance
+     */
+    boolean entersAny(double[] _bounds, int _offset) {
+        for (int lane = 0; lane < size; ++lane)
+            if (BoundingBox.entry(_bounds, _offset, ox[lane], oy[lane], oz[lane],
+                    invX[lane], invY[lane], invZ[lane], maxDistance[lane]) != BoundingBox.MISS)
+                return true;
+        return false;
+    }
+}
@@ -1,12 +1,22 @@
 package geometries;
 
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
 import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
 
+import java.util.LinkedList;
 import java.util.List;
+import java.util.function.Predicate;
 
+import static geometries.RayPacket.ACCURACY;
+import static geometries.RayPacket.NAN;
+import static geometries.RayPacket.SPECIES;
+import static geometries.RayPacket.ZERO;
+import static jdk.incubator.vector.VectorOperators.GE;
 import static primitives.Util.alignZero;
+import static primitives.Util.isZero;
 
 /**
  * This class represent a sphere like a ball and defined by point and radius
@@ -15,6 +25,10 @@ import static primitives.Util.alignZero;
  */
 public class Sphere extends RadialGeometry {
     private final Point center;
+    /**
+     * coordinates of the center
+     */
+    private final double cx, cy, cz;
 
     /**
      * constructor for sphere by point and radius
@@ -25,6 +39,9 @@ public class Sphere extends RadialGeometry {
     public Sphere(Point _center, Double _radius) {
         super(_radius);
         this.center = _center;
+        cx = _center.getX();
+        cy = _center.getY();
+        cz = _center.getZ();
     }
 
     /**
@@ -44,10 +61,19 @@ public class Sphere extends RadialGeometry {
      */
     @Override
     public Vector getNormal(Point _p) {
-        return _p.subtract(center).normalize();
+        double x = _p.getX() - cx, y = _p.getY() - cy, z = _p.getZ() - cz;
+        double length = Math.sqrt(x * x + y * y + z * z);
+        if (isZero(length)) throw new IllegalArgumentException("The center of a sphere has no normal");
+        return Vector.unchecked(x / length, y / length, z / length);
     }
 
 
+    @Override
+    protected BoundingBox calcBoundingBox() {
+        return new BoundingBox(center.getX() - radius, center.getY() - radius, center.getZ() - radius,
+                center.getX() + radius, center.getY() + radius, center.getZ() + radius);
+    }
+
     @Override
     public String toString() {
         return "Sphere{" +
@@ -58,35 +84,111 @@ public class Sphere extends RadialGeometry {
 
     @Override
     protected List<GeoPoint> findGeoIntersectionsHelper(Ray _ray, double _maxDistance) {
+        List<GeoPoint> result = new LinkedList<>();
+        forEachGeoIntersection(_ray, _maxDistance, result::add);
+        return result.isEmpty() ? null : result;
+    }
+
+    @Override
+    protected boolean forEachGeoIntersection(Ray _ray, double _maxDistance, Predicate<GeoPoint> _visitor) {
         Point p0 = _ray.getPoint();
         Vector v = _ray.getDir();
+        double ux = cx - p0.getX(), uy = cy - p0.getY(), uz = cz - p0.getZ();
+        if (isZero(ux) && isZero(uy) && isZero(uz)) // the ray starts at the center
+            return alignZero(radius - _maxDistance) > 0 || _visitor.test(new GeoPoint(this, _ray.getPoint(radius)));
 
-        Vector u;
-        try {
-            u = center.subtract(p0);
-        } catch (IllegalArgumentException ignore) {
-            return alignZero(radius - _maxDistance) > 0 ? null : List.of(new GeoPoint(this, _ray.getPoint(radius)));
-        }
-
-        double tm = alignZero(v.dotProduct(u));
-        double dSqr = alignZero(u.lengthSquared() - tm * tm);
-        double thSqr = radius * radius - dSqr;
+        double tm = alignZero(v.getX() * ux + v.getY() * uy + v.getZ() * uz);
+        double thSqr = radius * radius - alignZero(ux * ux + uy * uy + uz * uz - tm * tm);
         // no intersections : the ray direction is above the sphere
-        if (alignZero(thSqr) <= 0) return null;
+        if (alignZero(thSqr) <= 0) return true;
 
         double th = alignZero(Math.sqrt(thSqr));
-
         double t2 = alignZero(tm + th);
-        if (t2 <= 0) return null;
-
+        if (t2 <= 0) return true;
         double t1 = alignZero(tm - th);
-        if (alignZero(t1 - _maxDistance) > 0) return null;
+        if (alignZero(t1 - _maxDistance) > 0) return true;
 
-        if (alignZero(t2 - _maxDistance) <= 0)
-            return t1 <= 0 ? List.of(new GeoPoint(this, _ray.getPoint(t2)))
-                    : List.of(new GeoPoint(this, _ray.getPoint(t1)), new GeoPoint(this, _ray.getPoint(t2)));
-        else
-            return t1 <= 0 ? null : List.of(new GeoPoint(this, _ray.getPoint(t1)));
+        if (t1 > 0 && !_visitor.test(new GeoPoint(this, _ray.getPoint(t1)))) return false;
+        return alignZero(t2 - _maxDistance) > 0 || _visitor.test(new GeoPoint(this, _ray.getPoint(t2)));
     }
 
-}
\ No newline at end of file
+    @Override
+    protected GeoPoint findClosestIntersectionHelper(Ray _ray, double _maxDistance) {
+        Point p0 = _ray.getPoint();
+        Vector v = _ray.getDir();
+        double t = intersect(p0.getX(), p0.getY(), p0.getZ(), v.getX(), v.getY(), v.getZ(), _maxDistance);
+        return Double.isNaN(t) ? null : new GeoPoint(this, _ray.getPoint(t));
+    }
+
+    @Override
+    protected void findClosestIntersectionsHelper(RayPacket _packet) {
+        int lane = 0;
+        for (int bound = _packet.vectorLanes(); lane < bound; lane += SPECIES.length()) {
+            intersect(_packet, lane);
+            _packet.clip(lane);
+        }
+        for (; lane < _packet.width; ++lane)
+            _packet.distances[lane] = intersect(_packet.ox[lane], _packet.oy[lane], _packet.oz[lane],
+                    _packet.dx[lane], _packet.dy[lane], _packet.dz[lane], _packet.maxDistance[lane]);
+        _packet.hitAll(this);
+    }
+
+    /**
+     * the closest intersections of the lines of one vector of lanes of a packet with the sphere, as
+     * {@link #intersect} on each lane, kept in the distances of the packet for {@link RayPacket#clip}
+     *
+     * @param _packet the packet
+     * @param _lane   the first lane of the vector
+     */
+    private void intersect(RayPacket _packet, int _lane) {
+        DoubleVector dx = DoubleVector.fromArray(SPECIES, _packet.dx, _lane);
+        DoubleVector dy = DoubleVector.fromArray(SPECIES, _packet.dy, _lane);
+        DoubleVector dz = DoubleVector.fromArray(SPECIES, _packet.dz, _lane);
+        DoubleVector ux = DoubleVector.broadcast(SPECIES, cx).sub(DoubleVector.fromArray(SPECIES, _packet.ox, _lane));
+        DoubleVector uy = DoubleVector.broadcast(SPECIES, cy).sub(DoubleVector.fromArray(SPECIES, _packet.oy, _lane));
+        DoubleVector uz = DoubleVector.broadcast(SPECIES, cz).sub(DoubleVector.fromArray(SPECIES, _packet.oz, _lane));
+        // the lanes that start at the center
+        VectorMask<Double> atCenter = ux.abs().max(uy.abs()).max(uz.abs()).lt(ACCURACY);
+
+        DoubleVector tm = dx.mul(ux).add(dy.mul(uy)).add(dz.mul(uz));
+        tm = tm.blend(ZERO, tm.abs().lt(ACCURACY));
+        DoubleVector d = ux.mul(ux).add(uy.mul(uy)).add(uz.mul(uz)).sub(tm.mul(tm));
+        DoubleVector thSqr = DoubleVector.broadcast(SPECIES, radiusSquared).sub(d.blend(ZERO, d.abs().lt(ACCURACY)));
+        // the lanes whose direction is above the sphere
+        VectorMask<Double> above = thSqr.lt(ACCURACY).and(atCenter.not());
+        DoubleVector th = thSqr.sqrt();
+        th = th.blend(ZERO, th.abs().lt(ACCURACY));
+        DoubleVector t1 = tm.sub(th);
+        tm.add(th).blend(t1, t1.compare(GE, ACCURACY)).blend(radius, atCenter).blend(NAN, above)
+                .intoArray(_packet.distances, _lane);
+    }
+
+    /**
+     * the closest intersection of a ray with the sphere, on raw coordinates
+     *
+     * @param _ox          ray origin x
+     * @param _oy          ray origin y
+     * @param _oz          ray origin z
+     * @param _dx          ray direction x
+     * @param _dy          ray direction y
+     * @param _dz          ray direction z
+     * @param _maxDistance the maximum distance between the point to the start of the ray
+     * @return the distance of the closest intersection from the start of the ray, or {@link Double#NaN} if there is none
+     */
+    private double intersect(double _ox, double _oy, double _oz, double _dx, double _dy, double _dz,
+                             double _maxDistance) {
+        double ux = cx - _ox, uy = cy - _oy, uz = cz - _oz;
+        double t;
+        if (isZero(ux) && isZero(uy) && isZero(uz)) // the ray starts at the center
+            t = radius;
+        else {
+            double tm = alignZero(_dx * ux + _dy * uy + _dz * uz);
+            double thSqr = radius * radius - alignZero(ux * ux + uy * uy + uz * uz - tm * tm);
+            if (alignZero(thSqr) <= 0) return Double.NaN;
+            double th = alignZero(Math.sqrt(thSqr));
+            double t1 = alignZero(tm - th);
+            t = t1 > 0 ? t1 : alignZero(tm + th);
+        }
+        return t <= 0 || alignZero(t - _maxDistance) > 0 ? Double.NaN : t;
+    }
+}
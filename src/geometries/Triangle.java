@@ -1,12 +1,21 @@
 package geometries;
 
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
 import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
 
 import java.util.List;
 
+import static geometries.RayPacket.ACCURACY;
+import static geometries.RayPacket.NAN;
+import static geometries.RayPacket.NEGATIVE_ACCURACY;
+import static geometries.RayPacket.SPECIES;
+import static jdk.incubator.vector.VectorOperators.GE;
+import static jdk.incubator.vector.VectorOperators.GT;
 import static primitives.Util.alignZero;
+import static primitives.Util.isZero;
 
 /**
  * This class represents a Triangle.
@@ -14,6 +23,23 @@ import static primitives.Util.alignZero;
  * @author Yona and Aaron
  */
 public class Triangle extends Polygon {
+    /**
+     * distance returned by {@link #intersect} when the ray misses the triangle
+     */
+    static final double MISS = Double.NaN;
+
+    /**
+     * coordinates of the first vertex
+     */
+    private final double ax, ay, az;
+    /**
+     * coordinates of the edge from the first vertex to the second one
+     */
+    private final double e1x, e1y, e1z;
+    /**
+     * coordinates of the edge from the first vertex to the third one
+     */
+    private final double e2x, e2y, e2z;
 
     /**
      * Constructor for Triangle by 3 points
@@ -23,37 +49,192 @@ public class Triangle extends Polygon {
      * @param _p3 third point
      */
     public Triangle(Point _p1, Point _p2, Point _p3) {
-        super(_p1, _p2, _p3);
+        super(false, _p1, _p2, _p3); // the triangle intersects rays with its own data only
+        ax = _p1.getX();
+        ay = _p1.getY();
+        az = _p1.getZ();
+        e1x = _p2.getX() - ax;
+        e1y = _p2.getY() - ay;
+        e1z = _p2.getZ() - az;
+        e2x = _p3.getX() - ax;
+        e2y = _p3.getY() - ay;
+        e2z = _p3.getZ() - az;
     }
 
-
     @Override
     public List<GeoPoint> findGeoIntersectionsHelper(Ray _ray, double _maxDistance) {
-        var result = plane.findGeoIntersectionsHelper(_ray, _maxDistance);
+        double t = intersect(ax, ay, az, e1x, e1y, e1z, e2x, e2y, e2z, _ray, _maxDistance);
+        return Double.isNaN(t) ? null : List.of(new GeoPoint(this, _ray.getPoint(t)));
+    }
 
-        //Check if the ray intersect the plane.
-        if (result == null) return null;
+    @Override
+    protected void findClosestIntersectionsHelper(RayPacket _packet) {
+        if (intersect(ax, ay, az, e1x, e1y, e1z, e2x, e2y, e2z, _packet)) _packet.hitAll(this);
+    }
 
-        for (GeoPoint g : result)
-            g.geometry = this;
+    @Override
+    protected GeoPoint findClosestIntersectionHelper(Ray _ray, double _maxDistance) {
+        double t = intersect(ax, ay, az, e1x, e1y, e1z, e2x, e2y, e2z, _ray, _maxDistance);
+        return Double.isNaN(t) ? null : new GeoPoint(this, _ray.getPoint(t));
+    }
 
+    /**
+     * intersection of a ray with a triangle by the Möller–Trumbore algorithm on raw coordinates,
+     * without any temporary object. A ray through an edge or a vertex doesn't intersect the triangle,
+     * and neither does a ray that starts on it.
+     *
+     * @param _ax          first vertex x
+     * @param _ay          first vertex y
+     * @param _az          first vertex z
+     * @param _e1x         x of the edge from the first vertex to the second one
+     * @param _e1y         y of the edge from the first vertex to the second one
+     * @param _e1z         z of the edge from the first vertex to the second one
+     * @param _e2x         x of the edge from the first vertex to the third one
+     * @param _e2y         y of the edge from the first vertex to the third one
+     * @param _e2z         z of the edge from the first vertex to the third one
+     * @param _ray         the ray
+     * @param _maxDistance the maximum distance between the point to the start of the ray
+     * @return the distance of the intersection from the start of the ray, or {@link #MISS}
+     */
+    static double intersect(double _ax, double _ay, double _az,
+                            double _e1x, double _e1y, double _e1z,
+                            double _e2x, double _e2y, double _e2z,
+                            Ray _ray, double _maxDistance) {
         Point p0 = _ray.getPoint();
         Vector v = _ray.getDir();
-        Vector v1 = vertices.get(0).subtract(p0);
-        Vector v2 = vertices.get(1).subtract(p0);
-        Vector n1 = v1.crossProduct(v2).normalize();
-        double vn1 = alignZero(v.dotProduct(n1));
-        if (vn1 == 0) return null;
-
-        Vector v3 = vertices.get(2).subtract(p0);
-        Vector n2 = v2.crossProduct(v3).normalize();
-        double vn2 = alignZero(v.dotProduct(n2));
-        if (vn1 * vn2 <= 0) return null;
-
-        Vector n3 = v3.crossProduct(v1).normalize();
-        double vn3 = alignZero(v.dotProduct(n3));
-        if (vn1 * vn3 <= 0) return null;
-
-        return result;
+        return intersect(_ax, _ay, _az, _e1x, _e1y, _e1z, _e2x, _e2y, _e2z,
+                p0.getX(), p0.getY(), p0.getZ(), v.getX(), v.getY(), v.getZ(), _maxDistance);
+    }
+
+    /**
+     * intersection of the lanes of a packet with a triangle by the Möller–Trumbore algorithm in vectors of lanes,
+     * into the distances of the packet
+     *
+     * @param _ax          first vertex x
+     * @param _ay          first vertex y
+     * @param _az          first vertex z
+     * @param _e1x         x of the edge from the first vertex to the second one
+     * @param _e1y         y of the edge from the first vertex to the second one
+     * @param _e1z         z of the edge from the first vertex to the second one
+     * @param _e2x         x of the edge from the first vertex to the third one
+     * @param _e2y         y of the edge from the first vertex to the third one
+     * @param _e2z         z of the edge from the first vertex to the third one
+     * @param _packet      the packet
+     * @return true if at least one lane intersects the triangle
+     */
+    static boolean intersect(double _ax, double _ay, double _az,
+                             double _e1x, double _e1y, double _e1z,
+                             double _e2x, double _e2y, double _e2z,
+                             RayPacket _packet) {
+        boolean hit = false;
+        int lane = 0;
+        for (int bound = _packet.vectorLanes(); lane < bound; lane += SPECIES.length()) {
+            intersect(_ax, _ay, _az, _e1x, _e1y, _e1z, _e2x, _e2y, _e2z, _packet, lane);
+            hit |= _packet.clip(lane);
+        }
+        for (; lane < _packet.width; ++lane) {
+            double t = intersect(_ax, _ay, _az, _e1x, _e1y, _e1z, _e2x, _e2y, _e2z,
+                    _packet.ox[lane], _packet.oy[lane], _packet.oz[lane],
+                    _packet.dx[lane], _packet.dy[lane], _packet.dz[lane], _packet.maxDistance[lane]);
+            _packet.distances[lane] = t;
+            hit |= !Double.isNaN(t);
+        }
+        return hit;
+    }
+
+    /**
+     * the Möller–Trumbore algorithm on the lines of one vector of lanes of a packet, kept in the distances
+     * of the packet for {@link RayPacket#clip}
+     *
+     * @param _ax     first vertex x
+     * @param _ay     first vertex y
+     * @param _az     first vertex z
+     * @param _e1x    x of the edge from the first vertex to the second one
+     * @param _e1y    y of the edge from the first vertex to the second one
+     * @param _e1z    z of the edge from the first vertex to the second one
+     * @param _e2x    x of the edge from the first vertex to the third one
+     * @param _e2y    y of the edge from the first vertex to the third one
+     * @param _e2z    z of the edge from the first vertex to the third one
+     * @param _packet the packet
+     * @param _lane   the first lane of the vector
+     */
+    private static void intersect(double _ax, double _ay, double _az,
+                                  double _e1x, double _e1y, double _e1z,
+                                  double _e2x, double _e2y, double _e2z,
+                                  RayPacket _packet, int _lane) {
+        DoubleVector dx = DoubleVector.fromArray(SPECIES, _packet.dx, _lane);
+        DoubleVector dy = DoubleVector.fromArray(SPECIES, _packet.dy, _lane);
+        DoubleVector dz = DoubleVector.fromArray(SPECIES, _packet.dz, _lane);
+        // p = v x e2
+        DoubleVector px = dy.mul(_e2z).sub(dz.mul(_e2y));
+        DoubleVector py = dz.mul(_e2x).sub(dx.mul(_e2z));
+        DoubleVector pz = dx.mul(_e2y).sub(dy.mul(_e2x));
+        DoubleVector det = px.mul(_e1x).add(py.mul(_e1y)).add(pz.mul(_e1z));
+        VectorMask<Double> miss = det.abs().lt(ACCURACY); // rays parallel to the triangle
+        DoubleVector invDet = DoubleVector.broadcast(SPECIES, 1).div(det);
+
+        // s = p0 - a
+        DoubleVector sx = DoubleVector.fromArray(SPECIES, _packet.ox, _lane).sub(_ax);
+        DoubleVector sy = DoubleVector.fromArray(SPECIES, _packet.oy, _lane).sub(_ay);
+        DoubleVector sz = DoubleVector.fromArray(SPECIES, _packet.oz, _lane).sub(_az);
+        // u and w are only compared - aligned to zero in the comparisons - or summed in lanes they already miss
+        DoubleVector u = sx.mul(px).add(sy.mul(py)).add(sz.mul(pz)).mul(invDet);
+        miss = miss.or(u.lt(ACCURACY)).or(u.compare(GE, 1));
+
+        // q = s x e1
+        DoubleVector qx = sy.mul(_e1z).sub(sz.mul(_e1y));
+        DoubleVector qy = sz.mul(_e1x).sub(sx.mul(_e1z));
+        DoubleVector qz = sx.mul(_e1y).sub(sy.mul(_e1x));
+        DoubleVector w = dx.mul(qx).add(dy.mul(qy)).add(dz.mul(qz)).mul(invDet);
+        miss = miss.or(w.lt(ACCURACY)).or(u.add(w).sub(1).compare(GT, NEGATIVE_ACCURACY));
+
+        qx.mul(_e2x).add(qy.mul(_e2y)).add(qz.mul(_e2z)).mul(invDet).blend(NAN, miss)
+                .intoArray(_packet.distances, _lane);
+    }
+
+    /**
+     * the Möller–Trumbore algorithm itself
+     *
+     * @param _ax          first vertex x
+     * @param _ay          first vertex y
+     * @param _az          first vertex z
+     * @param _e1x         x of the edge from the first vertex to the second one
+     * @param _e1y         y of the edge from the first vertex to the second one
+     * @param _e1z         z of the edge from the first vertex to the second one
+     * @param _e2x         x of the edge from the first vertex to the third one
+     * @param _e2y         y of the edge from the first vertex to the third one
+     * @param _e2z         z of the edge from the first vertex to the third one
+     * @param _ox          ray origin x
+     * @param _oy          ray origin y
+     * @param _oz          ray origin z
+     * @param _dx         ray direction x
+     * @param _dy         ray direction y
+     * @param _dz         ray direction z
+     * @param _maxDistance the maximum distance between the point to the start of the ray
+     * @return the distance of the intersection from the start of the ray, or {@link #MISS}
+     */
+    private static double intersect(double _ax, double _ay, double _az,
+                                    double _e1x, double _e1y, double _e1z,
+                                    double _e2x, double _e2y, double _e2z,
+                                    double _ox, double _oy, double _oz,
+                                    double _dx, double _dy, double _dz, double _maxDistance) {
+        // p = v x e2
+        double px = _dy * _e2z - _dz * _e2y, py = _dz * _e2x - _dx * _e2z, pz = _dx * _e2y - _dy * _e2x;
+        double det = _e1x * px + _e1y * py + _e1z * pz;
+        if (isZero(det)) return MISS; // ray parallel to the triangle
+        double invDet = 1 / det;
+
+        // s = p0 - a
+        double sx = _ox - _ax, sy = _oy - _ay, sz = _oz - _az;
+        double u = alignZero((sx * px + sy * py + sz * pz) * invDet);
+        if (u <= 0 || u >= 1) return MISS;
+
+        // q = s x e1
+        double qx = sy * _e1z - sz * _e1y, qy = sz * _e1x - sx * _e1z, qz = sx * _e1y - sy * _e1x;
+        double w = alignZero((_dx * qx + _dy * qy + _dz * qz) * invDet);
+        if (w <= 0 || alignZero(u + w - 1) >= 0) return MISS;
+
+        double t = alignZero((_e2x * qx + _e2y * qy + _e2z * qz) * invDet);
+        return t <= 0 || alignZero(t - _maxDistance) > 0 ? MISS : t;
     }
 }
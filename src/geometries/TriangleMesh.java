@@ -0,0 +1,404 @@
+package geometries;
+
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vec3d;
+import primitives.Vector;
+
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static primitives.Util.alignZero;
+import static primitives.Util.isZero;
+
+/**
+ * This class represents a mesh of triangles that share their vertices, their material and their emission.
+ * The vertices are stored once in a flat buffer of coordinates and the faces are triples of indexes
+ * into it, so a face costs three ints instead of several objects. The faces are organized in a
+ * bounding volume hierarchy of their own, built on the first intersection.
+ *
+ * @author Yona and Aaron Mimoun
+ */
+public class TriangleMesh extends Geometry {
+    /**
+     * coordinates of the vertices - vertex i is (vertices[3i], vertices[3i + 1], vertices[3i + 2])
+     */
+    private final DoubleBuffer vertices;
+    /**
+     * indexes of the vertices of the faces - face f is made of the vertices indices[3f], indices[3f + 1], indices[3f + 2]
+     */
+    private IntBuffer indices;
+    /**
+     * an intersection with a face of the mesh, whose normal is computed on the first request - the closest
+     * hits are kept and shaded, while most of the hits found on the way are replaced or only looked at for
+     * their material. The face is the one of the numbering at the intersection, which {@link #commit()}
+     * doesn't change while the scene is rendered.
+     */
+    private class FaceHit extends GeoPoint {
+        /**
+         * the index of the face
+         */
+        private final int face;
+        /**
+         * the normal of the face, null until it is asked for
+         */
+        private Vector normal;
+
+        /**
+         * constructor for an intersection with a face
+         *
+         * @param _point the point of the intersection
+         * @param _face  the index of the face
+         */
+        FaceHit(Point _point, int _face) {
+            super(TriangleMesh.this, _point);
+            face = _face;
+        }
+
+        @Override
+        public Vector getNormal() {
+            if (normal == null) normal = faceNormal(face);
+            return normal;
+        }
+    }
+
+    /**
+     * the faces as the primitives of a hierarchy
+     */
+    private final BVH.Primitives faces = new BVH.Primitives() {
+        @Override
+        public int size() {
+            return getFaceCount();
+        }
+
+        @Override
+        public BoundingBox getBoundingBox(int _face) {
+            return faceBoundingBox(_face);
+        }
+
+        @Override
+        public boolean forEachGeoIntersection(int _face, Ray _ray, double _maxDistance,
+                                              Predicate<GeoPoint> _visitor) {
+            GeoPoint gp = intersectFace(_face, _ray, _maxDistance);
+            return gp == null || _visitor.test(gp);
+        }
+
+        @Override
+        public GeoPoint findClosestIntersection(int _face, Ray _ray, double _maxDistance) {
+            return intersectFace(_face, _ray, _maxDistance);
+        }
+
+        @Override
+        public void findClosestIntersections(int _face, RayPacket _packet) {
+            intersectFace(_face, _packet);
+        }
+    };
+    /**
+     * hierarchy over the faces, null until it is built
+     */
+    private volatile BVH hierarchy = null;
+    /**
+     * the cache of the hierarchy, null for none
+     */
+    private BVHCache cache = null;
+
+    /**
+     * constructor for a mesh by its vertex and index buffers, which are used as they are (not copied)
+     *
+     * @param _vertices the coordinates of the vertices, three per vertex
+     * @param _indices  the indexes of the vertices of the faces, three per face
+     * @throws IllegalArgumentException when the buffers are not made of triples
+     *                                  or a face refers to a missing vertex
+     */
+    public TriangleMesh(double[] _vertices, int[] _indices) {
+        this(DoubleBuffer.wrap(_vertices), IntBuffer.wrap(_indices));
+    }
+
+    /**
+     * constructor for a mesh by its vertex and index buffers, which are used as they are (not copied) -
+     * like the buffers of a mapped file, read from their start to their limit
+     *
+     * @param _vertices the coordinates of the vertices, three per vertex
+     * @param _indices  the indexes of the vertices of the faces, three per face
+     * @throws IllegalArgumentException when the buffers are not made of triples
+     *                                  or a face refers to a missing vertex
+     */
+    public TriangleMesh(DoubleBuffer _vertices, IntBuffer _indices) {
+        if (_vertices.limit() % 3 != 0)
+            throw new IllegalArgumentException("The vertex buffer must hold three coordinates per vertex");
+        if (_indices.limit() % 3 != 0)
+            throw new IllegalArgumentException("The index buffer must hold three vertices per face");
+        int count = _vertices.limit() / 3;
+        for (int i = 0; i < _indices.limit(); ++i)
+            if (_indices.get(i) < 0 || _indices.get(i) >= count)
+                throw new IllegalArgumentException("A face refers to a missing vertex");
+        vertices = _vertices;
+        indices = _indices;
+    }
+
+    /**
+     * constructor for a mesh by its vertices and the indexes of the vertices of the faces
+     *
+     * @param _vertices the vertices
+     * @param _indices  the indexes of the vertices of the faces, three per face
+     */
+    public TriangleMesh(Point[] _vertices, int[] _indices) {
+        this(flatten(_vertices), _indices);
+    }
+
+    /**
+     * the coordinates of points in a flat array
+     *
+     * @param _points the points
+     * @return their coordinates, three per point
+     */
+    private static double[] flatten(Point[] _points) {
+        double[] coordinates = new double[3 * _points.length];
+        for (int i = 0; i < _points.length; ++i) {
+            coordinates[3 * i] = _points[i].getX();
+            coordinates[3 * i + 1] = _points[i].getY();
+            coordinates[3 * i + 2] = _points[i].getZ();
+        }
+        return coordinates;
+    }
+
+    /**
+     * setter for the directory where the hierarchy over the faces is cached, so that the mesh
+     * rendered again reads its hierarchy instead of building it
+     *
+     * @param _directory the cache directory, null for no cache
+     * @return the mesh object
+     */
+    public TriangleMesh setCache(Path _directory) {
+        synchronized (this) {
+            cache = _directory == null ? null : new BVHCache(_directory);
+            hierarchy = null;
+        }
+        return this;
+    }
+
+    /**
+     * getting the hierarchy over the faces, building it - or reading it from the cache - the first time
+     *
+     * @return the hierarchy
+     */
+    private BVH getHierarchy() {
+        BVH result = hierarchy;
+        if (result != null) return result;
+
+        synchronized (this) {
+            if (hierarchy == null)
+                hierarchy = cache == null ? new BVH(faces) : cache.get(faces);
+            return hierarchy;
+        }
+    }
+
+    /**
+     * commits the mesh before the scene is rendered: its faces are stored again in the order of the leaves
+     * of its hierarchy, so that the faces a ray meets one after the other are next to each other in memory.
+     * The index buffer is copied for that - a mapped one is not written.
+     * It must not be called while the scene is rendered.
+     *
+     * @return the mesh object
+     */
+    public TriangleMesh commit() {
+        synchronized (this) {
+            BVH bvh = getHierarchy();
+            int[] reordered = new int[indices.limit()];
+            for (int i = 0; i < bvh.order.length; ++i) {
+                int face = 3 * bvh.order[i];
+                reordered[3 * i] = indices.get(face);
+                reordered[3 * i + 1] = indices.get(face + 1);
+                reordered[3 * i + 2] = indices.get(face + 2);
+            }
+            indices = IntBuffer.wrap(reordered);
+            hierarchy = bvh.inLeafOrder(faces);
+        }
+        return this;
+    }
+
+    /**
+     * getting the number of faces
+     *
+     * @return the number of triangles of the mesh
+     */
+    public int getFaceCount() {
+        return indices.limit() / 3;
+    }
+
+    /**
+     * getting the number of vertices
+     *
+     * @return the number of vertices of the mesh
+     */
+    public int getVertexCount() {
+        return vertices.limit() / 3;
+    }
+
+    /**
+     * getting the coordinates of the vertices, for writing the mesh to a file
+     *
+     * @return a view of the vertex buffer from its start to its limit
+     */
+    DoubleBuffer getVertices() {
+        return vertices.duplicate().rewind();
+    }
+
+    /**
+     * getting the indexes of the vertices of the faces, for writing the mesh to a file
+     *
+     * @return a view of the index buffer from its start to its limit
+     */
+    IntBuffer getIndices() {
+        return indices.duplicate().rewind();
+    }
+
+    /**
+     * the bounding box of a face
+     *
+     * @param _face the index of the face
+     * @return the bounding box of the face
+     */
+    private BoundingBox faceBoundingBox(int _face) {
+        int a = 3 * indices.get(3 * _face), b = 3 * indices.get(3 * _face + 1), c = 3 * indices.get(3 * _face + 2);
+        return BoundingBox.of(List.of(
+                new Point(vertices.get(a), vertices.get(a + 1), vertices.get(a + 2)),
+                new Point(vertices.get(b), vertices.get(b + 1), vertices.get(b + 2)),
+                new Point(vertices.get(c), vertices.get(c + 1), vertices.get(c + 2))));
+    }
+
+    /**
+     * the normal of a face, oriented like the normal of a {@link Triangle} of the same vertices
+     *
+     * @param _face the index of the face
+     * @return the normal of the face
+     */
+    private Vector faceNormal(int _face) {
+        int a = 3 * indices.get(3 * _face), b = 3 * indices.get(3 * _face + 1), c = 3 * indices.get(3 * _face + 2);
+        double ax = vertices.get(a), ay = vertices.get(a + 1), az = vertices.get(a + 2);
+        Vec3d e1 = new Vec3d(vertices.get(b) - ax, vertices.get(b + 1) - ay, vertices.get(b + 2) - az);
+        Vec3d e2 = new Vec3d(vertices.get(c) - ax, vertices.get(c + 1) - ay, vertices.get(c + 2) - az);
+        if (e1.isZero() || e2.isZero() || e1.cross(e1, e2).isZero())
+            throw new IllegalArgumentException("A degenerate face has no normal");
+        return e1.normalize().toUncheckedVector();
+    }
+
+    /**
+     * intersection of a ray with a face, like the intersection with a {@link Triangle}
+     *
+     * @param _face        the index of the face
+     * @param _ray         the ray
+     * @param _maxDistance the maximum distance between the point to the start of the ray
+     * @return the intersection, or null if there is none
+     */
+    private GeoPoint intersectFace(int _face, Ray _ray, double _maxDistance) {
+        int a = 3 * indices.get(3 * _face), b = 3 * indices.get(3 * _face + 1), c = 3 * indices.get(3 * _face + 2);
+        double ax = vertices.get(a), ay = vertices.get(a + 1), az = vertices.get(a + 2);
+        double t = Triangle.intersect(ax, ay, az,
+                vertices.get(b) - ax, vertices.get(b + 1) - ay, vertices.get(b + 2) - az,
+                vertices.get(c) - ax, vertices.get(c + 1) - ay, vertices.get(c + 2) - az,
+                _ray, _maxDistance);
+        return Double.isNaN(t) ? null : new FaceHit(_ray.getPoint(t), _face);
+    }
+
+    /**
+     * intersection of a packet of rays with a face, keeping the hits closer than the closest ones found so far
+     *
+     * @param _face   the index of the face
+     * @param _packet the packet of rays
+     */
+    private void intersectFace(int _face, RayPacket _packet) {
+        int a = 3 * indices.get(3 * _face), b = 3 * indices.get(3 * _face + 1), c = 3 * indices.get(3 * _face + 2);
+        double ax = vertices.get(a), ay = vertices.get(a + 1), az = vertices.get(a + 2);
+        double e1x = vertices.get(b) - ax, e1y = vertices.get(b + 1) - ay, e1z = vertices.get(b + 2) - az;
+        double e2x = vertices.get(c) - ax, e2y = vertices.get(c + 1) - ay, e2z = vertices.get(c + 2) - az;
+        if (!Triangle.intersect(ax, ay, az, e1x, e1y, e1z, e2x, e2y, e2z, _packet)) return;
+
+        for (int lane = 0; lane < _packet.size; ++lane) {
+            double t = _packet.distances[lane];
+            if (!Double.isNaN(t)) _packet.hit(lane, new FaceHit(_packet.rays[lane].getPoint(t), _face), t);
+        }
+    }
+
+    /**
+     * checks whether a point lies on a face, by its barycentric coordinates in the face
+     *
+     * @param _face the index of the face
+     * @param _p    the point
+     * @return true if the point is on the face (edges included)
+     */
+    private boolean contains(int _face, Point _p) {
+        int a = 3 * indices.get(3 * _face), b = 3 * indices.get(3 * _face + 1), c = 3 * indices.get(3 * _face + 2);
+        double ax = vertices.get(a), ay = vertices.get(a + 1), az = vertices.get(a + 2);
+        double e1x = vertices.get(b) - ax, e1y = vertices.get(b + 1) - ay, e1z = vertices.get(b + 2) - az;
+        double e2x = vertices.get(c) - ax, e2y = vertices.get(c + 1) - ay, e2z = vertices.get(c + 2) - az;
+        double wx = _p.getX() - ax, wy = _p.getY() - ay, wz = _p.getZ() - az;
+
+        // the point must be in the plane of the face
+        double nx = e1y * e2z - e1z * e2y, ny = e1z * e2x - e1x * e2z, nz = e1x * e2y - e1y * e2x;
+        double nLength = Math.sqrt(nx * nx + ny * ny + nz * nz);
+        if (isZero(nLength) || !isZero((wx * nx + wy * ny + wz * nz) / nLength)) return false;
+
+        double d00 = e1x * e1x + e1y * e1y + e1z * e1z;
+        double d01 = e1x * e2x + e1y * e2y + e1z * e2z;
+        double d11 = e2x * e2x + e2y * e2y + e2z * e2z;
+        double d20 = wx * e1x + wy * e1y + wz * e1z;
+        double d21 = wx * e2x + wy * e2y + wz * e2z;
+        double denominator = d00 * d11 - d01 * d01;
+        double u = alignZero((d11 * d20 - d01 * d21) / denominator);
+        double w = alignZero((d00 * d21 - d01 * d20) / denominator);
+        return u >= 0 && w >= 0 && alignZero(u + w - 1) <= 0;
+    }
+
+    /**
+     * getting the normal of the face that contains the point - a search through all the faces,
+     * the renderer uses the normal found with the intersection instead
+     *
+     * @param _p the point
+     * @return the normal of the face that contains the point
+     * @throws IllegalArgumentException when no face contains the point
+     */
+    @Override
+    public Vector getNormal(Point _p) {
+        for (int f = 0; f < getFaceCount(); ++f)
+            if (contains(f, _p))
+                return faceNormal(f);
+        throw new IllegalArgumentException("The point is not on the mesh");
+    }
+
+    @Override
+    protected BoundingBox calcBoundingBox() {
+        return getHierarchy().getBoundingBox();
+    }
+
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray _ray, double _maxDistance) {
+        return getHierarchy().findGeoIntersectionsHelper(_ray, _maxDistance);
+    }
+
+    @Override
+    protected void findClosestIntersectionsHelper(RayPacket _packet) {
+        getHierarchy().findClosestIntersectionsHelper(_packet);
+    }
+
+    @Override
+    protected boolean forEachGeoIntersection(Ray _ray, double _maxDistance, Predicate<GeoPoint> _visitor) {
+        return getHierarchy().forEachGeoIntersection(_ray, _maxDistance, _visitor);
+    }
+
+    @Override
+    protected GeoPoint findClosestIntersectionHelper(Ray _ray, double _maxDistance) {
+        return getHierarchy().findClosestIntersectionHelper(_ray, _maxDistance);
+    }
+
+    @Override
+    public String toString() {
+        return "TriangleMesh{" +
+                "vertices=" + getVertexCount() +
+                ", faces=" + getFaceCount() +
+                '}';
+    }
+}
@@ -85,7 +85,6 @@ public class Point {
      *
      * @return the first coordinate of specifically point
      */
-    @SuppressWarnings("unused")
     public double getX() {
         return this.xyz.d1;
     }
@@ -38,8 +38,7 @@ public class Ray {
     public Ray(Point _point, Vector _direction, Vector _n) {
         // Compute the offset vector based on the orientation of the normal
         double nl = _direction.dotProduct(_n);
-        Vector offset = _n.scale(nl > 0 ? DELTA : -DELTA);
-        this.p0 = _point.add(offset);
+        this.p0 = new Vec3d(_point).addScaled(_n, nl > 0 ? DELTA : -DELTA).toPoint();
         this.dir = _direction;
     }
 
@@ -59,7 +58,7 @@ public class Ray {
      * @return the point
      */
     public Point getPoint(double _t) {
-        return isZero(_t) ? p0 : p0.add(dir.scale(_t));
+        return isZero(_t) ? p0 : new Vec3d(p0).addScaled(dir, _t).toPoint();
     }
 
     /**
@@ -0,0 +1,218 @@
+package primitives;
+
+import java.util.Arrays;
+
+import static primitives.Util.isZero;
+
+/**
+ * This class represents an affine transformation of the space by a 4x4 matrix whose last row is (0, 0, 0, 1).
+ * The inverse matrix is computed once, with the transformation.
+ *
+ * @author Yona and Aaron Mimoun
+ */
+public class Transform {
+    /**
+     * the transformation that changes nothing
+     */
+    public static final Transform IDENTITY = new Transform(
+            new double[]{1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0},
+            new double[]{1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0});
+
+    /**
+     * the first three rows of the matrix, row by row
+     */
+    private final double[] m;
+    /**
+     * the first three rows of the inverse matrix, row by row
+     */
+    private final double[] inv;
+
+    /**
+     * constructor for a transformation by its matrix
+     *
+     * @param _matrix the 4x4 matrix, row by row
+     * @throws IllegalArgumentException when the matrix is not 4x4, is not affine
+     *                                  (last row other than (0, 0, 0, 1)) or can't be inverted
+     */
+    public Transform(double[][] _matrix) {
+        if (_matrix.length != 4)
+            throw new IllegalArgumentException("The matrix of a transformation must be 4x4");
+        for (double[] row : _matrix)
+            if (row.length != 4)
+                throw new IllegalArgumentException("The matrix of a transformation must be 4x4");
+        if (_matrix[3][0] != 0 || _matrix[3][1] != 0 || _matrix[3][2] != 0 || _matrix[3][3] != 1)
+            throw new IllegalArgumentException("The last row of an affine transformation must be (0, 0, 0, 1)");
+        m = new double[12];
+        for (int i = 0; i < 3; ++i)
+            System.arraycopy(_matrix[i], 0, m, 4 * i, 4);
+        inv = invert(m);
+    }
+
+    /**
+     * constructor for a transformation by its matrix and its inverse
+     *
+     * @param _m   the first three rows of the matrix
+     * @param _inv the first three rows of the inverse matrix
+     */
+    private Transform(double[] _m, double[] _inv) {
+        m = _m;
+        inv = _inv;
+    }
+
+    /**
+     * factory for a translation
+     *
+     * @param _v the translation vector
+     * @return the translation
+     */
+    public static Transform translation(Vector _v) {
+        double x = _v.getX(), y = _v.getY(), z = _v.getZ();
+        return new Transform(new double[]{1, 0, 0, x, 0, 1, 0, y, 0, 0, 1, z},
+                new double[]{1, 0, 0, -x, 0, 1, 0, -y, 0, 0, 1, -z});
+    }
+
+    /**
+     * factory for a scaling around the origin
+     *
+     * @param _x the scale factor on the x axis
+     * @param _y the scale factor on the y axis
+     * @param _z the scale factor on the z axis
+     * @return the scaling
+     * @throws IllegalArgumentException when a factor is zero
+     */
+    public static Transform scaling(double _x, double _y, double _z) {
+        if (isZero(_x) || isZero(_y) || isZero(_z))
+            throw new IllegalArgumentException("A scaling can't have a zero factor");
+        return new Transform(new double[]{_x, 0, 0, 0, 0, _y, 0, 0, 0, 0, _z, 0},
+                new double[]{1 / _x, 0, 0, 0, 0, 1 / _y, 0, 0, 0, 0, 1 / _z, 0});
+    }
+
+    /**
+     * factory for a rotation around an axis through the origin, counterclockwise when the axis points to the viewer
+     *
+     * @param _axis  the direction of the axis
+     * @param _angle the angle of the rotation in degrees
+     * @return the rotation
+     */
+    public static Transform rotation(Vector _axis, double _angle) {
+        Vector a = _axis.normalize();
+        double x = a.getX(), y = a.getY(), z = a.getZ();
+        double radians = Math.toRadians(_angle);
+        double c = Math.cos(radians), s = Math.sin(radians), t = 1 - c;
+        double[] r = {
+                t * x * x + c, t * x * y - s * z, t * x * z + s * y, 0,
+                t * x * y + s * z, t * y * y + c, t * y * z - s * x, 0,
+                t * x * z - s * y, t * y * z + s * x, t * z * z + c, 0};
+        // the inverse of a rotation is its transpose
+        double[] rt = {r[0], r[4], r[8], 0, r[1], r[5], r[9], 0, r[2], r[6], r[10], 0};
+        return new Transform(r, rt);
+    }
+
+    /**
+     * the transformation that applies this one and then another one
+     *
+     * @param _next the transformation to apply after this one
+     * @return the composed transformation
+     */
+    public Transform then(Transform _next) {
+        return new Transform(multiply(_next.m, m), multiply(inv, _next.inv));
+    }
+
+    /**
+     * getting the inverse transformation
+     *
+     * @return the transformation that cancels this one
+     */
+    public Transform inverse() {
+        return new Transform(inv, m);
+    }
+
+    /**
+     * transforms a point
+     *
+     * @param _p the point
+     * @return the transformed point
+     */
+    public Point transform(Point _p) {
+        double x = _p.xyz.d1, y = _p.xyz.d2, z = _p.xyz.d3;
+        return new Point(m[0] * x + m[1] * y + m[2] * z + m[3],
+                m[4] * x + m[5] * y + m[6] * z + m[7],
+                m[8] * x + m[9] * y + m[10] * z + m[11]);
+    }
+
+    /**
+     * transforms a direction - the translation doesn't apply to it
+     *
+     * @param _v the direction
+     * @return the transformed direction, not normalized
+     */
+    public Vector transform(Vector _v) {
+        double x = _v.xyz.d1, y = _v.xyz.d2, z = _v.xyz.d3;
+        return new Vector(m[0] * x + m[1] * y + m[2] * z,
+                m[4] * x + m[5] * y + m[6] * z,
+                m[8] * x + m[9] * y + m[10] * z);
+    }
+
+    /**
+     * transforms a normal - by the transpose of the inverse matrix, so it stays orthogonal to the transformed surface
+     *
+     * @param _n the normal
+     * @return the transformed normal, normalized
+     */
+    public Vector transformNormal(Vector _n) {
+        double x = _n.xyz.d1, y = _n.xyz.d2, z = _n.xyz.d3;
+        return new Vector(inv[0] * x + inv[4] * y + inv[8] * z,
+                inv[1] * x + inv[5] * y + inv[9] * z,
+                inv[2] * x + inv[6] * y + inv[10] * z).normalize();
+    }
+
+    /**
+     * product of two affine matrices given by their first three rows
+     *
+     * @param _a the left matrix
+     * @param _b the right matrix
+     * @return the first three rows of a * b
+     */
+    private static double[] multiply(double[] _a, double[] _b) {
+        double[] result = new double[12];
+        for (int i = 0; i < 3; ++i) {
+            for (int j = 0; j < 4; ++j)
+                result[4 * i + j] = _a[4 * i] * _b[j] + _a[4 * i + 1] * _b[4 + j] + _a[4 * i + 2] * _b[8 + j];
+            result[4 * i + 3] += _a[4 * i + 3];
+        }
+        return result;
+    }
+
+    /**
+     * inverse of an affine matrix given by its first three rows
+     *
+     * @param _m the matrix
+     * @return the first three rows of the inverse matrix
+     * @throws IllegalArgumentException when the matrix can't be inverted
+     */
+    private static double[] invert(double[] _m) {
+        double a = _m[0], b = _m[1], c = _m[2];
+        double d = _m[4], e = _m[5], f = _m[6];
+        double g = _m[8], h = _m[9], k = _m[10];
+        double c00 = e * k - f * h, c01 = c * h - b * k, c02 = b * f - c * e;
+        double c10 = f * g - d * k, c11 = a * k - c * g, c12 = c * d - a * f;
+        double c20 = d * h - e * g, c21 = b * g - a * h, c22 = a * e - b * d;
+        double det = a * c00 + b * c10 + c * c20;
+        if (isZero(det))
+            throw new IllegalArgumentException("The matrix of a transformation must be invertible");
+
+        double[] r = {c00 / det, c01 / det, c02 / det, 0, c10 / det, c11 / det, c12 / det, 0,
+                c20 / det, c21 / det, c22 / det, 0};
+        // the inverse translation is -(R^-1 * t)
+        for (int i = 0; i < 3; ++i)
+            r[4 * i + 3] = -(r[4 * i] * _m[3] + r[4 * i + 1] * _m[7] + r[4 * i + 2] * _m[11]);
+        return r;
+    }
+
+    @Override
+    public String toString() {
+        return "Transform{" +
+                "m=" + Arrays.toString(m) +
+                '}';
+    }
+}
@@ -0,0 +1,263 @@
+package primitives;
+
+/**
+ * A mutable triad of coordinates for the calculations of the rendering hot path.
+ * <p>
+ * {@link Point} and {@link Vector} are immutable, so every operation on them allocates a new object with a
+ * new {@link Double3} - and a vector checks it isn't zero. A {@code Vec3d} is changed in place by its
+ * operations, which return it for chaining, and it is never checked: a zero triad is a valid value in the
+ * middle of a calculation. Only the result is turned back into a point or a vector.
+ * <p>
+ * A {@code Vec3d} is not thread-safe - it is a scratch value confined to the thread that uses it,
+ * like a local variable of a method. The operations compute exactly as the ones of {@link Point} and
+ * {@link Vector}, so a calculation gives the same result with both.
+ *
+ * @author Yona and Aaron Mimoun
+ */
+public final class Vec3d {
+    /**
+     * the x coordinate
+     */
+    public double x;
+    /**
+     * the y coordinate
+     */
+    public double y;
+    /**
+     * the z coordinate
+     */
+    public double z;
+
+    /**
+     * constructor for a zero triad
+     */
+    public Vec3d() {
+    }
+
+    /**
+     * constructor for a triad of coordinates
+     *
+     * @param _x the x coordinate
+     * @param _y the y coordinate
+     * @param _z the z coordinate
+     */
+    public Vec3d(double _x, double _y, double _z) {
+        x = _x;
+        y = _y;
+        z = _z;
+    }
+
+    /**
+     * constructor for the coordinates of a point or a vector
+     *
+     * @param _p the point or vector
+     */
+    public Vec3d(Point _p) {
+        set(_p);
+    }
+
+    /**
+     * sets the coordinates
+     *
+     * @param _x the x coordinate
+     * @param _y the y coordinate
+     * @param _z the z coordinate
+     * @return this triad
+     */
+    public Vec3d set(double _x, double _y, double _z) {
+        x = _x;
+        y = _y;
+        z = _z;
+        return this;
+    }
+
+    /**
+     * sets the coordinates to those of a point or a vector
+     *
+     * @param _p the point or vector
+     * @return this triad
+     */
+    public Vec3d set(Point _p) {
+        x = _p.xyz.d1;
+        y = _p.xyz.d2;
+        z = _p.xyz.d3;
+        return this;
+    }
+
+    /**
+     * adds a point or a vector to this triad
+     *
+     * @param _p the point or vector
+     * @return this triad
+     */
+    public Vec3d add(Point _p) {
+        x += _p.xyz.d1;
+        y += _p.xyz.d2;
+        z += _p.xyz.d3;
+        return this;
+    }
+
+    /**
+     * adds another triad to this triad
+     *
+     * @param _v the other triad
+     * @return this triad
+     */
+    public Vec3d add(Vec3d _v) {
+        x += _v.x;
+        y += _v.y;
+        z += _v.z;
+        return this;
+    }
+
+    /**
+     * adds a scaled vector to this triad - like {@code p.add(v.scale(s))}
+     *
+     * @param _v     the vector
+     * @param _scale the scale of the vector
+     * @return this triad
+     */
+    public Vec3d addScaled(Point _v, double _scale) {
+        x += _v.xyz.d1 * _scale;
+        y += _v.xyz.d2 * _scale;
+        z += _v.xyz.d3 * _scale;
+        return this;
+    }
+
+    /**
+     * subtracts a point or a vector from this triad
+     *
+     * @param _p the point or vector
+     * @return this triad
+     */
+    public Vec3d subtract(Point _p) {
+        x -= _p.xyz.d1;
+        y -= _p.xyz.d2;
+        z -= _p.xyz.d3;
+        return this;
+    }
+
+    /**
+     * subtracts a scaled vector from this triad - like {@code v.subtract(n.scale(s))}
+     *
+     * @param _v     the vector
+     * @param _scale the scale of the vector
+     * @return this triad
+     */
+    public Vec3d subtractScaled(Point _v, double _scale) {
+        x -= _v.xyz.d1 * _scale;
+        y -= _v.xyz.d2 * _scale;
+        z -= _v.xyz.d3 * _scale;
+        return this;
+    }
+
+    /**
+     * scales this triad by a number
+     *
+     * @param _scalar the number
+     * @return this triad
+     */
+    public Vec3d scale(double _scalar) {
+        x *= _scalar;
+        y *= _scalar;
+        z *= _scalar;
+        return this;
+    }
+
+    /**
+     * sets this triad to the cross product of two triads, which may be this one
+     *
+     * @param _a the left triad
+     * @param _b the right triad
+     * @return this triad
+     */
+    public Vec3d cross(Vec3d _a, Vec3d _b) {
+        double d1 = _a.y * _b.z - _a.z * _b.y;
+        double d2 = _a.x * _b.z - _a.z * _b.x;
+        double d3 = _a.x * _b.y - _a.y * _b.x;
+        return set(d1, -d2, d3);
+    }
+
+    /**
+     * dot product with a vector
+     *
+     * @param _v the vector
+     * @return the dot product
+     */
+    public double dot(Point _v) {
+        return x * _v.xyz.d1 + y * _v.xyz.d2 + z * _v.xyz.d3;
+    }
+
+    /**
+     * the squared length of this triad
+     *
+     * @return the squared length
+     */
+    public double lengthSquared() {
+        return x * x + y * y + z * z;
+    }
+
+    /**
+     * the length of this triad
+     *
+     * @return the length
+     */
+    public double length() {
+        return Math.sqrt(lengthSquared());
+    }
+
+    /**
+     * normalizes this triad - a zero triad becomes NaN coordinates
+     *
+     * @return this triad
+     */
+    public Vec3d normalize() {
+        double length = length();
+        x /= length;
+        y /= length;
+        z /= length;
+        return this;
+    }
+
+    /**
+     * checks whether this triad would be a zero vector
+     *
+     * @return true if all the coordinates are zero, in the sense of {@link Util#isZero(double)}
+     */
+    public boolean isZero() {
+        return Util.isZero(x) && Util.isZero(y) && Util.isZero(z);
+    }
+
+    /**
+     * the point of this triad
+     *
+     * @return a new point
+     */
+    public Point toPoint() {
+        return new Point(x, y, z);
+    }
+
+    /**
+     * the vector of this triad
+     *
+     * @return a new vector
+     * @throws IllegalArgumentException when the triad is zero
+     */
+    public Vector toVector() {
+        return new Vector(x, y, z);
+    }
+
+    /**
+     * the vector of this triad, known not to be zero - see {@link Vector#unchecked(double, double, double)}
+     *
+     * @return a new vector
+     */
+    public Vector toUncheckedVector() {
+        return Vector.unchecked(x, y, z);
+    }
+
+    @Override
+    public String toString() {
+        return "(" + x + "," + y + "," + z + ")";
+    }
+}
@@ -13,8 +13,18 @@ public class Vector extends Point {
      * @param _xyz value of 3 coordinate
      */
     Vector(Double3 _xyz) {
+        this(_xyz, true);
+    }
+
+    /**
+     * constructor for the vector, with or without the zero check
+     *
+     * @param _xyz   value of 3 coordinate
+     * @param _check whether to check that the vector is not zero
+     */
+    private Vector(Double3 _xyz, boolean _check) {
         super(_xyz);
-        if (Double3.ZERO.equals(xyz)) throw new IllegalArgumentException("ERROR: zero vector");
+        if (_check && Double3.ZERO.equals(xyz)) throw new IllegalArgumentException("ERROR: zero vector");
     }
 
     /**
@@ -29,6 +39,21 @@ public class Vector extends Point {
         if (Double3.ZERO.equals(xyz)) throw new IllegalArgumentException("ERROR: zero vector");
     }
 
+    /**
+     * factory for a vector that is known not to be zero - like a normalized vector or a triad checked with
+     * {@link Vec3d#isZero()} - without the check of the constructor. It is meant for the calculations of the
+     * renderer, which test their degenerate cases beforehand instead of catching an exception;
+     * user code should use the constructor.
+     *
+     * @param _x first number value
+     * @param _y second number value
+     * @param _z third number value
+     * @return the vector
+     */
+    public static Vector unchecked(double _x, double _y, double _z) {
+        return new Vector(new Double3(_x, _y, _z), false);
+    }
+
     /**
      * add method
      *
@@ -97,7 +122,8 @@ public class Vector extends Point {
      * @return a new vector normalized in the same direction as the original vector
      */
     public Vector normalize() {
-        return new Vector(xyz.reduce(this.length()));
+        // a vector is never zero, so its normalized vector isn't either
+        return new Vector(xyz.reduce(this.length()), false);
     }
 
     @Override
@@ -1,12 +1,14 @@
 package renderer;
 
+import geometries.RayPacket;
 import multiTreading.threadPool;
 import primitives.Color;
 import primitives.Point;
 import primitives.Ray;
+import primitives.Vec3d;
 import primitives.Vector;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.MissingResourceException;
 
@@ -132,16 +134,15 @@ public class Camera {
      * @return The ray from the camera to the pixel
      */
     public Ray constructRayThroughPixel(int nX, int nY, int j, int i) {
-        Point imgCenter = p0.add(vTo.scale(distance));
         double rY = height / nY;
         double rX = width / nX;
         double iY = -(i - (nY - 1d) / 2) * rY;
         double jX = (j - (nX - 1d) / 2) * rX;
-        Point ijP = imgCenter;
-        if (jX != 0) ijP = ijP.add(vRight.scale(jX));
-        if (iY != 0) ijP = ijP.add(vUp.scale(iY));
-        Vector ijV = ijP.subtract(p0);
-        return new Ray(p0, ijV);
+        // the point on the view plane, computed in place from the center of the image
+        Vec3d ijP = new Vec3d(p0).addScaled(vTo, distance);
+        if (jX != 0) ijP.addScaled(vRight, jX);
+        if (iY != 0) ijP.addScaled(vUp, iY);
+        return new Ray(p0, ijP.subtract(p0).toVector());
     }
 
 
@@ -178,6 +179,15 @@ public class Camera {
             return this;
         }
 
+        if (tileSize > 0) {
+            for (int i = 0; i < nY; i += tileSize) {
+                out.println(i + "/" + nY);
+                for (int j = 0; j < nX; j += tileSize)
+                    renderTile(nX, nY, j, i);
+            }
+            return this;
+        }
+
         for (int i = 0; i < nY; ++i) {
             out.println(i + "/" + nY);
             for (int j = 0; j < nX; ++j) {
@@ -187,6 +197,40 @@ public class Camera {
         return this;
     }
 
+    /**
+     * Renders a square tile of the image: the rays of all its pixels are traced together in one batch,
+     * which the ray tracer may reorder for their coherence.
+     *
+     * @param nX  The total number of pixels along the x-axis.
+     * @param nY  The total number of pixels along the y-axis.
+     * @param col The x-coordinate of the first pixel of the tile.
+     * @param row The y-coordinate of the first pixel of the tile.
+     */
+    private void renderTile(int nX, int nY, int col, int row) {
+        int endCol = Math.min(col + tileSize, nX);
+        int endRow = Math.min(row + tileSize, nY);
+        List<Ray> rays = new ArrayList<>();
+        int[] counts = new int[(endCol - col) * (endRow - row)];
+        int pixel = 0;
+        for (int i = row; i < endRow; ++i)
+            for (int j = col; j < endCol; ++j) {
+                List<Ray> pixelRays = constructRays(nX, nY, j, i);
+                rays.addAll(pixelRays);
+                counts[pixel++] = pixelRays.size();
+            }
+
+        Color[] colors = rayTracer.traceBatch(rays);
+        int k = 0;
+        pixel = 0;
+        for (int i = row; i < endRow; ++i)
+            for (int j = col; j < endCol; ++j) {
+                Color color = Color.BLACK;
+                for (int end = k + counts[pixel]; k < end; ++k)
+                    color = color.add(colors[k]);
+                imageWriter.writePixel(j, i, color.reduce(counts[pixel++]));
+            }
+    }
+
     /**
      * Create a grid [over the picture] in the pixel color map. given the grid's
      * step and color.
@@ -233,6 +277,32 @@ public class Camera {
      */
     private int numOfRays = 10;
 
+    /**
+     * the number of lanes of the packets the rays of a pixel are traced in, 0 to trace them one by one
+     */
+    private int packetSize = 0;
+
+    /**
+     * the size in pixels of the square tiles the image is rendered by, 0 to render it pixel by pixel
+     */
+    private int tileSize = 0;
+
+    /**
+     * setter of tileSize - the rays of all the pixels of a tile are traced together in a batch, so that the
+     * ray tracer may trace them in a coherent order (see {@link RayTracerBasic#setReordering(boolean)}).
+     * A tile is rendered by one thread, and its rays are not traced in packets.
+     *
+     * @param tileSize the number of pixels of the side of a tile, or 0 to render the image pixel by pixel
+     * @return the camera
+     * @throws IllegalArgumentException when the size is negative
+     */
+    public Camera setTileSize(int tileSize) {
+        if (tileSize < 0)
+            throw new IllegalArgumentException("The tile size can't be negative");
+        this.tileSize = tileSize;
+        return this;
+    }
+
     /**
      * setter of antialiasing
      *
@@ -255,6 +325,21 @@ public class Camera {
         return this;
     }
 
+    /**
+     * setter of packetSize - the rays of an anti-aliased pixel are coherent, so they can look for their
+     * intersections together in packets
+     *
+     * @param packetSize the number of rays of a packet - 4, 8 or 16, or 0 to trace the rays one by one
+     * @return the camera
+     * @throws IllegalArgumentException when the size is not 0, 4, 8 or 16
+     */
+    public Camera setPacketSize(int packetSize) {
+        if (packetSize != 0 && !RayPacket.isValidWidth(packetSize))
+            throw new IllegalArgumentException("A packet must have 4, 8 or 16 rays");
+        this.packetSize = packetSize;
+        return this;
+    }
+
     /**
      * Generates a random vector within specified ranges.
      *
@@ -263,16 +348,14 @@ public class Camera {
      * @return A randomly generated Vector object
      */
     private Vector getsRandomVector(double min, double max) {
-        boolean test = false;
-        Vector returned = null;
-        while (!test) {
-            try {
-                returned = vUp.scale(random(-min, min)).add(vRight.scale(random(-max, max)));
-                test = true;
-            } catch (IllegalArgumentException ignored) {
-            }
+        // a draw that makes a zero vector is drawn again
+        Vec3d up = new Vec3d();
+        Vec3d right = new Vec3d();
+        while (true) {
+            if (up.set(vUp).scale(random(-min, min)).isZero()) continue;
+            if (right.set(vRight).scale(random(-max, max)).isZero()) continue;
+            if (!up.add(right).isZero()) return up.toUncheckedVector();
         }
-        return returned;
     }
 
     /**
@@ -288,8 +371,14 @@ public class Camera {
     private Color calcAveragePixelColor(int nX, int nY, int j, int i) {
         List<Ray> rays = constructRays(nX, nY, j, i);
         Color color = Color.BLACK;
-        for (Ray ray : rays) //for all the rays that lon has created for anti aliasing we will look for the color and sum
-            color = color.add(rayTracer.traceRay(ray));
+        if (packetSize == 0 || rays.size() == 1)
+            for (Ray ray : rays) //for all the rays that lon has created for anti aliasing we will look for the color and sum
+                color = color.add(rayTracer.traceRay(ray));
+        else
+            for (int k = 0; k < rays.size(); k += packetSize)
+                for (Color rayColor : rayTracer.traceRays(
+                        new RayPacket(packetSize, rays.subList(k, Math.min(k + packetSize, rays.size())))))
+                    color = color.add(rayColor);
         return color.reduce(rays.size()); //the flow is divided by the number of rays
     }
 
@@ -311,7 +400,7 @@ public class Camera {
         double rY = height / (2 * nY * numOfRays * 0.05 * distance);
         double rX = width / (2 * nX * numOfRays * 0.05 * distance);
 
-        List<Ray> rays = new LinkedList<>();
+        List<Ray> rays = new ArrayList<>(numOfRays * numOfRays);
         // Construction of (rays * rays) rays in random directions
         for (int k = 0; k < numOfRays; k++) {
             for (int l = 0; l < numOfRays; l++) {
@@ -396,22 +485,27 @@ public class Camera {
         int nX = imageWriter.getNx();
         int nY = imageWriter.getNy();
 
+        // with tiles, the pixel is the first one of the next tile to draw
+        int step = tileSize > 0 ? tileSize : 1;
+
         // updates the row of the next pixel to draw
         // if got to the end, returns null
         if (nextPixel.col >= nX) {
-            if (++nextPixel.row >= nY) {
+            nextPixel.row += step;
+            if (nextPixel.row >= nY) {
                 return null;
             }
             nextPixel.col = 0;
         }
 
-        result.col = nextPixel.col++;
+        result.col = nextPixel.col;
         result.row = nextPixel.row;
+        nextPixel.col += step;
         return result;
     }
 
     /**
-     * Renders a given pixel on multithreaded rendering.
+     * Renders a given pixel - or the tile that starts at it - on multithreaded rendering.
      * If the given pixel is null, returns false which means kill the thread.
      *
      * @param p the pixel to render
@@ -423,7 +517,10 @@ public class Camera {
 
         int nX = imageWriter.getNx();
         int nY = imageWriter.getNy();
-        this.imageWriter.writePixel(p.col, p.row, calcAveragePixelColor(nX, nY, p.col, p.row));
+        if (tileSize > 0)
+            renderTile(nX, nY, p.col, p.row);
+        else
+            this.imageWriter.writePixel(p.col, p.row, calcAveragePixelColor(nX, nY, p.col, p.row));
         return true; // continue the rendering
     }
 
@@ -1,9 +1,12 @@
 package renderer;
 
+import geometries.RayPacket;
 import primitives.Color;
 import primitives.Ray;
 import scene.Scene;
 
+import java.util.List;
+
 /**
  * Abstract class representing a base class for ray tracing algorithms.
  */
@@ -30,4 +33,31 @@ public abstract class RayTraceBase {
      * @return The color calculated from tracing the ray.
      */
     public abstract Color traceRay(Ray _ray);
+
+    /**
+     * Traces a packet of coherent rays, by default one ray after the other.
+     *
+     * @param _packet The packet of rays to be traced.
+     * @return The colors calculated from tracing the rays, in the order of the packet.
+     */
+    public Color[] traceRays(RayPacket _packet) {
+        Color[] colors = new Color[_packet.size()];
+        for (int i = 0; i < colors.length; ++i)
+            colors[i] = traceRay(_packet.getRay(i));
+        return colors;
+    }
+
+    /**
+     * Traces a batch of rays - like the rays of a tile of the image - by default one ray after the other.
+     *
+     * @param _rays The rays to be traced.
+     * @return The colors calculated from tracing the rays, in the order of the batch.
+     */
+    public Color[] traceBatch(List<Ray> _rays) {
+        Color[] colors = new Color[_rays.size()];
+        int i = 0;
+        for (Ray ray : _rays)
+            colors[i++] = traceRay(ray);
+        return colors;
+    }
 }
@@ -1,11 +1,16 @@
 package renderer;
 
+import geometries.BoundingBox;
 import geometries.Intersectable.GeoPoint;
+import geometries.RayPacket;
 import lighting.LightSource;
 import primitives.*;
 import scene.Scene;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.Function;
 
 import static primitives.Util.alignZero;
 import static primitives.Util.isZero;
@@ -24,6 +29,59 @@ public class RayTracerBasic extends RayTraceBase {
      */
     private double snellParameter = 1;
 
+    /**
+     * whether the rays of a batch are traced level by level, in a coherent order - see {@link #traceBatch(List)}
+     */
+    private boolean reordering = false;
+
+    /**
+     * a ray of the tree of rays traced for a ray of a batch, with what it has found
+     */
+    private static class Node {
+        final Ray ray;
+        /**
+         * the recursion level of the ray, like the level of {@link #calcColor(GeoPoint, Ray, int, Double3)}
+         */
+        final int level;
+        /**
+         * the aggregated attenuation of the path of the ray
+         */
+        final Double3 k;
+        /**
+         * the snell parameter of the material the ray goes through
+         */
+        final double snell;
+        GeoPoint gp;
+        Vector n;
+        double nv;
+        /**
+         * the transparency toward each light, null for a light on the other side of the surface
+         */
+        Double3[] shadows;
+        /**
+         * the reflected and refracted rays, null when their effect is too small
+         */
+        Node reflected;
+        Node refracted;
+        /**
+         * the color the ray brings back
+         */
+        Color color;
+
+        Node(Ray _ray, int _level, Double3 _k, double _snell) {
+            ray = _ray;
+            level = _level;
+            k = _k;
+            snell = _snell;
+        }
+    }
+
+    /**
+     * a shadow ray of a batch, toward a light
+     */
+    private record Shadow(Node node, int light, Ray ray, double distance) {
+    }
+
     /**
      * Constructs a new instance of ray tracer with a given scene.
      *
@@ -33,6 +91,19 @@ public class RayTracerBasic extends RayTraceBase {
         super(_scene);
     }
 
+    /**
+     * setter of the reordering of the rays of a batch - for scenes with many reflections and refractions,
+     * whose secondary rays traced one after the other go every which way
+     *
+     * @param _reordering true to trace the rays of a batch level by level in a coherent order,
+     *                    false to trace them one after the other
+     * @return the ray tracer
+     */
+    public RayTracerBasic setReordering(boolean _reordering) {
+        reordering = _reordering;
+        return this;
+    }
+
     /**
      * It calculates the color of a given point on a given geometry, by adding the emission of the geometry to the local
      * effects of the geometry, and then adding the global effects of the geometry if the recursion level is greater than 1
@@ -45,7 +116,7 @@ public class RayTracerBasic extends RayTraceBase {
      */
     private Color calcColor(GeoPoint _geoPoint, Ray _ray, int _level, Double3 _k) {
         Vector v = _ray.getDir();
-        Vector n = _geoPoint.geometry.getNormal(_geoPoint.point);
+        Vector n = _geoPoint.getNormal();
         double nv = n.dotProduct(v);
         if (isZero(nv))
             return Color.BLACK;
@@ -77,16 +148,34 @@ public class RayTracerBasic extends RayTraceBase {
      * @return the color from the lights at the point
      */
     private Color calcLocalEffects(GeoPoint _gp, Vector _v, Vector _n, double _nv) {
+        return calcLocalEffects(_gp, _v, _n, _nv, null);
+    }
+
+    /**
+     * calculated light contribution from all light sources, with the transparencies toward the lights
+     * traced before or not
+     *
+     * @param _gp      the geo point we calculate the color of
+     * @param _v       the direction of the ray that caused the intersection
+     * @param _n       the normal to the geometry surface at the intersection point
+     * @param _nv      dot-product of (n,v)
+     * @param _shadows the transparency toward each light, or null to trace them now
+     * @return the color from the lights at the point
+     */
+    private Color calcLocalEffects(GeoPoint _gp, Vector _v, Vector _n, double _nv, Double3[] _shadows) {
         Color color = _gp.geometry.getEmission();
         Material material = _gp.geometry.getMaterial();
+        int i = 0;
         for (LightSource lightSource : scene.lights) {
             Vector l = lightSource.getL(_gp.point);
             double nl = _n.dotProduct(l);
             if (nl * _nv > 0) { // sign(nl) == sing(nv)
-                Color iL = lightSource.getIntensity(_gp.point).scale(transparency(_gp, lightSource, l, _n));
+                Double3 ktr = _shadows == null ? transparency(_gp, lightSource, l, _n) : _shadows[i];
+                Color iL = lightSource.getIntensity(_gp.point).scale(ktr);
                 color = color.add(iL.scale(calcDiffusive(material, nl)),
                         iL.scale(calcSpecular(material, _n, l, nl, _v)));
             }
+            ++i;
         }
         return color;
     }
@@ -97,6 +186,17 @@ public class RayTracerBasic extends RayTraceBase {
         return geoPoint == null ? scene.background : calcColor(geoPoint, _ray);
     }
 
+    @Override
+    public Color[] traceRays(RayPacket _packet) {
+        scene.geometries.findClosestIntersections(_packet);
+        Color[] colors = new Color[_packet.size()];
+        for (int i = 0; i < colors.length; ++i) {
+            GeoPoint geoPoint = _packet.getHit(i);
+            colors[i] = geoPoint == null ? scene.background : calcColor(geoPoint, _packet.getRay(i));
+        }
+        return colors;
+    }
+
     /**
      * Checks if a point is unshaded by finding any intersections between the point and the light source.
      *
@@ -128,7 +228,8 @@ public class RayTracerBasic extends RayTraceBase {
      * @return The reflected vector.
      */
     Ray constructReflectedRay(GeoPoint _gp, Vector _v, Vector _n, double _nv) {
-        Vector r = _v.subtract(_n.scale(2 * (_nv)));
+        // the reflection of a unit vector is a unit vector
+        Vector r = new Vec3d(_v).subtractScaled(_n, 2 * (_nv)).toUncheckedVector();
         return new Ray(_gp.point, r, _n);
     }
 
@@ -140,23 +241,35 @@ public class RayTracerBasic extends RayTraceBase {
      * @return The refracted vector.
      */
     Ray constructRefractedRay(GeoPoint _gp, Vector _v, Vector _n, double _nv) {
+        Ray ray = constructRefractedRay(_gp, _v, _n, _nv, snellParameter);
+        snellParameter = _gp.geometry.getMaterial().snellParameter;
+        return ray;
+    }
+
+    /***
+     * This function calculate the refracted ray from a given material - the ray then goes through the
+     * material of the geometry.
+     * @param _gp A given GeoPoint to calculate the refracted ray on its point.
+     * @param _v A given vector to calculate the refracted vector with it.
+     * @param _n The normal to the geometry.
+     * @param _snell The snell parameter of the material the ray comes from.
+     * @return The refracted vector.
+     */
+    private Ray constructRefractedRay(GeoPoint _gp, Vector _v, Vector _n, double _nv, double _snell) {
         Material material = _gp.geometry.getMaterial();
         // Without snell low:
-        if (snellParameter == material.snellParameter)
+        if (_snell == material.snellParameter)
             return new Ray(_gp.point, _v, _n);
 
         // With snell low:
         double Theta1 = Math.acos(-_nv);
-        double SinTheta2 = Math.sin(Theta1) * snellParameter / material.snellParameter;
+        double SinTheta2 = Math.sin(Theta1) * _snell / material.snellParameter;
         // There's a full reflected.
-        if (SinTheta2 * SinTheta2 > 1 || isZero(SinTheta2 * SinTheta2 - 1)) {
-            snellParameter = material.snellParameter;
+        if (SinTheta2 * SinTheta2 > 1 || isZero(SinTheta2 * SinTheta2 - 1))
             return constructReflectedRay(_gp, _v, _n, _nv);
-        }
         double Theta2 = Math.asin(SinTheta2);
         Vector nvn = _n.crossProduct(_v).crossProduct(_n).normalize();
         Vector r = _n.scale(-Math.cos(Theta2)).add(nvn.scale(SinTheta2));
-        snellParameter = material.snellParameter;
         return new Ray(_gp.point, r, _n);
     }
 
@@ -197,6 +310,156 @@ public class RayTracerBasic extends RayTraceBase {
         return (gp == null ? scene.background : calcColor(gp, _ray, _level - 1, kkx)).scale(_kx);
     }
 
+    /**
+     * Traces a batch of rays. With reordering, the trees of rays of the batch are traced level by level
+     * instead of one after the other: the rays of the batch, then all their reflected and refracted rays,
+     * and so on. Before a level is traced its rays are sorted by the octant of their direction and the
+     * Morton code of their origin, and so are the shadow rays of its hits, so that the rays traced one after
+     * the other cross the same part of the scene in about the same direction and find it in the caches.
+     * The colors are then gathered up the trees with the same operations as {@link #traceRay(Ray)}.
+     * <p>
+     * Each ray goes through the material it was refracted into, while {@link #traceRay(Ray)} keeps the
+     * material of the last refraction of the whole render - both are the same while all the materials
+     * have the same snell parameter.
+     *
+     * @param _rays The rays to be traced.
+     * @return The colors calculated from tracing the rays, in the order of the batch.
+     */
+    @Override
+    public Color[] traceBatch(List<Ray> _rays) {
+        if (!reordering) return super.traceBatch(_rays);
+
+        LightSource[] lights = scene.lights.toArray(new LightSource[0]);
+        List<Node> batch = new ArrayList<>(_rays.size());
+        for (Ray ray : _rays)
+            batch.add(new Node(ray, MAX_CALC_COLOR_LEVEL, INITIAL_K, 1));
+        List<Node> nodes = new ArrayList<>();
+        List<Node> level = batch;
+        while (!level.isEmpty()) {
+            nodes.addAll(level);
+            for (Node node : coherentOrder(level, node -> node.ray))
+                node.gp = scene.geometries.findClosestIntersection(node.ray);
+            level = traceLevel(level, lights);
+        }
+
+        // the rays of a level were created after the rays of the level before, so the rays
+        // in the reverse order come after all their reflected and refracted rays
+        for (int i = nodes.size() - 1; i >= 0; --i)
+            gatherColor(nodes.get(i));
+        Color[] colors = new Color[batch.size()];
+        for (int i = 0; i < colors.length; ++i) {
+            Node node = batch.get(i);
+            colors[i] = node.gp == null ? scene.background : node.color.add(scene.ambientLight.getIntensity());
+        }
+        return colors;
+    }
+
+    /**
+     * traces the shadow rays of the hits of a level of a batch, and creates the rays of the next level
+     *
+     * @param _level  the rays of the level, whose intersections have been found
+     * @param _lights the lights of the scene
+     * @return the reflected and refracted rays of the level
+     */
+    private List<Node> traceLevel(List<Node> _level, LightSource[] _lights) {
+        List<Shadow> shadows = new ArrayList<>();
+        List<Node> next = new ArrayList<>();
+        for (Node node : _level) {
+            if (node.gp == null) continue;
+            Vector v = node.ray.getDir();
+            node.n = node.gp.getNormal();
+            node.nv = node.n.dotProduct(v);
+            if (isZero(node.nv)) continue;
+
+            node.shadows = new Double3[_lights.length];
+            for (int i = 0; i < _lights.length; ++i) {
+                Vector l = _lights[i].getL(node.gp.point);
+                if (node.n.dotProduct(l) * node.nv > 0)
+                    shadows.add(new Shadow(node, i,
+                            new Ray(node.gp.point, new Vec3d(l).scale(-1).toUncheckedVector(), node.n),
+                            _lights[i].getDistance(node.gp.point)));
+            }
+
+            if (node.level == 1) continue;
+            Material material = node.gp.geometry.getMaterial();
+            Double3 kkr = node.k.product(material.kR);
+            if (!kkr.lowerThan(MIN_CALC_COLOR_K)) {
+                node.reflected = new Node(constructReflectedRay(node.gp, v, node.n, node.nv),
+                        node.level - 1, kkr, node.snell);
+                next.add(node.reflected);
+            }
+            Double3 kkt = node.k.product(material.kT);
+            if (!kkt.lowerThan(MIN_CALC_COLOR_K)) {
+                node.refracted = new Node(constructRefractedRay(node.gp, v, node.n, node.nv, node.snell),
+                        node.level - 1, kkt, material.snellParameter);
+                next.add(node.refracted);
+            }
+        }
+
+        for (Shadow shadow : coherentOrder(shadows, Shadow::ray))
+            shadow.node().shadows[shadow.light()] =
+                    scene.geometries.findTransparency(shadow.ray(), shadow.distance(), MIN_CALC_COLOR_K);
+        return next;
+    }
+
+    /**
+     * calculates the color a ray of a batch brings back, once the colors of its reflected and refracted rays are known -
+     * the color of {@link #calcGlobalEffect(Ray, int, Double3, Double3)} before its attenuation
+     *
+     * @param _node the ray
+     */
+    private void gatherColor(Node _node) {
+        if (_node.gp == null) {
+            _node.color = scene.background;
+            return;
+        }
+        if (isZero(_node.nv)) {
+            _node.color = Color.BLACK;
+            return;
+        }
+        Color color = calcLocalEffects(_node.gp, _node.ray.getDir(), _node.n, _node.nv, _node.shadows);
+        if (_node.level == 1) {
+            _node.color = color;
+            return;
+        }
+        Material material = _node.gp.geometry.getMaterial();
+        Color reflected = _node.reflected == null ? Color.BLACK : _node.reflected.color.scale(material.kR);
+        Color refracted = _node.refracted == null ? Color.BLACK : _node.refracted.color.scale(material.kT);
+        _node.color = color.add(reflected.add(refracted));
+    }
+
+    /**
+     * sorts rays for their coherence - by the octant of their direction, then along a Z-order curve of their origins
+     *
+     * @param _items the items of the rays
+     * @param _ray   the ray of an item
+     * @param <T>    the type of the items
+     * @return the items in the order to trace their rays
+     */
+    private static <T> List<T> coherentOrder(List<T> _items, Function<T, Ray> _ray) {
+        int n = _items.size();
+        if (n < 2) return _items;
+        List<Point> origins = new ArrayList<>(n);
+        for (T item : _items)
+            origins.add(_ray.apply(item).getPoint());
+        BoundingBox bounds = BoundingBox.of(origins);
+
+        // the octant in the 3 upper bits, the Morton code of the origin in the lower ones
+        long[] keys = new long[n];
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; ++i) {
+            Vector dir = _ray.apply(_items.get(i)).getDir();
+            long octant = (dir.getX() < 0 ? 1 : 0) | (dir.getY() < 0 ? 2 : 0) | (dir.getZ() < 0 ? 4 : 0);
+            keys[i] = octant << 61 | bounds.mortonCodeOf(origins.get(i)) >>> 2;
+            order[i] = i;
+        }
+        Arrays.sort(order, (i, j) -> Long.compareUnsigned(keys[i], keys[j]));
+        List<T> sorted = new ArrayList<>(n);
+        for (int i : order)
+            sorted.add(_items.get(i));
+        return sorted;
+    }
+
     /***
      * This function calculate the strength of the shadow in a certain point.
      * @param _gp The point to calculate the strength of the shadow at.
@@ -206,18 +469,9 @@ public class RayTracerBasic extends RayTraceBase {
      * @return The shadow's strength.
      */
     private Double3 transparency(GeoPoint _gp, LightSource _ls, Vector _l, Vector _n) {
-        Ray ray = new Ray(_gp.point, _l.scale(-1), _n);
-        List<GeoPoint> list = scene.geometries.findGeoIntersections(ray, _ls.getDistance(_gp.point));
-        if (list == null)
-            return Double3.ONE;
-
-        Double3 ktr = Double3.ONE;
-        for (GeoPoint GP1 : list) {
-            ktr = ktr.product(GP1.geometry.getMaterial().kT);
-            if (ktr.lowerThan(MIN_CALC_COLOR_K))
-                return Double3.ZERO;
-        }
-        return ktr;
+        Ray ray = new Ray(_gp.point, new Vec3d(_l).scale(-1).toUncheckedVector(), _n);
+        // the search stops at the first opaque occluder
+        return scene.geometries.findTransparency(ray, _ls.getDistance(_gp.point), MIN_CALC_COLOR_K);
     }
 
     /**
@@ -254,8 +508,8 @@ public class RayTracerBasic extends RayTraceBase {
      * @return The color of the point on the surface of the object.
      */
     Double3 calcSpecular(Material _material, Vector _n, Vector _l, double _nl, Vector _v) {
-        Vector r = _l.subtract(_n.scale(2 * _nl));
-        double vr = alignZero(_v.dotProduct(r));
+        // r = l - 2(n.l)n, computed in place
+        double vr = alignZero(new Vec3d(_l).subtractScaled(_n, 2 * _nl).dot(_v));
         return vr >= 0 ? Double3.ZERO : _material.kS.scale(Math.pow(-vr, _material.nShininess));
     }
 }
\ No newline at end of file
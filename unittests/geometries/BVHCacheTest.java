@@ -0,0 +1,163 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link BVHCache} class
+ *
+ * @author Yona &amp; Aaron Mimoun
+ */
+class BVHCacheTest {
+    @TempDir
+    Path directory;
+
+    /**
+     * 500 small spheres scattered in a 10x10x10 cube
+     *
+     * @return the spheres as primitives
+     */
+    private BVH.Primitives spheres() {
+        Intersectable[] items = new Intersectable[500];
+        for (int i = 0; i < items.length; ++i)
+            items[i] = new Sphere(new Point(i * 37 % 10, i * 71 % 10 + 0.5, i * 13 % 9 + 0.5), 0.3);
+        return BVH.of(items);
+    }
+
+    /**
+     * Test method for {@link BVHCache#get(BVH.Primitives)}.
+     *
+     * @throws IOException when the cache directory can't be listed
+     */
+    @Test
+    void testGet() throws IOException {
+        BVHCache cache = new BVHCache(directory);
+        BVH.Primitives primitives = spheres();
+        Path file = directory.resolve(String.format("%016x.bvh", BVHCache.hash(primitives)));
+        Ray ray = new Ray(new Point(3.1, 2.2, -1), new Vector(0, 0, 1));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the first build writes the hierarchy to the cache
+        BVH built = cache.get(primitives);
+        assertTrue(Files.isRegularFile(file), "TC01: No cache file");
+
+        // TC02: the hierarchy read from the cache is the built one
+        BVH read = cache.get(primitives);
+        assertEquals(built.getNodeCount(), read.getNodeCount(), "TC02: Wrong number of nodes");
+        assertEquals(built.cost(), read.cost(), "TC02: Wrong cost");
+        assertEquals(built.findClosestIntersection(ray), read.findClosestIntersection(ray),
+                "TC02: Wrong closest intersection");
+
+        // TC03: other primitives get their own file
+        cache.get(BVH.of(new Intersectable[]{new Sphere(new Point(0, 0, 1), 1d)}));
+        try (var files = Files.list(directory)) {
+            assertEquals(2, files.count(), "TC03: Wrong number of cache files");
+        }
+
+        // =============== Boundary Values Tests ==================
+        // TC11: a damaged file is ignored and written again
+        Files.write(file, new byte[100]);
+        BVH rebuilt = cache.get(primitives);
+        assertEquals(built.getNodeCount(), rebuilt.getNodeCount(), "TC11: Wrong rebuilt hierarchy");
+        assertEquals(24 + 56L * built.getNodeCount() + 52L * 500, Files.size(file), "TC11: Cache file not written again");
+    }
+
+    /**
+     * builds by hand the arrays of a hierarchy as deep as possible over spheres along the x axis -
+     * inner node 2k has the leaf of sphere k on its left and node 2k + 2 on its right,
+     * so the leaf of the last sphere is at depth n
+     *
+     * @param _n the number of spheres
+     * @return the hierarchy made of the arrays
+     */
+    private BVH chain(int _n) {
+        Intersectable[] items = new Intersectable[_n];
+        for (int i = 0; i < _n; ++i)
+            items[i] = new Sphere(new Point(i, 0, 0), 0.3);
+        BVH.Primitives primitives = BVH.of(items);
+        int nodes = 2 * _n - 1;
+        int[] order = new int[_n];
+        double[] itemBounds = new double[6 * _n];
+        double[] nodeBounds = new double[6 * nodes];
+        int[] nodeData = new int[2 * nodes];
+        for (int i = 0; i < _n; ++i) {
+            order[i] = i;
+            BoundingBox box = primitives.getBoundingBox(i);
+            System.arraycopy(new double[]{box.minX, box.minY, box.minZ, box.maxX, box.maxY, box.maxZ}, 0,
+                    itemBounds, 6 * i, 6);
+        }
+        for (int node = 0; node < nodes; ++node) {
+            System.arraycopy(new double[]{-0.3, -0.3, -0.3, _n - 0.7, 0.3, 0.3}, 0, nodeBounds, 6 * node, 6);
+            boolean isLeaf = node % 2 == 1 || node == nodes - 1;
+            nodeData[2 * node] = isLeaf ? node / 2 : node + 2;
+            nodeData[2 * node + 1] = isLeaf ? 1 : -1;
+        }
+        return new BVH(primitives, order, nodeBounds, nodeData, itemBounds);
+    }
+
+    /**
+     * Test method for the checks of {@link BVH#BVH(BVH.Primitives, int[], double[], int[], double[])}
+     * on the arrays read from the cache.
+     *
+     * @throws IOException when the cache file can't be read or written
+     */
+    @Test
+    void testReadDamaged() throws IOException {
+        BVHCache cache = new BVHCache(directory);
+        BVH.Primitives primitives = spheres();
+        BVH built = cache.get(primitives);
+        Path file = directory.resolve(String.format("%016x.bvh", BVHCache.hash(primitives)));
+        byte[] written = Files.readAllBytes(file);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the arrays of a built hierarchy are accepted
+        assertDoesNotThrow(() -> new BVH(primitives, built.order, built.nodeBounds, built.nodeData, built.itemBounds),
+                "TC01: Built hierarchy rejected");
+
+        // TC02: two inner nodes name the same child, which would lose its first parent
+        int[] shared = built.nodeData.clone();
+        int inner = 1;
+        while (shared[2 * inner + 1] >= 0) ++inner;
+        shared[2 * inner] = shared[0];
+        assertThrows(IllegalArgumentException.class,
+                () -> new BVH(primitives, built.order, built.nodeBounds, shared, built.itemBounds),
+                "TC02: Child of two nodes accepted");
+
+        // TC03: the stored box of a primitive is not its box - like stale data under a colliding hash
+        double[] stale = built.itemBounds.clone();
+        stale[0] += 0.1;
+        assertThrows(IllegalArgumentException.class,
+                () -> new BVH(primitives, built.order, built.nodeBounds, built.nodeData, stale),
+                "TC03: Stale primitive box accepted");
+
+        // TC04: a stale box in the file - the hierarchy is built and the file written again
+        byte[] damaged = written.clone();
+        ByteBuffer.wrap(damaged).order(ByteOrder.LITTLE_ENDIAN).putDouble(24 + 48 * built.getNodeCount() + 8, 0.1);
+        Files.write(file, damaged);
+        Ray ray = new Ray(new Point(3.1, 2.2, -1), new Vector(0, 0, 1));
+        assertEquals(built.findClosestIntersection(ray), cache.get(primitives).findClosestIntersection(ray),
+                "TC04: Wrong closest intersection");
+        assertArrayEquals(written, Files.readAllBytes(file), "TC04: Cache file not written again");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: a well formed hierarchy deeper than the traversal stack
+        assertThrows(IllegalArgumentException.class, () -> chain(65), "TC11: Too deep hierarchy accepted");
+
+        // TC12: a hierarchy as deep as the traversal stack
+        BVH deepest = chain(64);
+        assertEquals(new Point(63, 0, -0.3),
+                deepest.findClosestIntersection(new Ray(new Point(63, 0, -1), new Vector(0, 0, 1))).point,
+                "TC12: Wrong closest intersection in the deepest leaf");
+    }
+}
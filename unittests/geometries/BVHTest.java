@@ -0,0 +1,86 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Transform;
+import primitives.Vector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link BVH} class
+ *
+ * @author Yona &amp; Aaron Mimoun
+ */
+class BVHTest {
+
+    /**
+     * Test method for {@link BVH#refit(int[])}.
+     */
+    @Test
+    void testRefit() {
+        // a 10x10 layer of instances of a sphere of radius 0.4 on the plane z=1
+        Sphere sphere = new Sphere(new Point(0, 0, 0), 0.4);
+        List<Intersectable> items = new ArrayList<>();
+        for (int i = 0; i < 10; ++i)
+            for (int j = 0; j < 10; ++j)
+                items.add(new Instance(sphere, Transform.translation(new Vector(i, j, 1))));
+        BVH bvh = new BVH(items);
+        double cost = bvh.cost();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: a small move keeps the hierarchy good enough
+        ((Instance) items.get(0)).setTransform(Transform.translation(new Vector(0.2, 0, 1)));
+        assertTrue(bvh.refit(new int[]{0}), "TC01: Rebuild asked after a small move");
+
+        // TC02: shuffling the spheres degrades the hierarchy past the threshold
+        int[] all = new int[items.size()];
+        for (int k = 0; k < all.length; ++k) {
+            all[k] = k;
+            ((Instance) items.get(k)).setTransform(Transform.translation(new Vector(k * 37 % 10, k * 71 % 10, 1)));
+        }
+        assertFalse(bvh.refit(all), "TC02: No rebuild asked after a shuffle");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: moving the spheres back restores the cost of the built hierarchy
+        for (int k = 0; k < all.length; ++k)
+            ((Instance) items.get(k)).setTransform(Transform.translation(new Vector(k / 10, k % 10, 1)));
+        assertTrue(bvh.refit(all), "TC11: Rebuild asked after moving back");
+        assertEquals(cost, bvh.cost(), 1e-9, "TC11: Wrong cost after moving back");
+    }
+
+    /**
+     * Test method for {@link BVH#BVH(BVH.Primitives, int)}.
+     */
+    @Test
+    void testBuild() {
+        // 5000 small spheres scattered in a 100x100x100 cube
+        Intersectable[] items = new Intersectable[5000];
+        for (int i = 0; i < items.length; ++i)
+            items[i] = new Sphere(new Point(i * 37 % 100, i * 71 % 100 + 0.5, i * 13 % 97 + 0.5), 0.3);
+        BVH serial = new BVH(BVH.of(items), Integer.MAX_VALUE);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: a build split between many tasks gives the hierarchy of the serial build
+        BVH parallel = new BVH(BVH.of(items), 64);
+        assertEquals(serial.getNodeCount(), parallel.getNodeCount(), "TC01: Wrong number of nodes");
+        assertEquals(serial.cost(), parallel.cost(), "TC01: Wrong cost");
+        for (int x = 0; x < 100; x += 7)
+            for (int y = 0; y < 100; y += 3) {
+                Ray ray = new Ray(new Point(x + 0.1, y + 0.2, -1), new Vector(0.01, 0.02, 1));
+                assertEquals(serial.findClosestIntersection(ray), parallel.findClosestIntersection(ray),
+                        "TC01: Wrong closest intersection");
+            }
+
+        // TC02: the build reports its time
+        assertTrue(parallel.getBuildTime() > 0, "TC02: No build time");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: a hierarchy over no primitive
+        assertEquals(0, new BVH(BVH.of(new Intersectable[0]), 1).getNodeCount(), "TC11: Nodes in an empty hierarchy");
+    }
+}
@@ -0,0 +1,114 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link BoundingBox} class
+ *
+ * @author Yona &amp; Aaron Mimoun
+ */
+class BoundingBoxTest {
+
+    /**
+     * Test method for {@link Intersectable#getBoundingBox()}.
+     */
+    @Test
+    void testGetBoundingBox() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: box of a sphere
+        BoundingBox box = new Sphere(new Point(1, 2, 3), 1d).getBoundingBox();
+        assertEquals(new Point(0, 1, 2), box.getMin(), "TC01: Bad lower corner of sphere box");
+        assertEquals(new Point(2, 3, 4), box.getMax(), "TC01: Bad upper corner of sphere box");
+
+        // TC02: box of a cylinder along the y axis
+        box = new Cylinder(new Ray(new Point(0, 0, 0), new Vector(0, 1, 0)), 1, 3).getBoundingBox();
+        assertEquals(new Point(-1, 0, -1), box.getMin(), "TC02: Bad lower corner of cylinder box");
+        assertEquals(new Point(1, 3, 1), box.getMax(), "TC02: Bad upper corner of cylinder box");
+
+        // TC03: box of a group is the union of the boxes of its geometries
+        Geometries group = new Geometries(new Sphere(new Point(0, 0, 0), 1d), new Sphere(new Point(5, 0, 0), 1d));
+        box = group.getBoundingBox();
+        assertEquals(new Point(-1, -1, -1), box.getMin(), "TC03: Bad lower corner of group box");
+        assertEquals(new Point(6, 1, 1), box.getMax(), "TC03: Bad upper corner of group box");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: an unbounded geometry has no box
+        assertNull(new Plane(new Point(0, 0, 0), new Vector(0, 0, 1)).getBoundingBox(), "TC11: Plane has a box");
+
+        // TC12: a group with an unbounded geometry has no box
+        group.add(new Plane(new Point(0, 0, 0), new Vector(0, 0, 1)));
+        assertNull(group.getBoundingBox(), "TC12: Group with a plane has a box");
+    }
+
+    /**
+     * Test method for {@link BoundingBox#intersects(Ray, double)}.
+     */
+    @Test
+    void testIntersects() {
+        BoundingBox box = new BoundingBox(0, 0, 0, 1, 1, 1);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the ray crosses the box
+        assertTrue(box.intersects(new Ray(new Point(-1, 0.5, 0.5), new Vector(1, 0.1, 0)), Double.POSITIVE_INFINITY),
+                "TC01: Ray through the box is rejected");
+
+        // TC02: the ray misses the box
+        assertFalse(box.intersects(new Ray(new Point(-1, 2, 0.5), new Vector(1, 0, 0)), Double.POSITIVE_INFINITY),
+                "TC02: Ray beside the box is accepted");
+
+        // TC03: the box is behind the ray
+        assertFalse(box.intersects(new Ray(new Point(2, 0.5, 0.5), new Vector(1, 0, 0)), Double.POSITIVE_INFINITY),
+                "TC03: Box behind the ray is accepted");
+
+        // TC04: the box is farther than the maximum distance
+        assertFalse(box.intersects(new Ray(new Point(-2, 0.5, 0.5), new Vector(1, 0, 0)), 1),
+                "TC04: Box farther than the maximum distance is accepted");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: the ray starts inside the box
+        assertTrue(box.intersects(new Ray(new Point(0.5, 0.5, 0.5), new Vector(0, 0, 1)), Double.POSITIVE_INFINITY),
+                "TC11: Ray from inside the box is rejected");
+
+        // TC12: the ray is parallel to a face and outside of the box
+        assertFalse(box.intersects(new Ray(new Point(-1, 0.5, 1.5), new Vector(1, 0, 0)), Double.POSITIVE_INFINITY),
+                "TC12: Ray parallel to a face outside of the box is accepted");
+    }
+
+    /**
+     * Test method for {@link BoundingBox#mortonCode(BoundingBox)} and {@link BoundingBox#mortonCodeOf(Point)}.
+     */
+    @Test
+    void testMortonCode() {
+        BoundingBox bounds = new BoundingBox(0, 0, 0, 8, 8, 8);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the eight octants of the bounds follow the Z-order - x is the lowest bit
+        BoundingBox[] octants = new BoundingBox[8];
+        for (int i = 0; i < 8; ++i) {
+            int x = (i & 1) * 4, y = (i >> 1 & 1) * 4, z = (i >> 2 & 1) * 4;
+            octants[i] = new BoundingBox(x, y, z, x + 4, y + 4, z + 4);
+        }
+        for (int i = 1; i < 8; ++i)
+            assertTrue(octants[i - 1].mortonCode(bounds) < octants[i].mortonCode(bounds),
+                    "TC01: Octants out of the Z-order");
+
+        // TC02: a box in the first cell of the bounds
+        assertEquals(0, new BoundingBox(0, 0, 0, 1e-9, 1e-9, 1e-9).mortonCode(bounds), "TC02: Wrong first code");
+
+        // TC03: the code of a point is the code of a box around it
+        assertEquals(octants[5].mortonCode(bounds), bounds.mortonCodeOf(new Point(6, 2, 6)), "TC03: Wrong point code");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: a box in the last cell of the bounds
+        assertEquals((1L << 63) - 1, new BoundingBox(8, 8, 8, 8, 8, 8).mortonCode(bounds), "TC11: Wrong last code");
+
+        // TC12: flat bounds
+        assertEquals(0, new BoundingBox(1, 1, 1, 1, 1, 1).mortonCode(new BoundingBox(1, 1, 1, 1, 1, 1)),
+                "TC12: Wrong code in flat bounds");
+    }
+}
@@ -5,7 +5,10 @@ import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 /**
  * Unit tests for {@link Cylinder} class
@@ -45,4 +48,55 @@ class CylinderTest {
         assertEquals(new Vector(0, 1, 0), cyl.getNormal(new Point(0, 1, 2)), "Bad normal to edge with upper base");
 
     }
+
+    /**
+     * Test method for {@link Cylinder#findIntersections(Ray)}.
+     */
+    @Test
+    void testFindIntersections() {
+        Cylinder cyl = new Cylinder(new Ray(new Point(0, 0, 0), new Vector(0, 0, 1)), 1, 2);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Ray crosses the side twice
+        assertEquals(List.of(new Point(-1, 0, 1), new Point(1, 0, 1)),
+                cyl.findIntersections(new Ray(new Point(-2, 0, 1), new Vector(1, 0, 0))), "TC01: Wrong points on the side");
+
+        // TC02: Ray crosses both caps
+        assertEquals(List.of(new Point(0, 0.5, 0), new Point(0, 0.5, 2)),
+                cyl.findIntersections(new Ray(new Point(0, 0.5, -1), new Vector(0, 0, 1))), "TC02: Wrong points on the caps");
+
+        // TC03: Ray enters by a cap and goes out by the side
+        assertEquals(List.of(new Point(0.4, 0, 0), new Point(1, 0, 1.5)),
+                cyl.findIntersections(new Ray(new Point(0, 0, -1), new Vector(0.4, 0, 1))), "TC03: Wrong points on a cap and the side");
+
+        // TC04: Ray misses the cylinder
+        assertNull(cyl.findIntersections(new Ray(new Point(-2, 3, 1), new Vector(1, 0, 0))), "TC04: Wrong intersections");
+
+        // TC05: Ray starts inside the cylinder
+        assertEquals(List.of(new Point(1, 0, 1)),
+                cyl.findIntersections(new Ray(new Point(0, 0, 1), new Vector(1, 0, 0))), "TC05: Wrong point from inside");
+
+        // TC06: Cylinder with a slanted axis
+        Cylinder slanted = new Cylinder(new Ray(new Point(0, 0, 0), new Vector(1, 1, 0)), 1, 4);
+        assertEquals(List.of(new Point(1, 1, -1), new Point(1, 1, 1)),
+                slanted.findIntersections(new Ray(new Point(1, 1, -5), new Vector(0, 0, 1))), "TC06: Wrong points on a slanted cylinder");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Ray along the side, through the rims of the caps
+        assertNull(cyl.findIntersections(new Ray(new Point(1, 0, -1), new Vector(0, 0, 1))), "TC11: Intersections on the rims");
+
+        // TC12: Ray parallel to the caps, above the cylinder
+        assertNull(cyl.findIntersections(new Ray(new Point(-2, 0, 3), new Vector(1, 0, 0))), "TC12: Intersections above the cylinder");
+
+        // TC13: the second point is beyond the maximum distance
+        assertEquals(1, cyl.findGeoIntersections(new Ray(new Point(-2, 0, 1), new Vector(1, 0, 0)), 2).size(),
+                "TC13: Wrong number of points with a maximum distance");
+
+        // TC14: Ray starts after the cylinder and goes away from it
+        assertNull(cyl.findIntersections(new Ray(new Point(10, 0, 1), new Vector(1, 0, 0))), "TC14: Intersections behind the ray");
+
+        // TC15: the closest point is on the side facing the ray
+        assertEquals(new Point(1, 0, 1), cyl.findClosestIntersection(new Ray(new Point(3, 0, 1), new Vector(-1, 0, 0))).point,
+                "TC15: Wrong closest point");
+    }
 }
\ No newline at end of file
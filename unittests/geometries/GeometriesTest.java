@@ -1,12 +1,16 @@
 package geometries;
 
 import org.junit.jupiter.api.Test;
+import primitives.Double3;
+import primitives.Material;
 import primitives.Point;
 import primitives.Ray;
+import primitives.Transform;
 import primitives.Vector;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 /**
  * Unit tests for {@link Geometries} class
@@ -50,4 +54,231 @@ public class GeometriesTest {
         assertEquals(4, ge.findIntersections(new Ray(new Point(1.79961, 4.57061, -0.28315), new Vector(-1.12, -1.84, 0.28))).size(),
                 "TC14: The findIntersections did`nt work currently when the ray intersect all shapes");
     }
+
+    /**
+     * Test method for {@link Geometries#findIntersections(Ray)} on a set large enough to be organized in a hierarchy
+     */
+    @Test
+    void testFindIntersectionsHierarchy() {
+        // 10x10 spheres of radius 0.4 on the plane z=0, with a plane below them
+        Geometries geometries = new Geometries(new Plane(new Point(0, 0, -5), new Vector(0, 0, 1)));
+        for (int i = 0; i < 10; ++i)
+            for (int j = 0; j < 10; ++j)
+                geometries.add(new Sphere(new Point(i, j, 0), 0.4));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the ray goes along a row of spheres
+        assertEquals(20, geometries.findIntersections(new Ray(new Point(-1, 3, 0), new Vector(1, 0, 0))).size(),
+                "TC01: Wrong number of points along a row of spheres");
+
+        // TC02: the ray crosses one sphere and the unbounded plane
+        assertEquals(3, geometries.findIntersections(new Ray(new Point(4, 4, 5), new Vector(0, 0, -1))).size(),
+                "TC02: Wrong number of points through one sphere and the plane");
+
+        // TC03: the ray goes between the spheres and misses everything
+        assertNull(geometries.findIntersections(new Ray(new Point(4.5, 4.5, 5), new Vector(0, 0, 1))),
+                "TC03: Wrong intersections between the spheres");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: a sphere added after the first intersection is found
+        geometries.add(new Sphere(new Point(4.5, 4.5, 8), 0.4));
+        assertEquals(2, geometries.findIntersections(new Ray(new Point(4.5, 4.5, 5), new Vector(0, 0, 1))).size(),
+                "TC11: Geometry added after the first intersection is not found");
+    }
+
+    /**
+     * Test method for {@link Geometries#findClosestIntersection(Ray, double)}.
+     */
+    @Test
+    void testFindClosestIntersection() {
+        // a row of 10 spheres of radius 0.4 on the x axis, with a plane behind them
+        Geometries geometries = new Geometries(new Plane(new Point(20, 0, 0), new Vector(1, 0, 0)));
+        for (int i = 0; i < 10; ++i)
+            geometries.add(new Sphere(new Point(i, 0, 0), 0.4));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the closest point is on the first sphere of the row
+        assertEquals(new Point(-0.4, 0, 0),
+                geometries.findClosestIntersection(new Ray(new Point(-1, 0, 0), new Vector(1, 0, 0))).point,
+                "TC01: Wrong closest point along a row of spheres");
+
+        // TC02: the ray misses the spheres and hits the unbounded plane
+        assertEquals(new Point(20, 5, 0),
+                geometries.findClosestIntersection(new Ray(new Point(-1, 5, 0), new Vector(1, 0, 0))).point,
+                "TC02: Wrong closest point on the plane");
+
+        // TC03: the ray starts between two spheres
+        assertEquals(new Point(5.6, 0, 0),
+                geometries.findClosestIntersection(new Ray(new Point(5.5, 0, 0), new Vector(1, 0, 0))).point,
+                "TC03: Wrong closest point from between the spheres");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: the maximum distance stops before the first sphere
+        assertNull(geometries.findClosestIntersection(new Ray(new Point(-1, 0, 0), new Vector(1, 0, 0)), 0.5),
+                "TC11: Closest point beyond the maximum distance");
+
+        // TC12: the maximum distance reaches exactly the first sphere
+        assertEquals(new Point(-0.4, 0, 0),
+                geometries.findClosestIntersection(new Ray(new Point(-1, 0, 0), new Vector(1, 0, 0)), 0.6).point,
+                "TC12: Wrong closest point at the maximum distance");
+    }
+
+    /**
+     * Test method for {@link Geometries#findTransparency(Ray, double, double)}.
+     */
+    @Test
+    void testFindTransparency() {
+        // two half transparent spheres on the x axis, and an opaque one after them
+        Geometries geometries = new Geometries(
+                new Sphere(new Point(0, 0, 0), 0.4).setMaterial(new Material().setKt(0.5)),
+                new Sphere(new Point(1, 0, 0), 0.4).setMaterial(new Material().setKt(0.5)),
+                new Sphere(new Point(2, 0, 0), 0.4));
+        Ray ray = new Ray(new Point(-1, 0, 0), new Vector(1, 0, 0));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the light goes through both sides of the first two spheres
+        assertEquals(new Double3(0.0625), geometries.findTransparency(ray, 2.5, 0.001),
+                "TC01: Wrong transparency through transparent spheres");
+
+        // TC02: the opaque sphere blocks the light
+        assertEquals(Double3.ZERO, geometries.findTransparency(ray, 5, 0.001),
+                "TC02: Light goes through an opaque sphere");
+
+        // TC03: nothing between the point and the light
+        assertEquals(Double3.ONE, geometries.findTransparency(new Ray(new Point(-1, 5, 0), new Vector(1, 0, 0)), 5, 0.001),
+                "TC03: Wrong transparency with no occluder");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: the transparency falls under the threshold before the opaque sphere
+        assertEquals(Double3.ZERO, geometries.findTransparency(ray, 2.5, 0.1),
+                "TC11: Transparency under the threshold is not cut");
+    }
+
+    /**
+     * Test method for {@link Geometries#refit(Intersectable...)}.
+     */
+    @Test
+    void testRefit() {
+        // a row of 10 instances of a sphere of radius 0.4 on the line y=0, z=5
+        Sphere sphere = new Sphere(new Point(0, 0, 0), 0.4);
+        Instance[] instances = new Instance[10];
+        Geometries geometries = new Geometries();
+        for (int i = 0; i < 10; ++i) {
+            instances[i] = new Instance(sphere, Transform.translation(new Vector(i, 0, 5)));
+            geometries.add(instances[i]);
+        }
+        Ray ray = new Ray(new Point(3, 5, 5), new Vector(0, -1, 0));
+        assertEquals(new Point(3, 0.4, 5), geometries.findClosestIntersection(ray).point,
+                "Wrong closest point before the move");
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: a sphere moved a little is found at its new place
+        instances[3].setTransform(Transform.translation(new Vector(3, 1, 5)));
+        geometries.refit(instances[3]);
+        assertEquals(new Point(3, 1.4, 5), geometries.findClosestIntersection(ray).point,
+                "TC01: Wrong closest point after a small move");
+
+        // TC02: spheres moved far away from where the index was built are found at their new places
+        for (int i = 0; i < 10; ++i)
+            instances[i].setTransform(Transform.translation(new Vector(0, 0, 10 * i + 5)));
+        geometries.refit(instances);
+        assertNull(geometries.findClosestIntersection(ray), "TC02: Sphere found at its old place");
+        assertEquals(new Point(0, 0.4, 55),
+                geometries.findClosestIntersection(new Ray(new Point(0, 5, 55), new Vector(0, -1, 0))).point,
+                "TC02: Wrong closest point after a large move");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: the bounding box of the set follows the moves
+        assertEquals(95.4, geometries.getBoundingBox().getMax().getZ(), 1e-5,
+                "TC11: Wrong bounding box after the moves");
+    }
+
+    /**
+     * Test method for {@link Geometries#commit()}.
+     */
+    @Test
+    void testCommit() {
+        // 300 small spheres, a mesh of two faces and a plane added in a scattered order
+        Geometries geometries = new Geometries();
+        Geometries reference = new Geometries();
+        for (int i = 0; i < 300; ++i) {
+            Sphere sphere = new Sphere(new Point(i * 37 % 20, i * 71 % 20, i * 13 % 19 + 1), 0.3);
+            geometries.add(sphere);
+            reference.add(sphere);
+        }
+        TriangleMesh mesh = new TriangleMesh(new double[]{0, 0, 30, 20, 0, 30, 20, 20, 30, 0, 20, 30},
+                new int[]{0, 1, 2, 0, 2, 3});
+        Plane plane = new Plane(new Point(0, 0, -1), new Vector(0, 0, 1));
+        geometries.add(mesh, plane);
+        reference.add(mesh, plane);
+        geometries.commit();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the committed set finds the same intersections
+        for (int i = 0; i < 50; ++i) {
+            Ray ray = new Ray(new Point(i * 0.4, i * 0.37, -5), new Vector(0.01 * i, 0.2, 1));
+            assertEquals(reference.findClosestIntersection(ray), geometries.findClosestIntersection(ray),
+                    "TC01: Wrong closest intersection");
+            assertEquals(reference.findIntersections(ray).size(), geometries.findIntersections(ray).size(),
+                    "TC01: Wrong number of intersections");
+        }
+
+        // TC02: the other indexes over the committed set
+        geometries.setAcceleration(Geometries.Acceleration.GRID).commit();
+        Ray ray = new Ray(new Point(3.1, 2.2, -5), new Vector(0, 0, 1));
+        assertEquals(reference.findClosestIntersection(ray), geometries.findClosestIntersection(ray),
+                "TC02: Wrong closest intersection with a grid");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: an empty set
+        assertNull(new Geometries().commit().findIntersections(ray), "TC11: Intersections with an empty set");
+    }
+
+    /**
+     * Test method for {@link Geometries#replace(Intersectable, Intersectable)}
+     * and {@link Geometries#remove(Intersectable...)}.
+     */
+    @Test
+    void testReplace() {
+        // a heavy mesh of two faces on z=10 and a row of 10 spheres of radius 0.4 on the line y=0, z=5
+        TriangleMesh mesh = new TriangleMesh(new double[]{-1, -1, 10, 10, -1, 10, 10, 1, 10, -1, 1, 10},
+                new int[]{0, 1, 2, 0, 2, 3});
+        Sphere[] spheres = new Sphere[10];
+        Geometries geometries = new Geometries(mesh);
+        for (int i = 0; i < 10; ++i) {
+            spheres[i] = new Sphere(new Point(i, 0, 5), 0.4);
+            geometries.add(spheres[i]);
+        }
+        Ray ray = new Ray(new Point(3, 0, 0), new Vector(0, 0, 1));
+        assertEquals(new Point(3, 0, 4.6), geometries.findClosestIntersection(ray).point,
+                "Wrong closest point before the swap");
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: a sphere swapped for a larger one
+        Sphere larger = new Sphere(new Point(3, 0, 5), 1d);
+        geometries.replace(spheres[3], larger);
+        assertEquals(new Point(3, 0, 4), geometries.findClosestIntersection(ray).point,
+                "TC01: Wrong closest point after the swap");
+
+        // TC02: the sphere swapped back
+        geometries.replace(larger, spheres[3]);
+        assertEquals(new Point(3, 0, 4.6), geometries.findClosestIntersection(ray).point,
+                "TC02: Wrong closest point after the swap back");
+
+        // TC03: the sphere removed, the ray reaches the mesh
+        geometries.remove(spheres[3]);
+        assertEquals(new Point(3, 0, 10), geometries.findClosestIntersection(ray).point,
+                "TC03: Wrong closest point after the removal");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: a sphere swapped for an unbounded plane
+        geometries.replace(spheres[5], new Plane(new Point(0, 0, 1), new Vector(0, 0, 1)));
+        assertEquals(new Point(3, 0, 1), geometries.findClosestIntersection(ray).point,
+                "TC11: Wrong closest point after a swap for a plane");
+        assertNull(geometries.getBoundingBox(), "TC11: Bounding box with a plane");
+
+        // TC12: a geometry that is not in the set
+        assertThrows(IllegalArgumentException.class, () -> geometries.replace(spheres[3], larger),
+                "TC12: Removed geometry replaced");
+    }
 }
@@ -0,0 +1,87 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import static geometries.Geometries.Acceleration.GRID;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link Grid} class
+ *
+ * @author Yona &amp; Aaron Mimoun
+ */
+class GridTest {
+
+    /**
+     * builds a set of 10x10 spheres of radius 0.4 on the plane z=0 organized in a grid
+     *
+     * @return the set of spheres
+     */
+    private Geometries spheres() {
+        Geometries geometries = new Geometries().setAcceleration(GRID);
+        for (int i = 0; i < 10; ++i)
+            for (int j = 0; j < 10; ++j)
+                geometries.add(new Sphere(new Point(i, j, 0), 0.4));
+        return geometries;
+    }
+
+    /**
+     * Test method for {@link Geometries#findIntersections(Ray)} with a grid.
+     */
+    @Test
+    void testFindIntersections() {
+        Geometries geometries = spheres();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the ray goes along a row of spheres
+        assertEquals(20, geometries.findIntersections(new Ray(new Point(-1, 3, 0), new Vector(1, 0, 0))).size(),
+                "TC01: Wrong number of points along a row of spheres");
+
+        // TC02: the ray goes along a diagonal through the cells
+        assertEquals(20, geometries.findIntersections(new Ray(new Point(-1, -1, 0), new Vector(1, 1, 0))).size(),
+                "TC02: Wrong number of points along a diagonal of spheres");
+
+        // TC03: the ray misses the grid
+        assertNull(geometries.findIntersections(new Ray(new Point(-1, -1, 5), new Vector(1, 1, 0))),
+                "TC03: Wrong intersections outside of the grid");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: a sphere that spans several cells is found only once
+        geometries.add(new Sphere(new Point(4.5, 4.5, 0), 3d));
+        assertEquals(2, geometries.findIntersections(new Ray(new Point(4.5, 4.5, 5), new Vector(0, 0, -1))).size(),
+                "TC11: Wrong number of points through a large sphere");
+
+        // TC12: the ray starts inside the grid
+        assertEquals(8, geometries.findIntersections(new Ray(new Point(5.5, 1, 0), new Vector(1, 0, 0))).size(),
+                "TC12: Wrong number of points from inside the grid");
+    }
+
+    /**
+     * Test method for {@link Geometries#findClosestIntersection(Ray)} with a grid.
+     */
+    @Test
+    void testFindClosestIntersection() {
+        Geometries geometries = spheres();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the closest point is on the first sphere of the row
+        assertEquals(new Point(-0.4, 3, 0),
+                geometries.findClosestIntersection(new Ray(new Point(-1, 3, 0), new Vector(1, 0, 0))).point,
+                "TC01: Wrong closest point along a row of spheres");
+
+        // TC02: the closest point is on the first sphere of the reversed row
+        assertEquals(new Point(9.4, 3, 0),
+                geometries.findClosestIntersection(new Ray(new Point(12, 3, 0), new Vector(-1, 0, 0))).point,
+                "TC02: Wrong closest point along a reversed row of spheres");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: a large sphere reaches the ray in a cell before the cell of its center
+        geometries.add(new Sphere(new Point(6, 3, 0.5), 2d));
+        assertEquals(new Point(-0.4, 3, 0),
+                geometries.findClosestIntersection(new Ray(new Point(-1, 3, 0), new Vector(1, 0, 0))).point,
+                "TC11: Wrong closest point with an overlapping sphere");
+    }
+}
@@ -0,0 +1,101 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.Double3;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Transform;
+import primitives.Vector;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link Instance} class
+ *
+ * @author Yona &amp; Aaron Mimoun
+ */
+class InstanceTest {
+    /**
+     * the shared object - a unit sphere at the origin
+     */
+    private final Geometries object = new Geometries(new Sphere(Point.ZERO, 1d));
+
+    /**
+     * Test method for {@link Instance#findGeoIntersections(Ray)}.
+     */
+    @Test
+    void testFindIntersections() {
+        // the sphere scaled by 2 and moved to (10, 0, 0)
+        Instance instance = new Instance(object, Transform.scaling(2, 2, 2).then(Transform.translation(new Vector(10, 0, 0))));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the ray crosses the transformed sphere
+        var result = instance.findGeoIntersections(new Ray(new Point(0, 0, 0), new Vector(1, 0, 0)));
+        assertEquals(2, result.size(), "TC01: Wrong number of points");
+        assertEquals(new Point(8, 0, 0), result.get(0).point, "TC01: Wrong point in the scene");
+        assertEquals(new Vector(-1, 0, 0), result.get(0).getNormal(), "TC01: Wrong normal in the scene");
+
+        // TC02: the ray crosses the original place of the sphere only
+        assertNull(instance.findIntersections(new Ray(new Point(0, 5, 0), new Vector(0, -1, 0))),
+                "TC02: Intersection with the untransformed sphere");
+
+        // TC03: the closest point in the scene
+        assertEquals(new Point(12, 0, 0),
+                instance.findClosestIntersection(new Ray(new Point(20, 0, 0), new Vector(-1, 0, 0))).point,
+                "TC03: Wrong closest point");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: the maximum distance is in the scene, not in the space of the object
+        assertEquals(1, instance.findGeoIntersections(new Ray(new Point(0, 0, 0), new Vector(1, 0, 0)), 9).size(),
+                "TC11: Wrong maximum distance");
+
+        // TC12: the bounding box is transformed
+        BoundingBox box = instance.getBoundingBox();
+        assertEquals(8, box.getMin().getX(), 1e-5, "TC12: Wrong bounding box");
+        assertEquals(12, box.getMax().getX(), 1e-5, "TC12: Wrong bounding box");
+    }
+
+    /**
+     * Test method for {@link Instance#findClosestIntersection(Ray)} with a non-uniform scaling.
+     */
+    @Test
+    void testNormal() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the sphere stretched into an ellipsoid keeps normals orthogonal to its surface
+        Instance instance = new Instance(object, Transform.scaling(1, 3, 1));
+        var gp = instance.findClosestIntersection(new Ray(new Point(0, 0, 5), new Vector(0, 0, -1)));
+        assertEquals(new Point(0, 0, 1), gp.point, "TC01: Wrong point on the ellipsoid");
+        assertEquals(new Vector(0, 0, 1), gp.getNormal(), "TC01: Wrong normal on the ellipsoid");
+    }
+
+    /**
+     * Test method for {@link Instance#findTransparency(Ray, double, double)}.
+     */
+    @Test
+    void testFindTransparency() {
+        int[] normals = {0};
+        Sphere counted = new Sphere(Point.ZERO, 1d) {
+            @Override
+            public Vector getNormal(Point _p) {
+                ++normals[0];
+                return super.getNormal(_p);
+            }
+        };
+        Instance instance = new Instance(new Geometries(counted), Transform.translation(new Vector(10, 0, 0)));
+        Ray ray = new Ray(new Point(0, 0, 0), new Vector(1, 0, 0));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: a shadow ray through the instance needs no normal
+        assertEquals(Double3.ZERO, instance.findTransparency(ray, Double.POSITIVE_INFINITY, 0.001),
+                "TC01: Light through an opaque sphere");
+        assertEquals(0, normals[0], "TC01: Normal computed for a shadow ray");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: the normal of a hit is brought into the scene once, when it is asked for
+        var gp = instance.findClosestIntersection(ray);
+        assertEquals(0, normals[0], "TC11: Normal computed before it is asked for");
+        assertEquals(new Vector(-1, 0, 0), gp.getNormal(), "TC11: Wrong normal in the scene");
+        assertEquals(gp.getNormal(), gp.getNormal(), "TC11: Different normals of the same hit");
+        assertEquals(1, normals[0], "TC11: Normal computed more than once");
+    }
+}
@@ -0,0 +1,147 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.Double3;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link KDTree} class
+ *
+ * @author Yona &amp; Aaron Mimoun
+ */
+class KDTreeTest {
+
+    /**
+     * sphere that counts how many times a ray is tested against it
+     */
+    private static class CountedSphere extends Sphere {
+        int tests = 0;
+
+        CountedSphere(Point _center, double _radius) {
+            super(_center, _radius);
+        }
+
+        @Override
+        protected List<GeoPoint> findGeoIntersectionsHelper(Ray _ray, double _maxDistance) {
+            ++tests;
+            return super.findGeoIntersectionsHelper(_ray, _maxDistance);
+        }
+
+        @Override
+        protected GeoPoint findClosestIntersectionHelper(Ray _ray, double _maxDistance) {
+            ++tests;
+            return super.findClosestIntersectionHelper(_ray, _maxDistance);
+        }
+    }
+
+    /**
+     * builds a row of 10 spheres of radius 0.5 along the x axis, 2 apart - each in a leaf of its own
+     *
+     * @return the spheres
+     */
+    private List<CountedSphere> row() {
+        List<CountedSphere> spheres = new ArrayList<>();
+        for (int i = 0; i < 10; ++i)
+            spheres.add(new CountedSphere(new Point(2 * i, 0, 0), 0.5));
+        return spheres;
+    }
+
+    /**
+     * Test method for {@link KDTree#findClosestIntersectionHelper(Ray, double)}.
+     */
+    @Test
+    void testFindClosestIntersection() {
+        List<CountedSphere> spheres = row();
+        KDTree tree = new KDTree(new ArrayList<>(spheres));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the leaves are visited front to back and the search stops at the leaf of the closest hit
+        assertEquals(new Point(-0.5, 0, 0),
+                tree.findClosestIntersection(new Ray(new Point(-1, 0, 0), new Vector(1, 0, 0))).point,
+                "TC01: Wrong closest point");
+        for (int i = 1; i < 10; ++i)
+            assertEquals(0, spheres.get(i).tests, "TC01: A sphere behind the closest hit was tested");
+
+        // TC02: the same from the other end of the row
+        assertEquals(new Point(18.5, 0, 0),
+                tree.findClosestIntersection(new Ray(new Point(19, 0, 0), new Vector(-1, 0, 0))).point,
+                "TC02: Wrong closest point from the other end");
+        for (int i = 1; i < 9; ++i)
+            assertEquals(0, spheres.get(i).tests, "TC02: A sphere behind the closest hit was tested");
+
+        // TC03: a triangle in the first leaf the ray visits hits it only in a far leaf,
+        // behind a sphere of a leaf between them - the search must not stop at the first leaf
+        List<Intersectable> geometries = new ArrayList<>(row());
+        geometries.add(new Triangle(new Point(0, 0, 5), new Point(12, -1, -1), new Point(12, 1, -1)));
+        KDTree crossed = new KDTree(geometries);
+        assertEquals(new Point(5.5, 0, 0),
+                crossed.findClosestIntersection(new Ray(new Point(5, 0, 0), new Vector(1, 0, 0))).point,
+                "TC03: A far hit found in a near leaf hides a closer hit");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: the ray starts on a split plane - the tree splits the two spheres at the side of the first one
+        Sphere left = new Sphere(new Point(0, 0, 0), 1d);
+        Sphere right = new Sphere(new Point(4, 0, 0), 1d);
+        KDTree pair = new KDTree(List.of(left, right));
+        double split = left.getBoundingBox().getMax().getX();
+        assertEquals(right.findClosestIntersection(new Ray(new Point(split, 0, 0.5), new Vector(1, 0, 0))),
+                pair.findClosestIntersection(new Ray(new Point(split, 0, 0.5), new Vector(1, 0, 0))),
+                "TC11: Wrong closest point from a split plane forwards");
+        assertEquals(left.findClosestIntersection(new Ray(new Point(split, 0, 0.5), new Vector(-1, 0, 0))),
+                pair.findClosestIntersection(new Ray(new Point(split, 0, 0.5), new Vector(-1, 0, 0))),
+                "TC11: Wrong closest point from a split plane backwards");
+
+        // TC12: the ray lies on the split plane x = 3.5 between two spheres of the row,
+        // and only the triangle that crosses the plane is hit
+        Ray onSplit = new Ray(new Point(3.5, 0, 10), new Vector(0, 0, -1));
+        assertEquals(geometries.get(10).findClosestIntersection(onSplit), crossed.findClosestIntersection(onSplit),
+                "TC12: Wrong closest point along a split plane");
+        assertEquals(1, crossed.findIntersections(onSplit).size(), "TC12: Wrong number of points along a split plane");
+    }
+
+    /**
+     * Test method for {@link KDTree#forEachGeoIntersection(Ray, double, java.util.function.Predicate)}.
+     */
+    @Test
+    void testForEachGeoIntersection() {
+        List<CountedSphere> spheres = row();
+        KDTree tree = new KDTree(new ArrayList<>(spheres));
+        Ray ray = new Ray(new Point(-1, 0, 0), new Vector(1, 0, 0));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the visitor stops the traversal at the first sphere
+        assertFalse(tree.forEachGeoIntersection(ray, Double.POSITIVE_INFINITY, gp -> false),
+                "TC01: The traversal went on after the visitor stopped it");
+        for (int i = 1; i < 10; ++i)
+            assertEquals(0, spheres.get(i).tests, "TC01: A sphere was tested after the visitor stopped");
+
+        // TC02: the visitor goes through all the hits
+        int[] hits = {0};
+        assertTrue(tree.forEachGeoIntersection(ray, Double.POSITIVE_INFINITY, gp -> ++hits[0] > 0),
+                "TC02: The traversal stopped by itself");
+        assertEquals(20, hits[0], "TC02: Wrong number of hits visited");
+    }
+
+    /**
+     * Test method for {@link KDTree} without geometries.
+     */
+    @Test
+    void testEmpty() {
+        KDTree tree = new KDTree(List.of());
+        Ray ray = new Ray(new Point(-1, 0, 0), new Vector(1, 0, 0));
+
+        // =============== Boundary Values Tests ==================
+        // TC11: an empty tree has no intersections and lets all the light through
+        assertNull(tree.findIntersections(ray), "TC11: Intersections in an empty tree");
+        assertNull(tree.findClosestIntersection(ray), "TC11: Closest point in an empty tree");
+        assertEquals(Double3.ONE, tree.findTransparency(ray, Double.POSITIVE_INFINITY, 0.001),
+                "TC11: Light stopped by an empty tree");
+    }
+}
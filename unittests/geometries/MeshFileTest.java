@@ -0,0 +1,118 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link MeshFile} class
+ *
+ * @author Yona &amp; Aaron Mimoun
+ */
+class MeshFileTest {
+    @TempDir
+    Path directory;
+
+    /**
+     * unit cube [0,1]^3 made of 12 faces on 8 shared vertices
+     */
+    private final TriangleMesh cube = new TriangleMesh(new double[]{
+            0, 0, 0, 1, 0, 0, 1, 1, 0, 0, 1, 0,
+            0, 0, 1, 1, 0, 1, 1, 1, 1, 0, 1, 1},
+            new int[]{
+                    0, 2, 1, 0, 3, 2, 4, 5, 6, 4, 6, 7, 0, 1, 5, 0, 5, 4,
+                    3, 7, 6, 3, 6, 2, 0, 4, 7, 0, 7, 3, 1, 2, 6, 1, 6, 5
+            });
+
+    /**
+     * Test method for {@link MeshFile#write(Path, TriangleMesh, double[], int[])} and {@link MeshFile#read(Path)}.
+     */
+    @Test
+    void testReadWrite() {
+        Ray ray = new Ray(new Point(-1, 0.3, 0.6), new Vector(1, 0.1, 0.1));
+        double[] normals = new double[24];
+        for (int i = 0; i < 8; ++i) normals[3 * i + 2] = 1;
+        int[] materials = {0, 0, 1, 1, 2, 2, 3, 3, 4, 4, 5, 5};
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the mesh read back is the written one
+        Path file = directory.resolve("cube.mesh");
+        MeshFile.write(file, cube, normals, materials);
+        MeshFile read = MeshFile.read(file);
+        assertEquals(8, read.getVertexCount(), "TC01: Wrong number of vertices");
+        assertEquals(12, read.getFaceCount(), "TC01: Wrong number of faces");
+        TriangleMesh mesh = read.toMesh();
+        assertEquals(cube.findIntersections(ray), mesh.findIntersections(ray), "TC01: Wrong intersections");
+
+        // TC02: the normals and the material ids
+        double[] readNormals = new double[24];
+        read.getNormals().get(readNormals);
+        assertArrayEquals(normals, readNormals, "TC02: Wrong normals");
+        int[] readMaterials = new int[12];
+        read.getMaterials().get(readMaterials);
+        assertArrayEquals(materials, readMaterials, "TC02: Wrong material ids");
+
+        // TC03: the loader reads a mesh file by its extension
+        assertEquals(12, MeshLoader.load(file).getFaceCount(), "TC03: Wrong mesh loaded");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: a file without the optional parts
+        Path plain = directory.resolve("plain.mesh");
+        MeshFile.write(plain, cube);
+        MeshFile readPlain = MeshFile.read(plain);
+        assertNull(readPlain.getNormals(), "TC11: Normals read from a file without normals");
+        assertNull(readPlain.getMaterials(), "TC11: Material ids read from a file without material ids");
+        assertEquals(cube.findIntersections(ray), readPlain.toMesh().findIntersections(ray),
+                "TC11: Wrong intersections");
+
+        // TC12: normals that don't match the vertices
+        assertThrows(IllegalArgumentException.class,
+                () -> MeshFile.write(plain, cube, new double[3], null), "TC12: Wrong normals written");
+    }
+
+    /**
+     * Test method for {@link MeshFile#read(Path)} with damaged files.
+     *
+     * @throws IOException when the files can't be written
+     */
+    @Test
+    void testReadDamaged() throws IOException {
+        Path file = directory.resolve("cube.mesh");
+        MeshFile.write(file, cube);
+        byte[] bytes = Files.readAllBytes(file);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: another version
+        byte[] version = bytes.clone();
+        ByteBuffer.wrap(version).order(ByteOrder.LITTLE_ENDIAN).putInt(4, 2);
+        Files.write(file, version);
+        assertThrows(IllegalArgumentException.class, () -> MeshFile.read(file), "TC01: Other version accepted");
+
+        // TC02: not a mesh file
+        Files.writeString(file, "v 0 0 0\nv 1 0 0\nv 0 1 0\nf 1 2 3\n");
+        assertThrows(IllegalArgumentException.class, () -> MeshFile.read(file), "TC02: Text file accepted");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: a truncated file
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(IllegalArgumentException.class, () -> MeshFile.read(file), "TC11: Truncated file accepted");
+
+        // TC12: a face of a missing vertex
+        byte[] index = bytes.clone();
+        ByteBuffer.wrap(index).order(ByteOrder.LITTLE_ENDIAN).putInt(24 + 24 * 8, 8);
+        Files.write(file, index);
+        assertThrows(IllegalArgumentException.class, () -> MeshFile.read(file).toMesh(),
+                "TC12: Missing vertex accepted");
+    }
+}
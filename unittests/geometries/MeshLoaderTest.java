@@ -0,0 +1,159 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link MeshLoader} class
+ *
+ * @author Yona &amp; Aaron Mimoun
+ */
+class MeshLoaderTest {
+    @TempDir
+    Path directory;
+
+    /**
+     * unit cube [0,1]^3 in OBJ - quads, triangles, slashes, negative indexes, comments and skipped lines
+     */
+    private static final String CUBE = """
+            # a unit cube
+            o cube
+            v 0 0 0
+            v 1.0 0 0
+            v 1 1 0
+            v 0 1e0 0
+            vn 0 0 -1
+            vt 0.5 0.5
+            v 0 0 1
+            v 1 0 1 # a comment
+            v 1 1 1
+            v 0.0 1 10E-1
+            f 1 3 2
+            f 1 4 3
+            f 5/1 6/1 7/1 8/1
+            f 1//1 2//1 6//1 5//1
+            f -5 -1 -2 -6
+            f 1 5 8 4
+            f 2 3 7 6
+            """;
+
+    /**
+     * Test method for {@link MeshLoader#load(Path)} with an OBJ file.
+     *
+     * @throws IOException when the file can't be written
+     */
+    @Test
+    void testLoadObj() throws IOException {
+        Path file = directory.resolve("cube.obj");
+        Files.writeString(file, CUBE);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the faces of the cube, quads split in two triangles
+        TriangleMesh cube = MeshLoader.load(file);
+        assertEquals(8, cube.getVertexCount(), "TC01: Wrong number of vertices");
+        assertEquals(12, cube.getFaceCount(), "TC01: Wrong number of faces");
+        assertEquals(2, cube.findIntersections(new Ray(new Point(0.3, 0.6, -1), new Vector(0, 0, 1))).size(),
+                "TC01: Wrong intersections through the cube");
+        assertEquals(2, cube.findIntersections(new Ray(new Point(0.3, -1, 0.4), new Vector(0, 1, 0))).size(),
+                "TC01: Wrong intersections through the faces given by negative indexes");
+
+        // TC02: the chunks parsed in parallel give the same mesh
+        TriangleMesh chunked = MeshLoader.readObj(ByteBuffer.wrap(CUBE.getBytes(StandardCharsets.US_ASCII)), 16);
+        assertEquals(8, chunked.getVertexCount(), "TC02: Wrong number of vertices");
+        assertEquals(12, chunked.getFaceCount(), "TC02: Wrong number of faces");
+        Ray ray = new Ray(new Point(-1, 0.3, 0.6), new Vector(1, 0.1, 0.1));
+        assertEquals(cube.findIntersections(ray), chunked.findIntersections(ray), "TC02: Wrong intersections");
+
+        // TC03: a malformed file
+        assertThrows(IllegalArgumentException.class,
+                () -> MeshLoader.readObj(ByteBuffer.wrap("v 0 0 0\nf 1 x 1\n".getBytes()), Integer.MAX_VALUE),
+                "TC03: Malformed face accepted");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: numbers with many digits or large exponents
+        TriangleMesh precise = MeshLoader.readObj(ByteBuffer.wrap(
+                "v 0.12345678901234567890 -1.5e-30 3.25e+40\nv 0.1 0 0\nv 0 0.1 0\nf 1 2 3\n".getBytes()),
+                Integer.MAX_VALUE);
+        Point max = precise.getBoundingBox().getMax();
+        assertEquals(0.12345678901234567890 + 1e-6, max.getX(), "TC11: Wrong number with many digits");
+        assertEquals(3.25e+40 + 1e-6, max.getZ(), "TC11: Wrong number with a large exponent");
+
+        // TC12: an index of a missing vertex
+        assertThrows(IllegalArgumentException.class,
+                () -> MeshLoader.readObj(ByteBuffer.wrap("v 0 0 0\nf 1 2 3\n".getBytes()), Integer.MAX_VALUE),
+                "TC12: Missing vertex accepted");
+    }
+
+    /**
+     * Test method for {@link MeshLoader#load(Path)} with a binary PLY file.
+     *
+     * @throws IOException when the file can't be written
+     */
+    @Test
+    void testLoadPly() throws IOException {
+        // a square made of a quad, with an extra vertex property and an extra element
+        String header = """
+                ply
+                format binary_little_endian 1.0
+                comment a unit square
+                element vertex 4
+                property float x
+                property float y
+                property uchar red
+                property double z
+                element face 1
+                property list uchar int vertex_indices
+                element edge 1
+                property int vertex1
+                property int vertex2
+                end_header
+                """;
+        ByteBuffer body = ByteBuffer.allocate(4 * 17 + 17 + 8).order(ByteOrder.LITTLE_ENDIAN);
+        double[][] square = {{0, 0, 2}, {1, 0, 2}, {1, 1, 2}, {0, 1, 2}};
+        for (double[] v : square)
+            body.putFloat((float) v[0]).putFloat((float) v[1]).put((byte) 255).putDouble(v[2]);
+        body.put((byte) 4).putInt(0).putInt(1).putInt(2).putInt(3);
+        body.putInt(0).putInt(1);
+        Path file = directory.resolve("square.ply");
+        byte[] text = header.getBytes(StandardCharsets.US_ASCII);
+        byte[] bytes = new byte[text.length + body.capacity()];
+        System.arraycopy(text, 0, bytes, 0, text.length);
+        System.arraycopy(body.array(), 0, bytes, text.length, body.capacity());
+        Files.write(file, bytes);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the quad split in two triangles
+        TriangleMesh mesh = MeshLoader.load(file, true);
+        assertEquals(4, mesh.getVertexCount(), "TC01: Wrong number of vertices");
+        assertEquals(2, mesh.getFaceCount(), "TC01: Wrong number of faces");
+        assertEquals(new Point(0.75, 0.5, 2),
+                mesh.findClosestIntersection(new Ray(new Point(0.75, 0.5, 0), new Vector(0, 0, 1))).point,
+                "TC01: Wrong intersection with the square");
+
+        // TC02: the vertices read by several tasks
+        assertEquals(4, MeshLoader.readPly(MeshLoader.map(file), 1).getVertexCount(),
+                "TC02: Wrong number of vertices read in parallel");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: a text PLY file
+        assertThrows(IllegalArgumentException.class, () -> MeshLoader.readPly(ByteBuffer.wrap(
+                        "ply\nformat ascii 1.0\nend_header\n".getBytes()), 1),
+                "TC11: Text PLY accepted");
+
+        // TC12: an unknown extension
+        assertThrows(IllegalArgumentException.class, () -> MeshLoader.load(directory.resolve("mesh.stl")),
+                "TC12: Unknown format accepted");
+    }
+}
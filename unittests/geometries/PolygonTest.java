@@ -2,8 +2,11 @@ package geometries;
 
 import org.junit.jupiter.api.Test;
 import primitives.Point;
+import primitives.Ray;
 import primitives.Vector;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -84,4 +87,50 @@ public class PolygonTest {
             assertEquals(0, result.dotProduct(pts[i].subtract(pts[i == 0 ? 3 : i - 1])), 0.0000001,
                     "Polygon's normal is not orthogonal to one of the edges");
     }
+
+    /**
+     * Test method for {@link geometries.Polygon#findIntersections(primitives.Ray)}.
+     */
+    @Test
+    public void testFindIntersections() {
+        // a pentagon in the plane z = 1, and the same pentagon with its vertices in the reverse order
+        Point[] pts = {new Point(0, 0, 1), new Point(2, 0, 1), new Point(3, 1, 1), new Point(1, 3, 1), new Point(-1, 1, 1)};
+        Polygon pentagon = new Polygon(pts);
+        Polygon reversed = new Polygon(pts[4], pts[3], pts[2], pts[1], pts[0]);
+        // a quad in the plane x + y + z = 1, that projects on the y-z plane
+        Polygon quad = new Polygon(new Point(1, 0, 0), new Point(0, 1, 0), new Point(-1, 1, 1), new Point(0, 0, 1));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the ray crosses the polygon
+        Ray ray = new Ray(new Point(1, 1, 3), new Vector(0, 0, -1));
+        assertEquals(List.of(new Point(1, 1, 1)), pentagon.findIntersections(ray), "TC01: Wrong point");
+        assertEquals(List.of(new Point(1, 1, 1)), reversed.findIntersections(ray), "TC01: Wrong point on reversed polygon");
+        assertEquals(1, quad.findIntersections(new Ray(new Point(-5, 0.2, 0.2), new Vector(1, 0, 0))).size(),
+                "TC01: Wrong number of points on a slanted quad");
+
+        // TC02: the ray crosses the plane outside the polygon, against an edge
+        assertNull(pentagon.findIntersections(new Ray(new Point(3, 3, 3), new Vector(0, 0, -1))),
+                "TC02: Point outside against an edge");
+
+        // TC03: the ray crosses the plane outside the polygon, against a vertex
+        assertNull(pentagon.findIntersections(new Ray(new Point(3.5, 1, 3), new Vector(0, 0, -1))),
+                "TC03: Point outside against a vertex");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: the ray crosses an edge
+        assertNull(pentagon.findIntersections(new Ray(new Point(1, 0, 3), new Vector(0, 0, -1))), "TC11: Point on an edge");
+
+        // TC12: the ray crosses a vertex
+        assertNull(pentagon.findIntersections(new Ray(new Point(2, 0, 3), new Vector(0, 0, -1))), "TC12: Point on a vertex");
+
+        // TC13: the ray crosses the continuation of an edge
+        assertNull(pentagon.findIntersections(new Ray(new Point(4, 0, 3), new Vector(0, 0, -1))),
+                "TC13: Point on the continuation of an edge");
+
+        // TC14: the ray is parallel to the polygon
+        assertNull(pentagon.findIntersections(new Ray(new Point(1, 1, 3), new Vector(1, 0, 0))), "TC14: Parallel ray");
+
+        // TC15: the polygon is beyond the maximum distance
+        assertNull(pentagon.findGeoIntersections(ray, 1.5), "TC15: Point beyond the maximum distance");
+    }
 }
@@ -0,0 +1,82 @@
+package geometries;
+
+import geometries.Intersectable.GeoPoint;
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.List;
+
+import static geometries.Geometries.Acceleration.QUANTIZED_BVH_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link QuantizedBVH} class
+ *
+ * @author Yona &amp; Aaron Mimoun
+ */
+class QuantizedBVHTest {
+    /**
+     * 2000 small spheres scattered in a 100x100x100 cube
+     */
+    private final Intersectable[] spheres = new Intersectable[2000];
+
+    {
+        for (int i = 0; i < spheres.length; ++i)
+            spheres[i] = new Sphere(new Point(i * 37 % 100, i * 71 % 97 + 0.5, i * 13 % 89 + 0.5), 0.3 + i % 7 * 0.1);
+    }
+
+    /**
+     * Test method for {@link QuantizedBVH#findClosestIntersection(Ray)}.
+     */
+    @Test
+    void testFindClosestIntersection() {
+        BVH bvh = new BVH(BVH.of(spheres));
+        QuantizedBVH bvh16 = new QuantizedBVH(bvh, 16);
+        QuantizedBVH bvh8 = new QuantizedBVH(bvh, 8);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the quantized hierarchies find the hits of the exact one, rays in all directions
+        int hits = 0;
+        for (int x = 0; x < 100; x += 3)
+            for (int y = 0; y < 100; y += 3) {
+                Ray ray = new Ray(new Point(x + 0.1, y + 0.2, -1), new Vector(0.01 * x - 0.5, 0.02, 1));
+                GeoPoint expected = bvh.findClosestIntersection(ray);
+                assertEquals(expected, bvh16.findClosestIntersection(ray), "TC01: Wrong closest point with 16 bits");
+                assertEquals(expected, bvh8.findClosestIntersection(ray), "TC01: Wrong closest point with 8 bits");
+                if (expected != null) ++hits;
+            }
+        assertTrue(hits > 50, "TC01: Too few rays hit the spheres to test anything");
+
+        // TC02: all the intersections along a ray
+        Ray ray = new Ray(new Point(-1, 30.5, 50), new Vector(1, 0.01, 0.01));
+        List<Point> expected = bvh.findIntersections(ray);
+        assertEquals(expected == null ? null : expected.size(), sizeOf(bvh8.findIntersections(ray)),
+                "TC02: Wrong number of intersections");
+
+        // TC03: a set of geometries organized in a quantized hierarchy
+        Geometries geometries = new Geometries(spheres).setAcceleration(QUANTIZED_BVH_8);
+        Ray down = new Ray(new Point(0, 0.5, 50), new Vector(0, 0, -1));
+        assertEquals(bvh.findClosestIntersection(down), geometries.findClosestIntersection(down),
+                "TC03: Wrong closest point in a set");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: an empty hierarchy
+        assertNull(new QuantizedBVH(new BVH(BVH.of(new Intersectable[0])), 8).findClosestIntersection(ray),
+                "TC11: Intersection with an empty hierarchy");
+
+        // TC12: only 8 and 16 bits are supported
+        assertThrows(IllegalArgumentException.class, () -> new QuantizedBVH(bvh, 4), "TC12: 4 bits accepted");
+    }
+
+    /**
+     * the size of a list of intersections
+     *
+     * @param _points the intersections, null for none
+     * @return the number of intersections, null for none
+     */
+    private static Integer sizeOf(List<Point> _points) {
+        return _points == null ? null : _points.size();
+    }
+}
@@ -0,0 +1,159 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link RayPacket} class
+ *
+ * @author Yona &amp; Aaron Mimoun
+ */
+class RayPacketTest {
+    /**
+     * a scene of spheres, triangles, a mesh and a plane
+     *
+     * @return the scene
+     */
+    private static Geometries scene() {
+        Geometries geometries = new Geometries(new Plane(new Point(0, 0, -5), new Vector(0, 0, 1)),
+                new TriangleMesh(new double[]{-3, -3, -1, 3, -3, -1, 0, 3, -1}, new int[]{0, 1, 2}));
+        for (int i = 0; i < 5; ++i) {
+            geometries.add(new Sphere(new Point(2 * i - 4, 0, 1), 0.8));
+            geometries.add(new Triangle(new Point(2 * i - 4, 2, 0), new Point(2 * i - 3, 3, 0), new Point(2 * i - 5, 3, 0)));
+        }
+        return geometries;
+    }
+
+    /**
+     * rays from a common point spread over the scene
+     *
+     * @param _count the number of rays
+     * @return the rays
+     */
+    private static List<Ray> rays(int _count) {
+        List<Ray> rays = new ArrayList<>();
+        for (int k = 0; k < _count; ++k)
+            rays.add(new Ray(new Point(0, 0, 10), new Vector(0.7 * k - 5, 0.35 * k - 2.5, -10)));
+        return rays;
+    }
+
+    /**
+     * Test method for {@link RayPacket#RayPacket(int, List)}.
+     */
+    @Test
+    void testConstructor() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: correct packet with fewer rays than lanes
+        assertEquals(5, new RayPacket(8, rays(5)).size(), "TC01: Wrong number of rays");
+
+        // TC02: unsupported width
+        assertThrows(IllegalArgumentException.class, () -> new RayPacket(6, rays(5)),
+                "TC02: Constructed a packet of 6 lanes");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: more rays than lanes
+        assertThrows(IllegalArgumentException.class, () -> new RayPacket(4, rays(5)),
+                "TC11: Constructed a packet with too many rays");
+
+        // TC12: no ray
+        assertThrows(IllegalArgumentException.class, () -> new RayPacket(4, List.of()),
+                "TC12: Constructed an empty packet");
+    }
+
+    /**
+     * Test method for {@link Intersectable#findClosestIntersections(RayPacket)}.
+     */
+    @Test
+    void testFindClosestIntersections() {
+        Geometries geometries = scene();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: each lane finds the same closest point as its ray alone
+        for (int width : new int[]{4, 8, 16}) {
+            List<Ray> rays = rays(width);
+            RayPacket packet = new RayPacket(width, rays);
+            geometries.findClosestIntersections(packet);
+            for (int lane = 0; lane < width; ++lane) {
+                var expected = geometries.findClosestIntersection(rays.get(lane));
+                var result = packet.getHit(lane);
+                assertEquals(expected == null ? null : expected.point, result == null ? null : result.point,
+                        "TC01: Wrong closest point in a packet of " + width);
+                if (expected != null)
+                    assertEquals(expected.geometry, result.geometry, "TC01: Wrong geometry in a packet of " + width);
+            }
+        }
+
+        // TC02: the rays miss everything
+        RayPacket packet = new RayPacket(4, List.of(new Ray(new Point(0, 0, 10), new Vector(0, 0, 1))));
+        geometries.findClosestIntersections(packet);
+        assertNull(packet.getHit(0), "TC02: Wrong intersection");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: a ray starts at the center of a sphere
+        packet = new RayPacket(4, List.of(new Ray(new Point(0, 0, 1), new Vector(0, 0, 1))));
+        new Sphere(new Point(0, 0, 1), 0.8).findClosestIntersections(packet);
+        assertEquals(new Point(0, 0, 1.8), packet.getHit(0).point, "TC11: Wrong point from the center of a sphere");
+    }
+
+    /**
+     * Test method for the vector kernels of {@link Sphere}, {@link Plane}, {@link Triangle} and {@link TriangleMesh}.
+     */
+    @Test
+    void testKernels() {
+        Intersectable[] geometries = {
+                new Sphere(new Point(0, 0, 0), 1d),
+                new Plane(new Point(0, 0, -2), new Vector(0, 0, 1)),
+                new Triangle(new Point(-2, -2, -1), new Point(2, -2, -1), new Point(0, 2, -1)),
+                new TriangleMesh(new double[]{-2, -2, -1, 2, -2, -1, 0, 2, -1}, new int[]{0, 1, 2})};
+        List<Ray> rays = new ArrayList<>();
+        java.util.Random random = new java.util.Random(42);
+        while (rays.size() < 12)
+            rays.add(new Ray(new Point(random.nextDouble() * 4 - 2, random.nextDouble() * 4 - 2, 3),
+                    new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, -1)));
+        // degenerate lanes: from the center of the sphere, from the reference point of the plane,
+        // parallel to the plane under it, through a vertex and through an edge of the triangle
+        rays.add(new Ray(new Point(0, 0, 0), new Vector(0.3, 0.2, 1)));
+        rays.add(new Ray(new Point(0, 0, -2), new Vector(0, 0, 1)));
+        rays.add(new Ray(new Point(0, 0, -2.5), new Vector(1, 0, 0)));
+        rays.add(new Ray(new Point(0, 2, 3), new Vector(0, 0, -1)));
+        rays.add(new Ray(new Point(1, 0, 3), new Vector(0, 0, -1)));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: every lane finds the same hit as its ray alone, to the last bit
+        for (int width : new int[]{4, 8, 16})
+            for (Intersectable geometry : geometries)
+                for (int k = 0; k < rays.size(); k += width) {
+                    List<Ray> lanes = rays.subList(k, Math.min(k + width, rays.size()));
+                    RayPacket packet = new RayPacket(width, lanes);
+                    geometry.findClosestIntersections(packet);
+                    for (int lane = 0; lane < lanes.size(); ++lane) {
+                        var expected = geometry.findClosestIntersection(lanes.get(lane));
+                        var result = packet.getHit(lane);
+                        String message = "TC01: Wrong hit of " + geometry + " in lane " + lane + " of " + width;
+                        if (expected == null)
+                            assertNull(result, message);
+                        else {
+                            assertNotNull(result, message);
+                            assertEquals(expected.point.getX(), result.point.getX(), 0, message);
+                            assertEquals(expected.point.getY(), result.point.getY(), 0, message);
+                            assertEquals(expected.point.getZ(), result.point.getZ(), 0, message);
+                        }
+                    }
+                }
+
+        // =============== Boundary Values Tests ==================
+        // TC11: a lane whose closest hit so far is nearer than the geometry keeps it
+        RayPacket packet = new RayPacket(4, List.of(new Ray(new Point(0, 0, 3), new Vector(0, 0, -1))));
+        geometries[2].findClosestIntersections(packet);
+        for (Intersectable geometry : geometries)
+            geometry.findClosestIntersections(packet);
+        assertEquals(new Point(0, 0, 1), packet.getHit(0).point, "TC11: Wrong closest hit");
+    }
+}
@@ -133,4 +133,32 @@ class SphereTest {
                 "Ray's line out of sphere");
     }
 
-}
\ No newline at end of file
+    /**
+     * Test method for {@link geometries.Sphere#findClosestIntersection(primitives.Ray, double)}.
+     */
+    @Test
+    void testFindClosestIntersection() {
+        Sphere sphere = new Sphere(new Point(1, 0, 0), 1d);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Ray crosses the sphere - the entry point
+        assertEquals(new Point(0, 0, 0), sphere.findClosestIntersection(new Ray(new Point(-1, 0, 0), new Vector(1, 0, 0))).point,
+                "TC01: Wrong closest point");
+
+        // TC02: Ray starts inside the sphere - the exit point
+        assertEquals(new Point(2, 0, 0), sphere.findClosestIntersection(new Ray(new Point(0.5, 0, 0), new Vector(1, 0, 0))).point,
+                "TC02: Wrong closest point from inside");
+
+        // TC03: Ray misses the sphere
+        assertNull(sphere.findClosestIntersection(new Ray(new Point(-1, 2, 0), new Vector(1, 0, 0))), "TC03: Wrong point");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Ray starts at the center
+        assertEquals(new Point(1, 1, 0), sphere.findClosestIntersection(new Ray(new Point(1, 0, 0), new Vector(0, 1, 0))).point,
+                "TC11: Wrong closest point from the center");
+
+        // TC12: the entry point is beyond the maximum distance
+        assertNull(sphere.findClosestIntersection(new Ray(new Point(-1, 0, 0), new Vector(1, 0, 0)), 0.5),
+                "TC12: Point beyond the maximum distance");
+    }
+}
@@ -0,0 +1,130 @@
+package geometries;
+
+import geometries.Intersectable.GeoPoint;
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link TriangleMesh} class
+ *
+ * @author Yona &amp; Aaron Mimoun
+ */
+class TriangleMeshTest {
+    /**
+     * unit cube [0,1]^3 made of 12 faces on 8 shared vertices
+     */
+    private final TriangleMesh cube = new TriangleMesh(new Point[]{
+            new Point(0, 0, 0), new Point(1, 0, 0), new Point(1, 1, 0), new Point(0, 1, 0),
+            new Point(0, 0, 1), new Point(1, 0, 1), new Point(1, 1, 1), new Point(0, 1, 1)},
+            new int[]{
+                    0, 2, 1, 0, 3, 2, // bottom
+                    4, 5, 6, 4, 6, 7, // top
+                    0, 1, 5, 0, 5, 4, // front
+                    3, 7, 6, 3, 6, 2, // back
+                    0, 4, 7, 0, 7, 3, // left
+                    1, 2, 6, 1, 6, 5  // right
+            });
+
+    /**
+     * Test method for {@link TriangleMesh#TriangleMesh(double[], int[])}.
+     */
+    @Test
+    void testConstructor() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: correct mesh
+        assertEquals(12, cube.getFaceCount(), "TC01: Wrong number of faces");
+        assertEquals(8, cube.getVertexCount(), "TC01: Wrong number of vertices");
+
+        // TC02: a face refers to a missing vertex
+        assertThrows(IllegalArgumentException.class,
+                () -> new TriangleMesh(new double[]{0, 0, 0, 1, 0, 0, 0, 1, 0}, new int[]{0, 1, 3}),
+                "TC02: Constructed a mesh with a missing vertex");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: index buffer not made of triples
+        assertThrows(IllegalArgumentException.class,
+                () -> new TriangleMesh(new double[]{0, 0, 0, 1, 0, 0, 0, 1, 0}, new int[]{0, 1}),
+                "TC11: Constructed a mesh with an incomplete face");
+    }
+
+    /**
+     * Test method for {@link TriangleMesh#getNormal(Point)}.
+     */
+    @Test
+    void testGetNormal() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: point on the top of the cube
+        assertEquals(new Vector(0, 0, 1), cube.getNormal(new Point(0.3, 0.6, 1)), "TC01: Bad normal to the top face");
+
+        // TC02: point outside of the cube
+        assertThrows(IllegalArgumentException.class, () -> cube.getNormal(new Point(2, 2, 2)),
+                "TC02: Normal to a point outside of the mesh");
+    }
+
+    /**
+     * Test method for {@link TriangleMesh#findClosestIntersection(Ray)}.
+     */
+    @Test
+    void testFindClosestIntersection() {
+        Ray down = new Ray(new Point(0.3, 0.6, 2), new Vector(0, 0, -1));
+        Ray back = new Ray(new Point(0.3, 2, 0.6), new Vector(0, -1, 0));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the normal of the closest hit is the one of its face, computed once
+        GeoPoint gp = cube.findClosestIntersection(down);
+        assertEquals(new Point(0.3, 0.6, 1), gp.point, "TC01: Wrong closest point");
+        Vector normal = gp.getNormal();
+        assertEquals(new Vector(0, 0, 1), normal, "TC01: Bad normal of the closest hit");
+        assertSame(normal, gp.getNormal(), "TC01: The normal of a hit is computed again");
+
+        // TC02: the lanes of a packet get the normals of their own faces
+        RayPacket packet = new RayPacket(4, List.of(down, back));
+        cube.findClosestIntersections(packet);
+        assertEquals(new Vector(0, 0, 1), packet.getHit(0).getNormal(), "TC02: Bad normal of the first lane");
+        assertEquals(new Vector(0, 1, 0), packet.getHit(1).getNormal(), "TC02: Bad normal of the second lane");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: the faces renumbered by the commit of the mesh keep their normals
+        cube.commit();
+        assertEquals(new Vector(0, 0, 1), cube.findClosestIntersection(down).getNormal(),
+                "TC11: Bad normal after the commit");
+        assertEquals(new Vector(0, 1, 0), cube.findClosestIntersection(back).getNormal(),
+                "TC11: Bad normal after the commit");
+    }
+
+    /**
+     * Test method for {@link TriangleMesh#findIntersections(Ray)}.
+     */
+    @Test
+    void testFindIntersections() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the ray crosses the cube through the top and the bottom
+        var result = cube.findGeoIntersections(new Ray(new Point(0.3, 0.6, 2), new Vector(0, 0, -1)));
+        assertEquals(2, result.size(), "TC01: Wrong number of points");
+        assertEquals(new Vector(0, 0, 1),
+                result.stream().filter(gp -> gp.point.equals(new Point(0.3, 0.6, 1))).findFirst().orElseThrow().getNormal(),
+                "TC01: Bad normal found with the intersection");
+
+        // TC02: the ray misses the cube
+        assertNull(cube.findIntersections(new Ray(new Point(2, 2, 2), new Vector(0, 0, 1))), "TC02: Wrong intersections");
+
+        // TC03: the ray starts inside the cube
+        assertEquals(1, cube.findIntersections(new Ray(new Point(0.3, 0.6, 0.5), new Vector(1, 0.1, 0.2))).size(),
+                "TC03: Wrong number of points from inside the cube");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: the maximum distance stops before the bottom
+        assertEquals(1, cube.findGeoIntersections(new Ray(new Point(0.3, 0.6, 2), new Vector(0, 0, -1)), 1.5).size(),
+                "TC11: Wrong number of points with a maximum distance");
+
+        // TC12: the ray goes along the diagonal of the top, the edge shared by its two faces
+        assertNull(cube.findIntersections(new Ray(new Point(-1, -1, 1), new Vector(1, 1, 0))),
+                "TC12: Intersections along a shared edge");
+    }
+}
@@ -0,0 +1,79 @@
+package primitives;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link Transform} class
+ *
+ * @author Yona &amp; Aaron Mimoun
+ */
+class TransformTest {
+
+    /**
+     * Test method for {@link Transform#Transform(double[][])}.
+     */
+    @Test
+    void testConstructor() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: correct affine matrix
+        Transform t = new Transform(new double[][]{{2, 0, 0, 1}, {0, 2, 0, 2}, {0, 0, 2, 3}, {0, 0, 0, 1}});
+        assertEquals(new Point(3, 4, 5), t.transform(new Point(1, 1, 1)), "TC01: Wrong transformed point");
+
+        // TC02: the last row is not (0, 0, 0, 1)
+        assertThrows(IllegalArgumentException.class,
+                () -> new Transform(new double[][]{{1, 0, 0, 0}, {0, 1, 0, 0}, {0, 0, 1, 0}, {0, 0, 1, 1}}),
+                "TC02: Constructed a transformation that is not affine");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: matrix that can't be inverted
+        assertThrows(IllegalArgumentException.class,
+                () -> new Transform(new double[][]{{1, 0, 0, 0}, {0, 1, 0, 0}, {1, 1, 0, 0}, {0, 0, 0, 1}}),
+                "TC11: Constructed a transformation that can't be inverted");
+
+        // TC12: matrix that is not 4x4
+        assertThrows(IllegalArgumentException.class,
+                () -> new Transform(new double[][]{{1, 0, 0}, {0, 1, 0}, {0, 0, 1}}),
+                "TC12: Constructed a transformation from a 3x3 matrix");
+    }
+
+    /**
+     * Test method for {@link Transform#transform(Point)} and {@link Transform#transform(Vector)}.
+     */
+    @Test
+    void testTransform() {
+        Transform t = Transform.rotation(new Vector(0, 0, 1), 90).then(Transform.translation(new Vector(1, 2, 3)));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: a point is rotated, then translated
+        assertEquals(new Point(1, 3, 3), t.transform(new Point(1, 0, 0)), "TC01: Wrong transformed point");
+
+        // TC02: a direction is rotated only
+        assertEquals(new Vector(0, 1, 0), t.transform(new Vector(1, 0, 0)), "TC02: Wrong transformed direction");
+
+        // TC03: the inverse brings the point back
+        assertEquals(new Point(1, 0, 0), t.inverse().transform(new Point(1, 3, 3)), "TC03: Wrong inverse");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: the identity changes nothing
+        assertEquals(new Point(1, 2, 3), Transform.IDENTITY.transform(new Point(1, 2, 3)), "TC11: Wrong identity");
+    }
+
+    /**
+     * Test method for {@link Transform#transformNormal(Vector)}.
+     */
+    @Test
+    void testTransformNormal() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the normal of the plane x + y = 0 stays orthogonal to it after stretching x
+        Transform t = Transform.scaling(2, 1, 1);
+        Vector n = t.transformNormal(new Vector(1, 1, 0).normalize());
+        assertEquals(0, n.dotProduct(t.transform(new Vector(1, -1, 0))), 1e-10, "TC01: The normal is not orthogonal");
+        assertEquals(1, n.length(), 1e-10, "TC01: The normal is not normalized");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: a zero scaling factor
+        assertThrows(IllegalArgumentException.class, () -> Transform.scaling(0, 1, 1), "TC11: Zero scaling factor");
+    }
+}
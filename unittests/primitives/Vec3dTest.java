@@ -0,0 +1,63 @@
+package primitives;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link Vec3d} class
+ *
+ * @author Yona &amp; Aaron Mimoun
+ */
+class Vec3dTest {
+    private final Point p1 = new Point(0.1, 2.7, -3.3);
+    private final Vector v1 = new Vector(1, 2, 3);
+    private final Vector v2 = new Vector(0.3, -3.1, 2.2);
+
+    /**
+     * Test method for {@link Vec3d#addScaled(Point, double)} and {@link Vec3d#subtractScaled(Point, double)}.
+     */
+    @Test
+    void testAddScaled() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the same point as the immutable operations
+        assertEquals(p1.add(v1.scale(0.7)).add(v2.scale(-1.3)),
+                new Vec3d(p1).addScaled(v1, 0.7).addScaled(v2, -1.3).toPoint(), "TC01: Wrong scaled sum");
+
+        // TC02: the same vector as the immutable operations
+        assertEquals(v1.subtract(v2.scale(2 * 0.35)), new Vec3d(v1).subtractScaled(v2, 2 * 0.35).toVector(),
+                "TC02: Wrong scaled difference");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: a zero triad in the middle of a calculation
+        Vec3d zero = new Vec3d(v1).subtract(v1);
+        assertTrue(zero.isZero(), "TC11: Zero triad not zero");
+        assertEquals(v2, zero.add(v2).toVector(), "TC11: Wrong calculation through zero");
+
+        // TC12: a zero triad is not a vector
+        assertThrows(IllegalArgumentException.class, () -> new Vec3d().toVector(), "TC12: Zero vector created");
+    }
+
+    /**
+     * Test method for {@link Vec3d#cross(Vec3d, Vec3d)} and {@link Vec3d#normalize()}.
+     */
+    @Test
+    void testCross() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the same normalized cross product as the immutable operations, bit for bit
+        Vector expected = v1.crossProduct(v2).normalize();
+        Vec3d a = new Vec3d(v1);
+        Vec3d result = a.cross(a, new Vec3d(v2)).normalize();
+        assertEquals(expected.getX(), result.x, 0, "TC01: Wrong x");
+        assertEquals(expected.getY(), result.y, 0, "TC01: Wrong y");
+        assertEquals(expected.getZ(), result.z, 0, "TC01: Wrong z");
+
+        // TC02: the dot product
+        assertEquals(v1.dotProduct(v2), new Vec3d(v1).dot(v2), 0, "TC02: Wrong dot product");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: parallel vectors have a zero cross product
+        assertTrue(new Vec3d().cross(new Vec3d(v1), new Vec3d(v1).scale(-2)).isZero(),
+                "TC11: Cross product of parallel vectors is not zero");
+    }
+}
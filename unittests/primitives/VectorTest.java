@@ -132,4 +132,20 @@ class VectorTest {
         assertEquals(v.length(), v.dotProduct(u), 0.0000001, "TC01: the normalized vector is not parallel to the original one");
     }
 
-}
\ No newline at end of file
+
+    /**
+     * Test method for {@link primitives.Vector#unchecked(double, double, double)}.
+     */
+    @Test
+    void testUnchecked() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the same vector as the constructor
+        assertEquals(new Vector(1, 2, 3), Vector.unchecked(1, 2, 3), "TC01: Wrong unchecked vector");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: a zero triad is tested by the predicate and not by an exception
+        Vec3d zero = new Vec3d(1, 2, 3).subtract(new Point(1, 2, 3));
+        assertTrue(zero.isZero(), "TC11: Zero triad not detected");
+        assertThrows(IllegalArgumentException.class, zero::toVector, "TC11: Checked zero vector created");
+    }
+}
@@ -0,0 +1,173 @@
+package renderer;
+
+import geometries.RayPacket;
+import org.junit.jupiter.api.Test;
+import primitives.Color;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+import scene.Scene;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for {@link RayTracerBasic} class
+ *
+ * @author Yona &amp; Aaron Mimoun
+ */
+class RayTracerBasicTest {
+    /**
+     * the number of pixels of the side of the image the rays are constructed for
+     */
+    private static final int SIZE = 128;
+    /**
+     * the number of pixels of the side of a tile
+     */
+    private static final int TILE = 16;
+
+    /**
+     * builds the scene of a sphere inside a transparent sphere, with its camera
+     *
+     * @param _scene the scene to set
+     * @return the camera of the scene
+     */
+    private static Camera refractedSpheres(Scene _scene) {
+        ReflectionRefractionTests.refractedSpheres(_scene);
+        return new Camera(new Point(0, 0, 1000), new Vector(0, 0, -1), new Vector(0, 1, 0))
+                .setVPSize(150, 150).setVPDistance(1000);
+    }
+
+    /**
+     * builds the scene of two spheres on mirrors, with its camera
+     *
+     * @param _scene the scene to set
+     * @return the camera of the scene
+     */
+    private static Camera mirroredSpheres(Scene _scene) {
+        ReflectionRefractionTests.mirroredSpheres(_scene);
+        return new Camera(new Point(0, 0, 10000), new Vector(0, 0, -1), new Vector(0, 1, 0))
+                .setVPSize(2500, 2500).setVPDistance(10000);
+    }
+
+    /**
+     * the rays through the pixels of a rectangle of the image, row by row
+     *
+     * @param _camera the camera
+     * @param _col    the first column of the rectangle
+     * @param _row    the first row of the rectangle
+     * @param _cols   the number of columns of the rectangle
+     * @param _rows   the number of rows of the rectangle
+     * @return the rays
+     */
+    private static List<Ray> rays(Camera _camera, int _col, int _row, int _cols, int _rows) {
+        List<Ray> rays = new ArrayList<>(_cols * _rows);
+        for (int i = _row; i < _row + _rows; ++i)
+            for (int j = _col; j < _col + _cols; ++j)
+                rays.add(_camera.constructRayThroughPixel(SIZE, SIZE, j, i));
+        return rays;
+    }
+
+    /**
+     * asserts that two colors are the same to the last bit
+     *
+     * @param _expected the expected color
+     * @param _actual   the actual color
+     * @param _message  the message of the failure
+     */
+    private static void assertSameColor(Color _expected, Color _actual, String _message) {
+        assertEquals(_expected.getRed(), _actual.getRed(), 0, _message);
+        assertEquals(_expected.getGreen(), _actual.getGreen(), 0, _message);
+        assertEquals(_expected.getBlue(), _actual.getBlue(), 0, _message);
+    }
+
+    /**
+     * checks that the batches of the tiles of a scene traced level by level have the colors of their rays
+     * traced one by one
+     *
+     * @param _scene  the scene
+     * @param _camera the camera of the scene
+     * @param _test   the name of the test case
+     */
+    private static void checkTiles(Scene _scene, Camera _camera, String _test) {
+        RayTracerBasic reordered = new RayTracerBasic(_scene).setReordering(true);
+        RayTracerBasic tracer = new RayTracerBasic(_scene);
+        for (int row = 0; row < SIZE; row += TILE)
+            for (int col = 0; col < SIZE; col += TILE) {
+                List<Ray> rays = rays(_camera, col, row, TILE, TILE);
+                Color[] colors = reordered.traceBatch(rays);
+                assertEquals(rays.size(), colors.length, _test + ": Wrong number of colors");
+                for (int k = 0; k < colors.length; ++k)
+                    assertSameColor(tracer.traceRay(rays.get(k)), colors[k],
+                            _test + ": Wrong color of ray " + k + " of the tile at " + col + "," + row);
+            }
+    }
+
+    /**
+     * checks that the rays of the rows of a scene traced in packets of each width have the colors of the rays
+     * traced one by one
+     *
+     * @param _scene  the scene
+     * @param _camera the camera of the scene
+     * @param _cols   the number of pixels of each row to trace
+     * @param _test   the name of the test case
+     */
+    private static void checkPackets(Scene _scene, Camera _camera, int _cols, String _test) {
+        RayTracerBasic tracer = new RayTracerBasic(_scene);
+        for (int width : new int[]{4, 8, 16})
+            for (int row = 0; row < SIZE; ++row) {
+                List<Ray> rays = rays(_camera, 0, row, _cols, 1);
+                for (int k = 0; k < rays.size(); k += width) {
+                    List<Ray> lanes = rays.subList(k, Math.min(k + width, rays.size()));
+                    Color[] colors = tracer.traceRays(new RayPacket(width, lanes));
+                    assertEquals(lanes.size(), colors.length, _test + ": Wrong number of colors");
+                    for (int lane = 0; lane < colors.length; ++lane)
+                        assertSameColor(tracer.traceRay(lanes.get(lane)), colors[lane],
+                                _test + ": Wrong color of lane " + lane + " of " + width + " at " + k + "," + row);
+                }
+            }
+    }
+
+    /**
+     * Test method for {@link RayTracerBasic#traceRays(RayPacket)}.
+     */
+    @Test
+    void testTraceRays() {
+        Scene refracted = new Scene("Refracted");
+        Camera refractedCamera = refractedSpheres(refracted);
+        Scene mirrored = new Scene("Mirrored");
+        Camera mirroredCamera = mirroredSpheres(mirrored);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the lanes of full packets have the colors of their rays traced one by one, through refractions
+        checkPackets(refracted, refractedCamera, SIZE, "TC01");
+
+        // TC02: the lanes of full packets have the colors of their rays traced one by one, through reflections
+        checkPackets(mirrored, mirroredCamera, SIZE, "TC02");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: the last packet of each row is only partly filled
+        checkPackets(refracted, refractedCamera, SIZE - 1, "TC11");
+        checkPackets(mirrored, mirroredCamera, SIZE - 1, "TC11");
+
+        // TC12: a packet of a single ray
+        checkPackets(mirrored, mirroredCamera, 1, "TC12");
+    }
+
+    /**
+     * Test method for {@link RayTracerBasic#traceBatch(List)}.
+     */
+    @Test
+    void testTraceBatch() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: refracted rays traced level by level give the colors of the rays traced one by one
+        Scene refracted = new Scene("Refracted");
+        checkTiles(refracted, refractedSpheres(refracted), "TC01");
+
+        // TC02: reflected rays traced level by level give the colors of the rays traced one by one
+        Scene mirrored = new Scene("Mirrored");
+        checkTiles(mirrored, mirroredSpheres(mirrored), "TC02");
+    }
+}
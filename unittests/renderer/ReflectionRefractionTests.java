@@ -30,7 +30,52 @@ public class ReflectionRefractionTests {
     public void twoSpheres() {
         Camera camera = new Camera(new Point(0, 0, 1000), new Vector(0, 0, -1), new Vector(0, 1, 0)) //
                 .setVPSize(150, 150).setVPDistance(1000);
+        refractedSpheres(scene);
 
+        camera.setImageWriter(new ImageWriter("refractionTwoSpheres", 500, 500)) //
+                .setRayTracer(new RayTracerBasic(scene)) //
+                .renderImage() //
+                .writeToImage();
+    }
+
+    /**
+     * Produce a picture of a sphere lighted by a spot-light
+     */
+    @Test
+    public void twoSpheresOnMirrors() {
+        mirroredSpheres(scene);
+        new Camera(new Point(0, 0, 10000), new Vector(0, 0, -1), new Vector(0, 1, 0)) //
+                .setVPSize(2500, 2500).setVPDistance(10000) //
+                .setImageWriter(new ImageWriter("reflectionTwoSpheresMirrored", 500, 500)) //
+                .setRayTracer(new RayTracerBasic(scene)) //
+                .renderImage() //
+                //.printGrid(50, new Color(YELLOW))
+                .writeToImage();
+    }
+
+    /**
+     * Produce the picture of the spheres on mirrors by tiles, with the secondary rays of each tile
+     * reordered for their coherence - the same picture as {@link #twoSpheresOnMirrors()}, which
+     * {@link RayTracerBasicTest#testTraceBatch()} checks ray by ray
+     */
+    @Test
+    public void twoSpheresOnMirrorsReordered() {
+        mirroredSpheres(scene);
+        new Camera(new Point(0, 0, 10000), new Vector(0, 0, -1), new Vector(0, 1, 0)) //
+                .setVPSize(2500, 2500).setVPDistance(10000) //
+                .setImageWriter(new ImageWriter("reflectionTwoSpheresMirroredReordered", 500, 500)) //
+                .setRayTracer(new RayTracerBasic(scene).setReordering(true)) //
+                .setTileSize(16) //
+                .renderImage() //
+                .writeToImage();
+    }
+
+    /**
+     * Sets the scene of a sphere inside a transparent sphere
+     *
+     * @param scene the scene to set
+     */
+    static void refractedSpheres(Scene scene) {
         scene.geometries.add( //
                 new Sphere(new Point(0, 0, -50), 50d).setEmission(new Color(BLUE)) //
                         .setMaterial(new Material().setKd(0.4).setKs(0.3).setShininess(100).setKt(0.3)),
@@ -39,18 +84,14 @@ public class ReflectionRefractionTests {
         scene.lights.add( //
                 new SpotLight(new Color(1000, 600, 0), new Point(-100, -100, 500), new Vector(-1, -1, -2)) //
                         .setKl(0.0004).setKq(0.0000006));
-
-        camera.setImageWriter(new ImageWriter("refractionTwoSpheres", 500, 500)) //
-                .setRayTracer(new RayTracerBasic(scene)) //
-                .renderImage() //
-                .writeToImage();
     }
 
     /**
-     * Produce a picture of a sphere lighted by a spot-light
+     * Sets the scene of two spheres on mirrors
+     *
+     * @param scene the scene to set
      */
-    @Test
-    public void twoSpheresOnMirrors() {
+    static void mirroredSpheres(Scene scene) {
         scene.setAmbientLight(new AmbientLight(new Color(255, 255, 255), 0.1));
 
         scene.geometries.add( //
@@ -70,14 +111,6 @@ public class ReflectionRefractionTests {
 
         scene.lights.add(new SpotLight(new Color(1020, 400, 400), new Point(-750, -750, -150), new Vector(-1, -1, -4)) //
                 .setKl(0.00001).setKq(0.000005));
-
-        new Camera(new Point(0, 0, 10000), new Vector(0, 0, -1), new Vector(0, 1, 0)) //
-                .setVPSize(2500, 2500).setVPDistance(10000) //
-                .setImageWriter(new ImageWriter("reflectionTwoSpheresMirrored", 500, 500)) //
-                .setRayTracer(new RayTracerBasic(scene)) //
-                .renderImage() //
-                //.printGrid(50, new Color(YELLOW))
-                .writeToImage();
     }
 
     /**